@@ -45,6 +45,7 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.io.StringWriter;
 import java.io.PrintWriter;
 
@@ -258,7 +259,7 @@ public class Driver implements java.sql.Driver {
     RedshiftLogger connLogger = null;
     try {
       // Setup java.util.logging.Logger using connection properties.
-      connLogger = getLogger(props);
+      connLogger = getLogger(props, url);
 
       if(RedshiftLogger.isEnable()) {
         StackTraceElement[] stacktrace = Thread.currentThread().getStackTrace();
@@ -358,8 +359,9 @@ public class Driver implements java.sql.Driver {
    * <p>Setup java.util.logging.Logger using connection properties.</p>
    *
    * @param props Connection Properties
+   * @param url Connection URL, matched by the log filter
    */
-  private RedshiftLogger getLogger(final Properties props) {
+  private RedshiftLogger getLogger(final Properties props, String url) {
     final String alias1LogLevel = RedshiftProperty.LOG_LEVEL.get(props);
     final String alias2LogLevel = RedshiftProperty.DSI_LOG_LEVEL.get(props);
     final String driverLogLevel = (alias1LogLevel != null)
@@ -373,16 +375,50 @@ public class Driver implements java.sql.Driver {
     final String driverLogFile = RedshiftLogger.getLogFileUsingPath(driverLogLevel, logPath);
     String maxLogFileSize = RedshiftProperty.MAX_LOG_FILE_SIZE.get(exprProps);
     String maxLogFileCount = RedshiftProperty.MAX_LOG_FILE_COUNT.get(exprProps);
+    boolean logAsync = RedshiftProperty.LOG_ASYNC.getBoolean(exprProps);
+    int logAsyncQueueSize = RedshiftProperty.LOG_ASYNC_QUEUE_SIZE.getIntNoCheck(exprProps);
     
     // Driver logger
     if (logger == null)
-    	logger = new RedshiftLogger(driverLogFile, driverLogLevel, true, maxLogFileSize, maxLogFileCount);
+    	logger = new RedshiftLogger(driverLogFile, driverLogLevel, true, maxLogFileSize, maxLogFileCount,
+    			logAsync, logAsyncQueueSize);
     
-    RedshiftLogger connLogger = new RedshiftLogger(driverLogFile, driverLogLevel, false, maxLogFileSize, maxLogFileCount);
+    // Connections not matching the log filter don't log
+    String connLogLevel = driverLogLevel;
+    String logFilter = RedshiftProperty.LOG_FILTER.get(exprProps);
+    if (connLogLevel != null && logFilter != null
+        && !matchesLogFilter(logFilter, url, props)) {
+      connLogLevel = null;
+    }
+    
+    RedshiftLogger connLogger = new RedshiftLogger(driverLogFile, connLogLevel, false, maxLogFileSize, maxLogFileCount,
+    		logAsync, logAsyncQueueSize);
+    connLogger.setRowMessageRateLimit(RedshiftProperty.LOG_ROW_MESSAGE_RATE_LIMIT.getIntNoCheck(props));
     
     return connLogger;
   }
 
+  private static boolean matchesLogFilter(String logFilter, String url, Properties props) {
+    Pattern pattern;
+    try {
+      pattern = Pattern.compile(logFilter);
+    } catch (PatternSyntaxException e) {
+      // Log rather than hide the connections of an invalid filter
+      return true;
+    }
+    String[] values = {
+        url,
+        RedshiftProperty.APPLICATION_NAME.get(props),
+        RedshiftProperty.LOG_TAG.get(props)
+    };
+    for (String value : values) {
+      if (value != null && pattern.matcher(value).find()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private String getLogLevel(final Properties props) {
     final String alias1LogLevel = RedshiftProperty.LOG_LEVEL.get(props);
     final String alias2LogLevel = RedshiftProperty.DSI_LOG_LEVEL.get(props);
@@ -25,6 +25,27 @@ import java.util.Arrays;
  */
 public enum RedshiftProperty {
 
+  /**
+   * Adjust the ring buffer size and the fetch size of each result set: the ring buffers of the
+   * open result sets share {@link #ADAPTIVE_FETCH_MEMORY}, and the rows fetched from a suspended
+   * portal follow the measured size of the rows and the rate the application reads them.
+   * {@link #FETCH_RING_BUFFER_SIZE} is then the maximum of a ring buffer, and the fetch size the
+   * size of the first batch.
+   */
+  ADAPTIVE_FETCH(
+    "adaptivefetch",
+    "false",
+    "Adjust the ring buffer size and the fetch size of each result set to the size of its rows"),
+
+  /**
+   * Memory shared by the ring buffers of the open result sets with {@link #ADAPTIVE_FETCH}, as for
+   * maxResultBuffer: a size like "512M", or a percent of the heap like "10p".
+   */
+  ADAPTIVE_FETCH_MEMORY(
+    "adaptivefetchmemory",
+    "10p",
+    "Memory shared by the ring buffers of the open result sets with adaptiveFetch"),
+
   /**
    * When using the V3 protocol the driver monitors changes in certain server configuration
    * parameters that should not be touched by end users. The {@code client_encoding} setting is set
@@ -112,6 +133,17 @@ public enum RedshiftProperty {
     "10",
     "The timeout that is used for sending cancel command."),
 
+  /**
+   * Maximum number of cancel requests sent to a host at a time, by all the connections to it with
+   * the same value. Cancels beyond it wait their turn, and a cancel for a query that already has
+   * one waiting is not sent twice. Statement timeouts send their cancel on a background thread rather than on the
+   * timer thread. 0 sends each cancel on the calling thread, as soon as requested.
+   */
+  CANCEL_MAX_CONCURRENCY(
+    "cancelmaxconcurrency",
+    "8",
+    "Maximum number of cancel requests sent to a host at a time, 0 for no limit"),
+
   /**
    * Determine whether SAVEPOINTS used in AUTOSAVE will be released per query or not
    */
@@ -174,6 +206,46 @@ public enum RedshiftProperty {
     "5",
     "Specifies the maximum size (in megabytes) of fields to be cached per connection. A value of {@code 0} disables the cache."),
 
+  /**
+   * Share the field metadata cache between the connections of the same user to the same host, port
+   * and database, instead of caching the fields per connection. The shared cache is bounded by the
+   * {@code databaseMetadataCacheFields} and {@code databaseMetadataCacheFieldsMiB} settings of the
+   * first connection that uses it, the settings of the other connections are ignored until it is
+   * dropped, once all the connections using it are closed.
+   */
+  DATABASE_METADATA_CACHE_FIELDS_SHARED(
+    "databasemetadatacachefieldsshared",
+    "false",
+    "Share the field metadata cache between the connections of the same user to the same database"),
+
+  /**
+   * Specifies how long, in seconds, fields stay in the shared field metadata cache. A value of
+   * {@code 0} keeps them until they are evicted.
+   */
+  DATABASE_METADATA_CACHE_FIELDS_TTL(
+    "databasemetadatacachefieldsttl",
+    "600",
+    "Specifies how long, in seconds, fields stay in the shared field metadata cache. A value of {@code 0} keeps them until they are evicted."),
+
+  /**
+   * Specifies the maximum number of SHOW command results the metadata API caches per connection.
+   */
+  DATABASE_METADATA_CACHE_SIZE(
+    "databasemetadatacachesize",
+    "1000",
+    "Specifies the maximum number of SHOW command results the metadata API caches per connection."),
+
+  /**
+   * Specifies how long, in seconds, the metadata API keeps the results of its SHOW commands. The
+   * cache is cleared when a DDL command, CREATE TABLE AS or SELECT INTO runs on the connection. The
+   * changes made by other connections are only seen once the results expire. A value of {@code 0}
+   * disables the cache.
+   */
+  DATABASE_METADATA_CACHE_TTL(
+    "databasemetadatacachettl",
+    "0",
+    "Specifies how long, in seconds, the metadata API keeps the results of its SHOW commands. A value of {@code 0} disables the cache."),
+
   /**
    * Returns metadata for the connected database only.
    * Application is ready to accept metadata from all databases,
@@ -185,6 +257,27 @@ public enum RedshiftProperty {
     "databasemetadatacurrentdbonly",
     "true",
     "Control the behavior of metadata API to return data from all accessible databases or only from connected database"),
+
+  /**
+   * Number of connections the metadata API runs its SHOW commands on at once, when it returns
+   * data from several databases, schemas or tables. Above 1, up to that number minus one auxiliary
+   * connections are opened with the same URL and properties. The default value of 1 runs the
+   * commands one at a time on the connection.
+   */
+  DATABASE_METADATA_PARALLELISM(
+    "databasemetadataparallelism",
+    "1",
+    "Number of connections the metadata API runs its SHOW commands on at once. Auxiliary connections are opened above 1"),
+
+  /**
+   * Return forward only {@code getTables} and {@code getColumns} result sets, which run each SHOW
+   * command when the rows before its results have been read, instead of running all of them
+   * before returning. The SHOW commands then run one at a time on the connection.
+   */
+  DATABASE_METADATA_STREAMING(
+    "databasemetadatastreaming",
+    "false",
+    "Return forward only getTables and getColumns result sets, which run each SHOW command as the rows are read"),
   
   /**
    * Default parameter for {@link java.sql.Statement#getFetchSize()}. A value of {@code 0} means
@@ -249,6 +342,16 @@ public enum RedshiftProperty {
   							"true",
   							"The Redshift uses generated statement name and portal name"),
   
+  /**
+   * Collect the driver metrics: bytes read, rows fetched, statement cache hits, ring buffer stalls,
+   * IAM credentials cache hits, and execute, connect and validation latencies. They are exposed as
+   * JMX MBeans and to the {@link com.amazon.redshift.metrics.MetricsExporter}s on the class path.
+   */
+  ENABLE_METRICS(
+    "enablemetrics",
+    "false",
+    "Collect the driver metrics, exposed by JMX and the metrics exporters"),
+
   /**
    * "true" means driver supports multiple SQL commands (semicolon separated) in a Statement object.
    * "false" means driver throws an exception when see multiple SQL commands.
@@ -347,6 +450,28 @@ public enum RedshiftProperty {
   					null,
   					"The JDBC INI file section name."),
   
+  /**
+   * Use a Sync message instead of an empty statement to check the connection in
+   * Connection.isValid(). The server answers a Sync without parsing or running anything, so the
+   * check costs one short round trip. Ignored when {@code disableIsValidQuery} is set.
+   */
+  ISVALID_SYNC_PING(
+    "isvalidsyncping",
+    "false",
+    "Use a protocol level Sync message instead of an empty statement to validate the connection"),
+
+  /**
+   * Milliseconds during which Connection.isValid() trusts a connection without a round trip after
+   * the server last answered on it, provided nothing was received since. A notice, a notification
+   * or an error the server sent, or the server closing the connection, makes the check go to the
+   * server. The socket is read on each check, whatever minStreamAvailableCheckDelay. 0, the
+   * default, always checks with the server.
+   */
+  ISVALID_TRUST_WINDOW(
+    "isvalidtrustwindow",
+    "0",
+    "Milliseconds after a server response during which isValid trusts the connection without a round trip"),
+
   /**
    * Specifies the name of the JAAS system or application login configuration.
    */
@@ -379,11 +504,80 @@ public enum RedshiftProperty {
     "false",
     "If disabled hosts are connected in the given order. If enabled hosts are chosen randomly from the set of suitable candidates"),
 
+  /**
+   * How hosts are ordered when loadBalanceHosts is enabled. {@code random} shuffles them,
+   * {@code leastLatency} prefers the hosts with the lowest recent connect latency and error rate,
+   * and {@code powerOfTwoChoices} picks the better of two random hosts at each step.
+   */
+  LOAD_BALANCE_STRATEGY(
+    "loadbalancestrategy",
+    "random",
+    "How hosts are ordered when loadBalanceHosts is enabled: random, leastLatency (lowest recent connect latency and error rate first) or powerOfTwoChoices (better of two random hosts at each step)",
+    false,
+    new String[] {"random", "leastLatency", "powerOfTwoChoices"}),
+
+  /**
+   * Size of the rows of a statement above which it is reported by the slow query detector, as
+   * for maxResultBuffer: a size like "100M", or a percent of the heap like "10p". A null value,
+   * which is the default, means no limit.
+   */
+  LARGE_RESULT_THRESHOLD(
+    "largeresultthreshold",
+    null,
+    "Size of the rows above which a statement is reported as a large result"),
+
+  /**
+   * Format and write the log messages on a background thread. The connection threads only queue
+   * the messages, and messages below ERROR are dropped when {@code logAsyncQueueSize} messages are
+   * already waiting. The number of messages dropped is logged.
+   */
+  LOG_ASYNC(
+      "logasync",
+      "false",
+      "Format and write the log messages on a background thread"),
+
+  /**
+   * Maximum number of log messages waiting to be written when {@code logAsync} is enabled. Shared
+   * by all the connections, and set by the first one logging asynchronously.
+   */
+  LOG_ASYNC_QUEUE_SIZE(
+      "logasyncqueuesize",
+      "8192",
+      "Maximum number of log messages waiting to be written when logAsync is enabled"),
+
+  /**
+   * Regular expression limiting logging to some connections. When set, a connection logs only if
+   * a match is found in its URL, its {@code applicationName} or its {@code logTag}. Meant for
+   * {@code driverconfig.properties} or an INI file section shared by many connections, to enable
+   * logging for the one being investigated.
+   */
+  LOG_FILTER(
+      "logfilter",
+      null,
+      "Regular expression matched against the URL, applicationName and logTag of a connection to decide if it logs"),
+
   LOG_PATH(
       "logpath",
       null,
       "File Path output of the Logger"),
 
+  /**
+   * Maximum number of per row DEBUG messages, such as those of the result set getters, a
+   * connection logs per second. The others are counted and skipped. 0, the default, logs them all.
+   */
+  LOG_ROW_MESSAGE_RATE_LIMIT(
+      "logrowmessageratelimit",
+      "0",
+      "Maximum number of per row DEBUG messages logged per second by a connection, 0 for no limit"),
+
+  /**
+   * Free form tag of the connection, matched by {@code logFilter}.
+   */
+  LOG_TAG(
+      "logtag",
+      null,
+      "Tag of the connection, matched by logFilter"),
+
   MAX_LOG_FILE_SIZE(
       "maxlogfilesize",
       null,
@@ -466,6 +660,24 @@ public enum RedshiftProperty {
           null,
           "Override the type of query used in getTables calls"),
 
+  /**
+   * Delay (milliseconds) before the next parallel connection attempt is started, when the
+   * previous one has neither succeeded nor failed yet.
+   */
+  PARALLEL_CONNECT_DELAY(
+    "parallelconnectdelay",
+    "250",
+    "Delay in milliseconds before starting the next parallel connection attempt"),
+
+  /**
+   * Number of candidate hosts to connect to in parallel. The first host to complete
+   * authentication is used and the other connections are closed. 1 connects to one host at a time.
+   */
+  PARALLEL_CONNECT_HOSTS(
+    "parallelconnecthosts",
+    "1",
+    "Number of candidate hosts to connect to in parallel, the first to authenticate is used"),
+
   /**
    * Password to use when authenticating.
    */
@@ -491,6 +703,16 @@ public enum RedshiftProperty {
     "querygroup",
     null,
     "Assign a query to a queue at runtime by assigning your query to the appropriate query group"),
+
+  /**
+   * Class name of the {@link com.amazon.redshift.tracing.QueryTracer} tracing the statements of a
+   * connection, or "opentelemetry" for the OpenTelemetry tracer. A null value, which is the
+   * default, means no tracing.
+   */
+  QUERY_TRACER(
+    "querytracer",
+    null,
+    "Class name of the tracer of the statements, or opentelemetry"),
   
   /**
    * Database name to connect to (may be specified directly in the JDBC URL).
@@ -518,6 +740,16 @@ public enum RedshiftProperty {
     null,
     "Port of the Redshift server (may be specified directly in the JDBC URL)"),
 
+  /**
+   * Open the TCP connection and do the TLS handshake while the IAM or IdP credentials are fetched,
+   * instead of after them. Only used with a single host given in the URL and no auth profile.
+   * Off by default: the connection may stay idle while a browser or MFA login completes.
+   */
+  PRE_CONNECT(
+    "preconnect",
+    "false",
+    "Open the connection and do the TLS handshake while IAM or IdP credentials are fetched"),
+
   /**
    * <p>Specifies which mode is used to execute queries to database: simple means ('Q' execute, no parse, no bind, text mode only),
    * extended means always use bind/execute messages, extendedForPrepared means extended for prepared statements only,
@@ -637,6 +869,24 @@ public enum RedshiftProperty {
     "-1",
     "Socket write buffer size"),
 
+  /**
+   * Time in milliseconds to receive all the results of a statement above which it is reported by
+   * the slow query detector. 0, the default, means no threshold.
+   */
+  SLOW_FETCH_THRESHOLD(
+    "slowfetchthreshold",
+    "0",
+    "Time in milliseconds to receive all the results above which a statement is reported as slow"),
+
+  /**
+   * Time in milliseconds to the first row, or to the completion of a statement without rows,
+   * above which it is reported by the slow query detector. 0, the default, means no threshold.
+   */
+  SLOW_QUERY_THRESHOLD(
+    "slowquerythreshold",
+    "0",
+    "Time in milliseconds to the first row above which a statement is reported as slow"),
+
   /**
    * Socket factory used to create socket. A null value, which is the default, means system default.
    */
@@ -683,6 +933,15 @@ public enum RedshiftProperty {
     null,
     "The location of the client's SSL certificate"),
 
+  /**
+   * Share the SSL context built from the same SSL properties across connections. This lets TLS
+   * sessions be resumed and avoids loading the key material and trust store for every connection.
+   */
+  SSL_CONTEXT_CACHE(
+    "sslcontextcache",
+    "true",
+    "Share the SSL context across connections with the same SSL settings, so that TLS sessions can be resumed"),
+
   /**
    * Classname of the SSL Factory to use (instance of {@code javax.net.ssl.SSLSocketFactory}).
    */
@@ -926,6 +1185,21 @@ public enum RedshiftProperty {
   					 null,
   					 "The AWS region where the cluster is located"),
 
+  /**
+   * Seconds the cluster endpoints resolved through DescribeClusters, GetWorkgroup and
+   * DescribeCustomDomainAssociations are cached during IAM authentication. 0 disables the cache.
+   */
+  ENDPOINT_CACHE_TTL("endpointcachettl",
+  							"900",
+  							"Seconds the cluster endpoints resolved during IAM authentication are cached. 0 disables the cache"),
+
+  /**
+   * File the endpoint cache is saved to, so that it survives the JVM. Not saved by default.
+   */
+  ENDPOINT_CACHE_FILE("endpointcachefile",
+  							null,
+  							"File the cluster endpoints resolved during IAM authentication are saved to"),
+
   /**
    * The Redshift endpoint url.
    * Used only AWS internal team.
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.core;
+
+import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.plugin.utils.RequestUtils;
+import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.http.apache.ProxyConfiguration;
+import software.amazon.awssdk.services.redshift.RedshiftClient;
+import software.amazon.awssdk.services.redshift.RedshiftClientBuilder;
+import software.amazon.awssdk.services.redshift.model.DescribeClustersRequest;
+import software.amazon.awssdk.services.redshift.model.DescribeClustersResponse;
+import software.amazon.awssdk.services.redshift.model.DescribeCustomDomainAssociationsRequest;
+import software.amazon.awssdk.services.redshift.model.DescribeCustomDomainAssociationsResponse;
+import software.amazon.awssdk.services.redshift.model.GetClusterCredentialsRequest;
+import software.amazon.awssdk.services.redshift.model.GetClusterCredentialsResponse;
+import software.amazon.awssdk.services.redshift.model.GetClusterCredentialsWithIamRequest;
+import software.amazon.awssdk.services.redshift.model.GetClusterCredentialsWithIamResponse;
+import software.amazon.awssdk.services.redshiftserverless.RedshiftServerlessClient;
+import software.amazon.awssdk.services.redshiftserverless.RedshiftServerlessClientBuilder;
+import software.amazon.awssdk.services.redshiftserverless.model.GetCredentialsRequest;
+import software.amazon.awssdk.services.redshiftserverless.model.GetCredentialsResponse;
+import software.amazon.awssdk.services.redshiftserverless.model.GetWorkgroupRequest;
+import software.amazon.awssdk.services.redshiftserverless.model.GetWorkgroupResponse;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shares the AWS SDK Redshift and Redshift Serverless clients between connections.
+ *
+ * <p>Every SDK client owns an HTTP connection pool, so building one per connection means a new TCP
+ * and TLS setup for each IAM login. Clients are shared by region, endpoint and proxy settings.
+ * As the credentials differ between connections, the shared client carries no credentials and each
+ * connection gets a lightweight client that adds its own credentials provider to every request.</p>
+ *
+ * <p>The clients handed out are reference counted, and closing them releases the shared client, so
+ * they cannot be used after they were closed. At most {@link #MAX_CLIENTS} shared clients are
+ * kept, idle ones are closed to make room.</p>
+ */
+final class AwsSdkClientRegistry {
+
+  private static final int MAX_CLIENTS = 16;
+
+  // Guarded by itself
+  private static final Map<String, SharedClient> clients = new HashMap<String, SharedClient>();
+
+  private AwsSdkClientRegistry() {
+  }
+
+  /**
+   * Returns a Redshift client using the given credentials. It must be closed once the connection
+   * does not need it anymore.
+   *
+   * @param settings the connection settings, for the region and endpoint
+   * @param log the connection logger
+   * @param credProvider the credentials used for the requests
+   * @return the client
+   */
+  static RedshiftClient getRedshiftClient(final RedshiftJDBCSettings settings,
+      final RedshiftLogger log, AwsCredentialsProvider credProvider) {
+    SharedClient shared = acquire("redshift", settings, log, new ClientFactory() {
+      @Override
+      public SdkAutoCloseable build() {
+        RedshiftClientBuilder builder = RedshiftClient.builder();
+        builder = (RedshiftClientBuilder) IamHelper.setBuilderConfiguration(settings, log, builder);
+        return builder.credentialsProvider(AnonymousCredentialsProvider.create()).build();
+      }
+    });
+    return new ScopedRedshiftClient(shared, credentials(credProvider));
+  }
+
+  /**
+   * Returns a Redshift Serverless client using the given credentials. It must be closed once the
+   * connection does not need it anymore.
+   *
+   * @param settings the connection settings, for the region and endpoint
+   * @param log the connection logger
+   * @param credProvider the credentials used for the requests
+   * @return the client
+   */
+  static RedshiftServerlessClient getServerlessClient(final RedshiftJDBCSettings settings,
+      final RedshiftLogger log, AwsCredentialsProvider credProvider) {
+    SharedClient shared = acquire("redshift-serverless", settings, log, new ClientFactory() {
+      @Override
+      public SdkAutoCloseable build() {
+        RedshiftServerlessClientBuilder builder = RedshiftServerlessClient.builder();
+        builder = (RedshiftServerlessClientBuilder) IamHelper.setBuilderConfiguration(settings, log, builder);
+        return builder.credentialsProvider(AnonymousCredentialsProvider.create()).build();
+      }
+    });
+    return new ScopedServerlessClient(shared, credentials(credProvider));
+  }
+
+  private static AwsRequestOverrideConfiguration credentials(AwsCredentialsProvider credProvider) {
+    return AwsRequestOverrideConfiguration.builder().credentialsProvider(credProvider).build();
+  }
+
+  private static SharedClient acquire(String service, RedshiftJDBCSettings settings,
+      RedshiftLogger log, ClientFactory factory) {
+    ProxyConfiguration proxyConfig = RequestUtils.getProxyConfiguration(log);
+    String key = service + '|' + settings.m_awsRegion + '|' + settings.m_endpoint + '|'
+        + (proxyConfig == null ? null
+            : proxyConfig.host() + ':' + proxyConfig.port() + proxyConfig.nonProxyHosts());
+
+    synchronized (clients) {
+      SharedClient shared = clients.get(key);
+      if (shared == null) {
+        shared = new SharedClient(factory.build());
+        if (clients.size() >= MAX_CLIENTS) {
+          closeIdleClients();
+        }
+        // When every slot is in use, the client is closed once its last user releases it
+        shared.registered = clients.size() < MAX_CLIENTS;
+        if (shared.registered) {
+          clients.put(key, shared);
+        }
+
+        if (RedshiftLogger.isEnable())
+          log.logDebug("Created AWS SDK client for " + key);
+      }
+      shared.refCount++;
+      return shared;
+    }
+  }
+
+  private static void closeIdleClients() {
+    Iterator<SharedClient> it = clients.values().iterator();
+    while (it.hasNext()) {
+      SharedClient shared = it.next();
+      if (shared.refCount == 0) {
+        it.remove();
+        shared.client.close();
+      }
+    }
+  }
+
+  private static void release(SharedClient shared) {
+    synchronized (clients) {
+      shared.refCount--;
+      if (shared.refCount == 0 && !shared.registered) {
+        shared.client.close();
+      }
+    }
+  }
+
+  private interface ClientFactory {
+    SdkAutoCloseable build();
+  }
+
+  private static class SharedClient {
+    final SdkAutoCloseable client;
+    int refCount;
+    boolean registered;
+
+    SharedClient(SdkAutoCloseable client) {
+      this.client = client;
+    }
+  }
+
+  /**
+   * Redshift client of one connection, sending the requests of the driver through a shared client
+   * with the credentials of the connection.
+   */
+  private static class ScopedRedshiftClient implements RedshiftClient {
+    private final SharedClient shared;
+    private final RedshiftClient client;
+    private final AwsRequestOverrideConfiguration credentials;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ScopedRedshiftClient(SharedClient shared, AwsRequestOverrideConfiguration credentials) {
+      this.shared = shared;
+      this.client = (RedshiftClient) shared.client;
+      this.credentials = credentials;
+    }
+
+    @Override
+    public DescribeClustersResponse describeClusters(DescribeClustersRequest request) {
+      return client().describeClusters(request.toBuilder().overrideConfiguration(credentials).build());
+    }
+
+    @Override
+    public DescribeCustomDomainAssociationsResponse describeCustomDomainAssociations(
+        DescribeCustomDomainAssociationsRequest request) {
+      return client().describeCustomDomainAssociations(
+          request.toBuilder().overrideConfiguration(credentials).build());
+    }
+
+    @Override
+    public GetClusterCredentialsResponse getClusterCredentials(GetClusterCredentialsRequest request) {
+      return client().getClusterCredentials(
+          request.toBuilder().overrideConfiguration(credentials).build());
+    }
+
+    @Override
+    public GetClusterCredentialsWithIamResponse getClusterCredentialsWithIAM(
+        GetClusterCredentialsWithIamRequest request) {
+      return client().getClusterCredentialsWithIAM(
+          request.toBuilder().overrideConfiguration(credentials).build());
+    }
+
+    @Override
+    public String serviceName() {
+      return client.serviceName();
+    }
+
+    private RedshiftClient client() {
+      if (closed.get()) {
+        // The shared client may have been closed since it was released
+        throw new IllegalStateException("Redshift client is closed");
+      }
+      return client;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(shared);
+      }
+    }
+  }
+
+  /**
+   * Redshift Serverless client of one connection, sending the requests of the driver through a
+   * shared client with the credentials of the connection.
+   */
+  private static class ScopedServerlessClient implements RedshiftServerlessClient {
+    private final SharedClient shared;
+    private final RedshiftServerlessClient client;
+    private final AwsRequestOverrideConfiguration credentials;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ScopedServerlessClient(SharedClient shared, AwsRequestOverrideConfiguration credentials) {
+      this.shared = shared;
+      this.client = (RedshiftServerlessClient) shared.client;
+      this.credentials = credentials;
+    }
+
+    @Override
+    public GetWorkgroupResponse getWorkgroup(GetWorkgroupRequest request) {
+      return client().getWorkgroup(request.toBuilder().overrideConfiguration(credentials).build());
+    }
+
+    @Override
+    public GetCredentialsResponse getCredentials(GetCredentialsRequest request) {
+      return client().getCredentials(request.toBuilder().overrideConfiguration(credentials).build());
+    }
+
+    @Override
+    public String serviceName() {
+      return client.serviceName();
+    }
+
+    private RedshiftServerlessClient client() {
+      if (closed.get()) {
+        // The shared client may have been closed since it was released
+        throw new IllegalStateException("Redshift Serverless client is closed");
+      }
+      return client;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(shared);
+      }
+    }
+  }
+}
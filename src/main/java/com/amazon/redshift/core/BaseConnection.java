@@ -8,8 +8,10 @@ package com.amazon.redshift.core;
 import com.amazon.redshift.RedshiftConnection;
 import com.amazon.redshift.RedshiftProperty;
 import com.amazon.redshift.jdbc.FieldMetadata;
+import com.amazon.redshift.jdbc.SharedFieldMetadataCache;
 import com.amazon.redshift.jdbc.TimestampUtils;
 import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.util.HashedWheelTimer;
 import com.amazon.redshift.util.LruCache;
 
 import java.sql.Connection;
@@ -177,6 +179,15 @@ public interface BaseConnection extends RedshiftConnection, Connection {
    */
   void purgeTimerTasks();
 
+  /**
+   * Schedule a task for later execution on the timeout timer shared by the connections. Unlike
+   * {@link #addTimerTask(TimerTask, long)}, cancelling the task releases it without a purge.
+   *
+   * @param task task to schedule
+   * @param milliSeconds delay in milliseconds
+   */
+  void addTimeout(HashedWheelTimer.Task task, long milliSeconds);
+
   /**
    * Return metadata cache for given connection.
    *
@@ -184,6 +195,13 @@ public interface BaseConnection extends RedshiftConnection, Connection {
    */
   LruCache<FieldMetadata.Key, FieldMetadata> getFieldMetadataCache();
 
+  /**
+   * Return the metadata cache shared with the other connections to the same database.
+   *
+   * @return shared metadata cache, or null if the connection uses its own cache
+   */
+  SharedFieldMetadataCache getSharedFieldMetadataCache();
+
   CachedQuery createQuery(String sql, boolean escapeProcessing, boolean isParameterized,
       String... columnNames)
       throws SQLException;
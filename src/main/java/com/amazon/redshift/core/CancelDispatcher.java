@@ -0,0 +1,169 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.core;
+
+import com.amazon.redshift.util.HostSpec;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the cancel requests to a host, at most {@code cancelMaxConcurrency} at a time.
+ *
+ * <p>Each cancel request opens a new connection to the server, which reads the backend key and
+ * closes it. When many statements time out at once, one connection per timeout adds to the load of
+ * the leader node when it is already struggling. Requests beyond the limit wait in order, and a
+ * request for a backend that already has one waiting is not sent again: its caller is told when
+ * the waiting one was sent.</p>
+ *
+ * <p>The requests are sent on daemon threads shared by all the hosts, so the statement timeout
+ * timer thread does not wait for the server. The callers are told on threads of their own, as
+ * they may wait for locks held by one another, such as the monitor of their connection.</p>
+ *
+ * <p>There is one dispatcher per host and limit: connections to the same host with different
+ * {@code cancelMaxConcurrency} values don't share their limit.</p>
+ */
+final class CancelDispatcher {
+
+  private static final ConcurrentMap<Key, CancelDispatcher> dispatchers =
+      new ConcurrentHashMap<Key, CancelDispatcher>();
+
+  private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "Redshift JDBC driver cancel thread " + count.incrementAndGet());
+      thread.setDaemon(true); // Don't prevent the VM from shutting down
+      return thread;
+    }
+  });
+
+  private final int maxConcurrency;
+
+  // Guarded by this, in submission order
+  private final Map<Long, Request> pending = new LinkedHashMap<Long, Request>();
+  private int running;
+
+  private CancelDispatcher(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Returns the dispatcher of a host with the given limit, creating it if needed.
+   *
+   * @param hostSpec the host
+   * @param maxConcurrency maximum number of requests sent at a time
+   * @return the dispatcher
+   */
+  static CancelDispatcher getInstance(HostSpec hostSpec, int maxConcurrency) {
+    Key key = new Key(hostSpec, maxConcurrency);
+    CancelDispatcher dispatcher = dispatchers.get(key);
+    if (dispatcher == null) {
+      CancelDispatcher newDispatcher = new CancelDispatcher(maxConcurrency);
+      dispatcher = dispatchers.putIfAbsent(key, newDispatcher);
+      if (dispatcher == null) {
+        dispatcher = newDispatcher;
+      }
+    }
+    return dispatcher;
+  }
+
+  /**
+   * Queues a cancel request.
+   *
+   * @param backendKey the process ID and secret key of the backend
+   * @param sender sends the request, without throwing
+   * @param done run once the request was sent or failed, on a thread of its own
+   */
+  void submit(long backendKey, Runnable sender, Runnable done) {
+    synchronized (this) {
+      Request request = pending.get(backendKey);
+      if (request != null) {
+        request.callbacks.add(done);
+        return;
+      }
+      pending.put(backendKey, new Request(sender, done));
+      if (running >= maxConcurrency) {
+        return;
+      }
+      running++;
+    }
+
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        drain();
+      }
+    });
+  }
+
+  private void drain() {
+    while (true) {
+      Request request;
+      synchronized (this) {
+        Iterator<Request> it = pending.values().iterator();
+        if (!it.hasNext()) {
+          running--;
+          return;
+        }
+        request = it.next();
+        it.remove();
+      }
+
+      try {
+        request.sender.run();
+      } finally {
+        for (Runnable callback : request.callbacks) {
+          // Neither the other callers nor the next request wait for a callback
+          executor.execute(callback);
+        }
+      }
+    }
+  }
+
+  private static final class Key {
+    final HostSpec hostSpec;
+    final int maxConcurrency;
+
+    Key(HostSpec hostSpec, int maxConcurrency) {
+      this.hostSpec = hostSpec;
+      this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return maxConcurrency == key.maxConcurrency && hostSpec.equals(key.hostSpec);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * hostSpec.hashCode() + maxConcurrency;
+    }
+  }
+
+  private static class Request {
+    final Runnable sender;
+    final List<Runnable> callbacks = new ArrayList<Runnable>(1);
+
+    Request(Runnable sender, Runnable done) {
+      this.sender = sender;
+      this.callbacks.add(done);
+    }
+  }
+}
@@ -8,6 +8,7 @@ package com.amazon.redshift.core;
 
 import com.amazon.redshift.RedshiftProperty;
 import com.amazon.redshift.core.v3.ConnectionFactoryImpl;
+import com.amazon.redshift.core.v3.PreConnect;
 import com.amazon.redshift.logger.RedshiftLogger;
 import com.amazon.redshift.util.GT;
 import com.amazon.redshift.util.HostSpec;
@@ -44,10 +45,33 @@ public abstract class ConnectionFactory {
    */
   public static QueryExecutor openConnection(HostSpec[] hostSpecs, String user,
       String database, Properties info, RedshiftLogger logger) throws SQLException {
+    return openConnection(hostSpecs, user, database, info, logger, null, null);
+  }
+
+  /**
+   * <p>Establishes and initializes a new connection, see
+   * {@link #openConnection(HostSpec[], String, String, Properties, RedshiftLogger)}.</p>
+   *
+   * @param hostSpecs at least one host and port to connect to; multiple elements for round-robin
+   *        failover
+   * @param user the username to authenticate with; may not be null.
+   * @param database the database on the server to connect to; may not be null.
+   * @param info extra properties controlling the connection; notably, "password" if present
+   *        supplies the password to authenticate with.
+   * @param logger the logger to log the entry for debugging.
+   * @param preConnect stream opened while the credentials were fetched, see
+   *        {@link #preConnect(HostSpec, Properties, RedshiftLogger, ConnectionTimings)}; may be null.
+   * @param timings receives the time spent in each phase; may be null.
+   * @return the new, initialized, connection
+   * @throws SQLException if the connection could not be established.
+   */
+  public static QueryExecutor openConnection(HostSpec[] hostSpecs, String user,
+      String database, Properties info, RedshiftLogger logger, PreConnect preConnect,
+      ConnectionTimings timings) throws SQLException {
     String protoName = RedshiftProperty.PROTOCOL_VERSION.get(info);
 
     if (protoName == null || protoName.isEmpty() || "3".equals(protoName)) {
-      ConnectionFactory connectionFactory = new ConnectionFactoryImpl();
+      ConnectionFactory connectionFactory = new ConnectionFactoryImpl(preConnect, timings);
       QueryExecutor queryExecutor = connectionFactory.openConnectionImpl(
           hostSpecs, user, database, info, logger);
       if (queryExecutor != null) {
@@ -60,6 +84,29 @@ public abstract class ConnectionFactory {
         RedshiftState.CONNECTION_UNABLE_TO_CONNECT);
   }
 
+  /**
+   * <p>Starts opening the TCP connection and TLS handshake to a host on a background thread, so
+   * that they run while the credentials are fetched. The startup message is sent once the
+   * credentials are known, by passing the result to
+   * {@link #openConnection(HostSpec[], String, String, Properties, RedshiftLogger, PreConnect, ConnectionTimings)}.</p>
+   *
+   * @param hostSpec the host to connect to
+   * @param info the connection properties
+   * @param logger the logger to log the entry for debugging.
+   * @param timings receives the time spent in each phase; may be null.
+   * @return the pre-connect, which must be closed if the connection is not opened, or null if the
+   *         protocol version does not support it
+   */
+  public static PreConnect preConnect(HostSpec hostSpec, Properties info, RedshiftLogger logger,
+      ConnectionTimings timings) {
+    String protoName = RedshiftProperty.PROTOCOL_VERSION.get(info);
+
+    if (protoName == null || protoName.isEmpty() || "3".equals(protoName)) {
+      return new ConnectionFactoryImpl(null, timings).startPreConnect(hostSpec, info, logger);
+    }
+    return null;
+  }
+
   /**
    * Implementation of {@link #openConnection} for a particular protocol version. Implemented by
    * subclasses of {@link ConnectionFactory}.
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.core;
+
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in each phase of opening a connection.
+ *
+ * <p>The breakdown is logged at DEBUG level once the connection is open, and handed to the
+ * registered {@link Listener}s. When the credentials are fetched while the connection is set up,
+ * the phases overlap and the total is less than their sum. With parallel connection attempts, the
+ * network phases are those of the last attempt to complete them.</p>
+ */
+public final class ConnectionTimings {
+
+  /**
+   * Phases of opening a connection.
+   */
+  public enum Phase {
+    /** Getting IAM or IdP credentials, including the calls to the IdP and AWS APIs. */
+    CREDENTIALS,
+    /** Opening the TCP connection. */
+    TCP_CONNECT,
+    /** SSL request and TLS handshake. */
+    TLS_HANDSHAKE,
+    /** Startup message until the server accepts the credentials. */
+    AUTHENTICATION,
+    /** Startup parameters and the initial queries. */
+    SESSION_SETUP
+  }
+
+  /**
+   * Receives the timings of each connection opened by the driver. Listeners are called on the
+   * connecting thread, so they should return quickly.
+   */
+  public interface Listener {
+    void connectionOpened(ConnectionTimings timings);
+  }
+
+  private static final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+  private final long startNanos = System.nanoTime();
+  private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+  private volatile long totalNanos;
+  private volatile boolean overlapped;
+
+  /**
+   * @param listener the listener to add
+   */
+  public static void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * @param listener the listener to remove
+   */
+  public static void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @param phase the phase
+   * @param nanos time spent in the phase
+   */
+  public void record(Phase phase, long nanos) {
+    phaseNanos.set(phase.ordinal(), nanos);
+  }
+
+  /**
+   * Marks the credentials fetch as running while the connection is set up.
+   */
+  public void setOverlapped() {
+    overlapped = true;
+  }
+
+  /**
+   * @param phase the phase
+   * @return time spent in the phase, in nanoseconds, or 0 if the phase did not run
+   */
+  public long getNanos(Phase phase) {
+    return phaseNanos.get(phase.ordinal());
+  }
+
+  /**
+   * @return time to open the connection, in nanoseconds
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * @return true if the credentials were fetched while the connection was set up
+   */
+  public boolean isOverlapped() {
+    return overlapped;
+  }
+
+  /**
+   * Ends the timing of the connection, logs the breakdown and calls the listeners.
+   *
+   * @param logger the connection logger
+   */
+  public void connectionOpened(RedshiftLogger logger) {
+    totalNanos = System.nanoTime() - startNanos;
+
+    if (RedshiftLogger.isEnable()) {
+      StringBuilder sb = new StringBuilder("Connection timings:");
+      for (Phase phase : Phase.values()) {
+        sb.append(' ').append(phase.name().toLowerCase()).append('=')
+            .append(TimeUnit.NANOSECONDS.toMillis(getNanos(phase))).append("ms");
+      }
+      sb.append(" total=").append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append("ms");
+      if (overlapped) {
+        sb.append(" (credentials fetched during connect)");
+      }
+      logger.log(LogLevel.DEBUG, sb.toString());
+    }
+
+    for (Listener listener : listeners) {
+      try {
+        listener.connectionOpened(this);
+      } catch (RuntimeException e) {
+        if (RedshiftLogger.isEnable()) {
+          logger.log(LogLevel.DEBUG, e, "Connection timings listener failed");
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.core;
+
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JVM wide cache of the endpoints resolved through the control plane APIs: the cluster host and
+ * port from DescribeClusters or GetWorkgroup, and the cluster identifier behind a custom domain
+ * name from DescribeCustomDomainAssociations.
+ *
+ * <p>Entries expire after the TTL given by {@code endpointCacheTtl}. When {@code endpointCacheFile}
+ * is set, the entries are also saved to that file and loaded from it, so that a new JVM does not
+ * need to call the APIs again. The keys used by a connection are kept in its settings, and
+ * {@link #invalidate(RedshiftJDBCSettings, RedshiftLogger)} drops them when the connection to the resolved host
+ * fails.</p>
+ */
+public final class EndpointCache {
+
+  private static final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+  // Files already merged into the cache
+  private static final Set<String> loadedFiles = new HashSet<String>();
+
+  private EndpointCache() {
+  }
+
+  /**
+   * Returns the cache key of a control plane lookup. It includes the region, the endpoint, the
+   * credentials source and the identity using it, as the same identifier can exist in different
+   * accounts, and principals sharing a credentials provider plugin may not see the same clusters.
+   * The credentials source and identity are hashed, since the key may be saved to a file.
+   *
+   * @param api the API doing the lookup
+   * @param settings the connection settings
+   * @param id the identifier looked up
+   * @return the cache key
+   */
+  static String getKey(String api, RedshiftJDBCSettings settings, String id) {
+    String source = settings.m_iamAccessKeyID + '|' + settings.m_profile + '|'
+        + settings.m_credentialsProvider + '|' + settings.m_username + '|' + settings.m_dbUser + '|'
+        + settings.m_preferredRole + '|' + settings.m_roleArn;
+    return api + '|' + settings.m_awsRegion + '|' + settings.m_endpoint + '|' + hash(source) + '|'
+        + id;
+  }
+
+  private static String hash(String value) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      byte[] digest = md.digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 8; i++) {
+        sb.append(String.format("%02x", digest[i]));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      return Integer.toHexString(value.hashCode());
+    }
+  }
+
+  /**
+   * @param key the cache key
+   * @param settings the connection settings
+   * @param log the connection logger
+   * @return the cached value, or null if missing, expired or the cache is disabled
+   */
+  static String get(String key, RedshiftJDBCSettings settings, RedshiftLogger log) {
+    if (settings.m_endpointCacheTtl <= 0) {
+      return null;
+    }
+
+    load(settings.m_endpointCacheFile, log);
+
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt < System.currentTimeMillis()) {
+      entries.remove(key, entry);
+      return null;
+    }
+
+    settings.m_endpointCacheKeys.add(key);
+    if (RedshiftLogger.isEnable())
+      log.logInfo("Resolved " + key + " from endpoint cache: " + entry.value);
+    return entry.value;
+  }
+
+  /**
+   * @param key the cache key
+   * @param value the resolved value
+   * @param settings the connection settings
+   * @param log the connection logger
+   */
+  static void put(String key, String value, RedshiftJDBCSettings settings, RedshiftLogger log) {
+    if (settings.m_endpointCacheTtl <= 0) {
+      return;
+    }
+
+    long expiresAt = System.currentTimeMillis() + settings.m_endpointCacheTtl * 1000L;
+    entries.put(key, new Entry(value, expiresAt));
+    settings.m_endpointCacheKeys.add(key);
+    save(settings.m_endpointCacheFile, log);
+  }
+
+  /**
+   * Drops the endpoints the connection resolved, so that the next connection calls the APIs again.
+   * It is called when the connection to the resolved host fails, not when the login is refused.
+   *
+   * @param settings the settings of the connection that failed
+   * @param log the connection logger
+   */
+  public static void invalidate(RedshiftJDBCSettings settings, RedshiftLogger log) {
+    List<String> keys = settings.m_endpointCacheKeys;
+    if (keys.isEmpty()) {
+      return;
+    }
+
+    for (String key : keys) {
+      entries.remove(key);
+    }
+    keys.clear();
+
+    if (RedshiftLogger.isEnable())
+      log.logInfo("Connection failed, resolved endpoints dropped from endpoint cache");
+
+    save(settings.m_endpointCacheFile, log);
+  }
+
+  private static void load(String file, RedshiftLogger log) {
+    if (file == null) {
+      return;
+    }
+
+    synchronized (loadedFiles) {
+      if (!loadedFiles.add(file) || !new File(file).exists()) {
+        return;
+      }
+
+      Properties stored = new Properties();
+      try (InputStream in = new FileInputStream(file)) {
+        stored.load(in);
+      } catch (IOException e) {
+        if (RedshiftLogger.isEnable())
+          log.log(LogLevel.DEBUG, "Could not read endpoint cache file " + file + ": " + e.getMessage());
+        return;
+      }
+
+      long now = System.currentTimeMillis();
+      for (String key : stored.stringPropertyNames()) {
+        // Stored as expiration time, then value
+        String storedValue = stored.getProperty(key);
+        int sep = storedValue.indexOf('|');
+        if (sep < 0) {
+          continue;
+        }
+        try {
+          long expiresAt = Long.parseLong(storedValue.substring(0, sep));
+          if (expiresAt > now) {
+            entries.putIfAbsent(key, new Entry(storedValue.substring(sep + 1), expiresAt));
+          }
+        } catch (NumberFormatException e) {
+          // Skip a damaged entry
+        }
+      }
+    }
+  }
+
+  private static void save(String file, RedshiftLogger log) {
+    if (file == null) {
+      return;
+    }
+
+    synchronized (loadedFiles) {
+      long now = System.currentTimeMillis();
+      Properties stored = new Properties();
+      for (Map.Entry<String, Entry> e : entries.entrySet()) {
+        Entry entry = e.getValue();
+        if (entry.expiresAt > now) {
+          stored.setProperty(e.getKey(), entry.expiresAt + "|" + entry.value);
+        }
+      }
+
+      // Write aside and rename, so that a reader never sees a partial file
+      File target = new File(file);
+      File temp = new File(file + ".tmp");
+      try {
+        try (OutputStream out = new FileOutputStream(temp)) {
+          stored.store(out, "Redshift JDBC driver endpoint cache");
+        }
+        if (!temp.renameTo(target)) {
+          target.delete();
+          if (!temp.renameTo(target)) {
+            throw new IOException("rename failed");
+          }
+        }
+      } catch (IOException e) {
+        if (RedshiftLogger.isEnable())
+          log.log(LogLevel.DEBUG, "Could not write endpoint cache file " + file + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private static class Entry {
+    final String value;
+    final long expiresAt;
+
+    Entry(String value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.core;
+
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.metrics.Metric;
+import com.amazon.redshift.metrics.MetricsRegistry;
+import com.amazon.redshift.plugin.utils.RequestUtils;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache of the temporary database credentials returned by the GetClusterCredentials family of
+ * APIs.
+ *
+ * <p>Lookups do not lock the cache. When credentials are missing or expired, only one thread per
+ * key calls the API and the other threads asking for the same key wait for its result. Once
+ * credentials get close to their expiration they are refreshed in the background, while
+ * connections keep using the cached ones, so that connecting does not wait on the API in steady
+ * state.</p>
+ *
+ * @param <V> the API response holding the credentials
+ */
+final class IamCredentialsCache<V> {
+
+  /**
+   * Calls the API to get new credentials.
+   */
+  interface Loader<V> {
+    V load() throws SdkClientException;
+  }
+
+  /**
+   * Returns when the credentials of an API response expire.
+   */
+  interface Expiration<V> {
+    Instant expiration(V credentials);
+  }
+
+  // Credentials are refreshed in the background once they expire in less than this
+  private static final long REFRESH_AHEAD_SECONDS = 5 * 60;
+
+  private static final ThreadPoolExecutor refreshExecutor;
+
+  static {
+    refreshExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Redshift JDBC driver IAM credentials refresh thread");
+            thread.setDaemon(true); // Don't prevent the VM from shutting down
+            return thread;
+          }
+        });
+    refreshExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  private final String apiName;
+  private final Expiration<V> expiration;
+  private final ConcurrentMap<String, Entry<V>> cache = new ConcurrentHashMap<String, Entry<V>>();
+  private final ConcurrentMap<String, FutureTask<V>> loading =
+      new ConcurrentHashMap<String, FutureTask<V>>();
+
+  IamCredentialsCache(String apiName, Expiration<V> expiration) {
+    this.apiName = apiName;
+    this.expiration = expiration;
+  }
+
+  /**
+   * @param key the credentials cache key
+   * @return the cached credentials, or null if they are missing or expired
+   */
+  V getIfValid(String key) {
+    Entry<V> entry = cache.get(key);
+    if (entry == null || RequestUtils.isCredentialExpired(expiration.expiration(entry.credentials))) {
+      return null;
+    }
+    return entry.credentials;
+  }
+
+  /**
+   * Returns the cached credentials, calling the loader if they are missing or expired.
+   *
+   * @param key the credentials cache key
+   * @param loader calls the API
+   * @param forceRefresh if true, cached credentials are not used
+   * @param refreshAhead if true, credentials close to expiration are refreshed in the background.
+   *        It must be false when the loader may interact with the user.
+   * @param log the connection logger
+   * @return the credentials
+   * @throws SdkClientException if the API call fails
+   */
+  V get(String key, Loader<V> loader, boolean forceRefresh, boolean refreshAhead,
+      RedshiftLogger log) throws SdkClientException {
+    if (!forceRefresh) {
+      Entry<V> entry = cache.get(key);
+      if (entry != null) {
+        Instant expiry = expiration.expiration(entry.credentials);
+        if (!RequestUtils.isCredentialExpired(expiry)) {
+          if (RedshiftLogger.isEnable())
+            log.logInfo(apiName + " from cache");
+          countCacheAccess(Metric.IAM_CREDENTIALS_CACHE_HITS);
+
+          if (refreshAhead && expiry.isBefore(Instant.now().plusSeconds(REFRESH_AHEAD_SECONDS))) {
+            refreshInBackground(key, entry, loader);
+          }
+          return entry.credentials;
+        }
+      }
+    }
+
+    if (RedshiftLogger.isEnable())
+      log.logInfo(apiName + " NOT from cache");
+    countCacheAccess(Metric.IAM_CREDENTIALS_CACHE_MISSES);
+
+    return load(key, loader);
+  }
+
+  private static void countCacheAccess(Metric metric) {
+    MetricsRegistry metrics = MetricsRegistry.getGlobal();
+    if (metrics != null) {
+      metrics.increment(metric);
+    }
+  }
+
+  private V load(final String key, final Loader<V> loader) throws SdkClientException {
+    FutureTask<V> task = new FutureTask<V>(new Callable<V>() {
+      @Override
+      public V call() {
+        V credentials = loader.load();
+        if (credentials != null) {
+          cache.put(key, new Entry<V>(credentials));
+        }
+        return credentials;
+      }
+    });
+
+    FutureTask<V> inProgress = loading.putIfAbsent(key, task);
+    if (inProgress == null) {
+      // This thread calls the API, the others asking for the same key wait for it
+      try {
+        task.run();
+      } finally {
+        loading.remove(key, task);
+      }
+      inProgress = task;
+    }
+
+    try {
+      return inProgress.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw SdkClientException.create("Interrupted while waiting for " + apiName, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw SdkClientException.create(cause.getMessage(), cause);
+    }
+  }
+
+  private void refreshInBackground(final String key, final Entry<V> entry, final Loader<V> loader) {
+    if (!entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      refreshExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            load(key, loader);
+          } catch (RuntimeException e) {
+            // The next connection after expiration calls the API itself
+            if (RedshiftLogger.isEnable())
+              RedshiftLogger.getDriverLogger().log(LogLevel.DEBUG,
+                  "Background refresh of " + apiName + " failed: " + e.getMessage());
+          } finally {
+            entry.refreshing.set(false);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      entry.refreshing.set(false);
+    }
+  }
+
+  private static class Entry<V> {
+    final V credentials;
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(V credentials) {
+      this.credentials = credentials;
+    }
+  }
+}
@@ -26,6 +26,7 @@ import software.amazon.awssdk.services.redshift.RedshiftClient;
 import software.amazon.awssdk.services.redshift.RedshiftClientBuilder;
 import software.amazon.awssdk.services.redshift.model.Association;
 import software.amazon.awssdk.services.redshift.model.Cluster;
+import software.amazon.awssdk.services.redshift.model.CustomDomainAssociationNotFoundException;
 import software.amazon.awssdk.services.redshift.model.DescribeClustersRequest;
 import software.amazon.awssdk.services.redshift.model.DescribeClustersResponse;
 import software.amazon.awssdk.services.redshift.model.DescribeCustomDomainAssociationsRequest;
@@ -38,10 +39,10 @@ import software.amazon.awssdk.services.redshift.model.GetClusterCredentialsWithI
 import software.amazon.awssdk.services.redshiftserverless.RedshiftServerlessClientBuilder;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -74,8 +75,22 @@ public final class IamHelper extends IdpAuthHelper {
     NONE, PROFILE, IAM_KEYS_WITH_SESSION, IAM_KEYS, PLUGIN
   }
 
-  private static Map<String, GetClusterCredentialsResponse> credentialsCache = new HashMap<String, GetClusterCredentialsResponse>();
-  private static Map<String, GetClusterCredentialsWithIamResponse> credentialsV2Cache = new HashMap<String, GetClusterCredentialsWithIamResponse>();
+  private static final IamCredentialsCache<GetClusterCredentialsResponse> credentialsCache =
+      new IamCredentialsCache<GetClusterCredentialsResponse>("GetClusterCredentials",
+          new IamCredentialsCache.Expiration<GetClusterCredentialsResponse>() {
+            @Override
+            public Instant expiration(GetClusterCredentialsResponse credentials) {
+              return credentials.expiration();
+            }
+          });
+  private static final IamCredentialsCache<GetClusterCredentialsWithIamResponse> credentialsV2Cache =
+      new IamCredentialsCache<GetClusterCredentialsWithIamResponse>("GetClusterCredentialsV2",
+          new IamCredentialsCache.Expiration<GetClusterCredentialsWithIamResponse>() {
+            @Override
+            public Instant expiration(GetClusterCredentialsWithIamResponse credentials) {
+              return credentials.expiration();
+            }
+          });
 
   private IamHelper() {
   }
@@ -223,6 +238,8 @@ public final class IamHelper extends IdpAuthHelper {
       String ports = RedshiftConnectionImpl.getOptionalConnSetting(RedshiftProperty.PORT.getName(), info);
 
       settings.m_clusterIdentifier = clusterId;
+      settings.m_endpointCacheTtl = RedshiftProperty.ENDPOINT_CACHE_TTL.getInt(info);
+      settings.m_endpointCacheFile = RedshiftProperty.ENDPOINT_CACHE_FILE.get(info);
 
       if (!settings.m_isServerless && !settings.m_isCname
               && (null == settings.m_clusterIdentifier || settings.m_clusterIdentifier.isEmpty()))
@@ -576,11 +593,10 @@ public final class IamHelper extends IdpAuthHelper {
 
       if (!settings.m_iamDisableCache) {
         key = getCredentialsV2CacheKey(settings, providerType, provider, getClusterCredentialApiType, false);
-        credentials = credentialsV2Cache.get(key);
+        credentials = credentialsV2Cache.getIfValid(key);
       }
 
-      if (credentials == null
-              || RequestUtils.isCredentialExpired(credentials.expiration())) {
+      if (credentials == null) {
         // If not found or expired
         // Get IDP token
         if (providerType == CredentialProviderType.PLUGIN) {
@@ -611,22 +627,20 @@ public final class IamHelper extends IdpAuthHelper {
       int getClusterCredentialApiType) throws RedshiftException {
     try {
 
-      RedshiftClientBuilder builder = RedshiftClient.builder();
-      builder = (RedshiftClientBuilder) setBuilderConfiguration(settings, log, builder);
-
       switch (getClusterCredentialApiType) {
         case GET_CLUSTER_CREDENTIALS_V1_API:
           // Call Provision cluster V1 API
-          RedshiftClient client = builder.credentialsProvider(credProvider).build();
+          GetClusterCredentialsResponse result;
+          try (RedshiftClient client = AwsSdkClientRegistry.getRedshiftClient(settings, log, credProvider)) {
+            callDescribeCustomDomainNameAssociationsAPIForV1(settings, client, log);
+            callDescribeClustersAPIForV1(settings, client, log);
 
-          callDescribeCustomDomainNameAssociationsAPIForV1(settings, client, log);
-          callDescribeClustersAPIForV1(settings, client, log);
-
-          if (RedshiftLogger.isEnable())
-            log.log(LogLevel.DEBUG, "Call V1 API of GetClusterCredentials");
+            if (RedshiftLogger.isEnable())
+              log.log(LogLevel.DEBUG, "Call V1 API of GetClusterCredentials");
 
-          GetClusterCredentialsResponse result = getClusterCredentialsResult(settings, client, log, providerType,
-                  idpCredentialsRefresh);
+            result = getClusterCredentialsResult(settings, credProvider, log, providerType,
+                    idpCredentialsRefresh);
+          }
 
           settings.m_username = result.dbUser();
           settings.m_password = result.dbPassword();
@@ -643,30 +657,35 @@ public final class IamHelper extends IdpAuthHelper {
           // Serverless V1 API
           ServerlessIamHelper serverlessIamHelper = new ServerlessIamHelper(settings, log, credProvider);
 
-          if (null == settings.m_host || settings.m_port == 0) {
-            serverlessIamHelper.describeConfiguration(settings);
-          }
+          try {
+            if (null == settings.m_host || settings.m_port == 0) {
+              serverlessIamHelper.describeConfiguration(settings);
+            }
 
-          if (RedshiftLogger.isEnable())
-            log.log(LogLevel.DEBUG, "Call Serverless V1 API of GetCredentials");
+            if (RedshiftLogger.isEnable())
+              log.log(LogLevel.DEBUG, "Call Serverless V1 API of GetCredentials");
 
-          serverlessIamHelper.getCredentialsResult(settings, providerType, idpCredentialsRefresh);
+            serverlessIamHelper.getCredentialsResult(settings, providerType, idpCredentialsRefresh);
+          } finally {
+            serverlessIamHelper.close();
+          }
 
           break;
 
         case GET_CLUSTER_CREDENTIALS_IAM_V2_API:
           // Call V2 IAM API Provision
 
-          RedshiftClient iamClient = builder.credentialsProvider(credProvider).build();
-
-          callDescribeCustomDomainNameAssociationsAPIForV2(settings, iamClient, log);
-          callDescribeClustersAPIForV2(settings, iamClient, log);
+          GetClusterCredentialsWithIamResponse iamResult;
+          try (RedshiftClient iamClient = AwsSdkClientRegistry.getRedshiftClient(settings, log, credProvider)) {
+            callDescribeCustomDomainNameAssociationsAPIForV2(settings, iamClient, log);
+            callDescribeClustersAPIForV2(settings, iamClient, log);
 
-          if (RedshiftLogger.isEnable())
-            log.log(LogLevel.DEBUG, "Call V2 API of GetClusterCredentials");
+            if (RedshiftLogger.isEnable())
+              log.log(LogLevel.DEBUG, "Call V2 API of GetClusterCredentials");
 
-          GetClusterCredentialsWithIamResponse iamResult = getClusterCredentialsResultV2(settings, iamClient, log, providerType,
-                  credProvider, getClusterCredentialApiType);
+            iamResult = getClusterCredentialsResultV2(settings, log, providerType,
+                    credProvider, getClusterCredentialApiType);
+          }
 
           settings.m_username = iamResult.dbUser();
           settings.m_password = iamResult.dbPassword();
@@ -693,6 +712,16 @@ public final class IamHelper extends IdpAuthHelper {
     }
   }
 
+  /**
+   * Sets the host and port from an endpoint in the host:port form.
+   */
+  static void setEndpoint(RedshiftJDBCSettings settings, String endpoint)
+  {
+    int sep = endpoint.lastIndexOf(':');
+    settings.m_host = endpoint.substring(0, sep);
+    settings.m_port = Integer.parseInt(endpoint.substring(sep + 1));
+  }
+
   /**
    * Helper function to call the DescribeClustersAPIForV2 for IAM clients for provisioned clusters
    */
@@ -700,6 +729,13 @@ public final class IamHelper extends IdpAuthHelper {
   {
     if (null == settings.m_host || settings.m_port == 0)
     {
+      String cacheKey = EndpointCache.getKey("DescribeClusters", settings, settings.m_clusterIdentifier);
+      String cachedEndpoint = EndpointCache.get(cacheKey, settings, log);
+      if (cachedEndpoint != null) {
+        setEndpoint(settings, cachedEndpoint);
+        return;
+      }
+
       if (RedshiftLogger.isEnable())
         log.logInfo("calling describe clusters API with clusterID : " + settings.m_clusterIdentifier);
 
@@ -720,6 +756,7 @@ public final class IamHelper extends IdpAuthHelper {
 
       settings.m_host = endpoint.address();
       settings.m_port = endpoint.port();
+      EndpointCache.put(cacheKey, settings.m_host + ":" + settings.m_port, settings, log);
     }
   }
 
@@ -730,6 +767,13 @@ public final class IamHelper extends IdpAuthHelper {
   {
     if (null == settings.m_host || settings.m_port == 0)
     {
+      String cacheKey = EndpointCache.getKey("DescribeClusters", settings, settings.m_clusterIdentifier);
+      String cachedEndpoint = EndpointCache.get(cacheKey, settings, log);
+      if (cachedEndpoint != null) {
+        setEndpoint(settings, cachedEndpoint);
+        return;
+      }
+
       if (RedshiftLogger.isEnable())
         log.logInfo("calling describe clusters API with clusterID : " + settings.m_clusterIdentifier);
 
@@ -750,6 +794,7 @@ public final class IamHelper extends IdpAuthHelper {
 
       settings.m_host = endpoint.address();
       settings.m_port = endpoint.port();
+      EndpointCache.put(cacheKey, settings.m_host + ":" + settings.m_port, settings, log);
     }
   }
 
@@ -777,6 +822,17 @@ public final class IamHelper extends IdpAuthHelper {
         return;
       }
 
+      // An empty cached value means the host is not a custom domain name
+      String cacheKey = EndpointCache.getKey("DescribeCustomDomainAssociations", settings, settings.m_host);
+      String cachedClusterID = EndpointCache.get(cacheKey, settings, log);
+      if (cachedClusterID != null) {
+        if (cachedClusterID.isEmpty())
+          settings.m_isCname = false;
+        else
+          settings.m_clusterIdentifier = cachedClusterID;
+        return;
+      }
+
       try
       {
         DescribeCustomDomainAssociationsRequest describeRequest = describeRequestBuilder.build();
@@ -793,6 +849,7 @@ public final class IamHelper extends IdpAuthHelper {
         String clusterID = describeResponse.associations().get(0).certificateAssociations().get(0).clusterIdentifier();
         if(null != clusterID && !clusterID.isEmpty()) {
           settings.m_clusterIdentifier = clusterID;
+          EndpointCache.put(cacheKey, clusterID, settings, log);
           if (RedshiftLogger.isEnable())
             log.logDebug("setting cluster ID to : " + settings.m_clusterIdentifier);
         }
@@ -801,6 +858,10 @@ public final class IamHelper extends IdpAuthHelper {
       {
         if (RedshiftLogger.isEnable())
           log.logInfo("No cluster identifier received from Redshift CNAME lookup. Setting CNAME to false.");
+        // Only the answer that the host has no association is cached, not throttling, access or
+        // transient errors
+        if (ex instanceof CustomDomainAssociationNotFoundException)
+          EndpointCache.put(cacheKey, "", settings, log);
         settings.m_isCname = false;      }
     }
   }
@@ -829,6 +890,17 @@ public final class IamHelper extends IdpAuthHelper {
         return;
       }
 
+      // An empty cached value means the host is not a custom domain name
+      String cacheKey = EndpointCache.getKey("DescribeCustomDomainAssociations", settings, settings.m_host);
+      String cachedClusterID = EndpointCache.get(cacheKey, settings, log);
+      if (cachedClusterID != null) {
+        if (cachedClusterID.isEmpty())
+          settings.m_isCname = false;
+        else
+          settings.m_clusterIdentifier = cachedClusterID;
+        return;
+      }
+
       try
       {
         DescribeCustomDomainAssociationsRequest describeRequest = describeRequestBuilder.build();
@@ -845,6 +917,7 @@ public final class IamHelper extends IdpAuthHelper {
         String clusterID = describeResponse.associations().get(0).certificateAssociations().get(0).clusterIdentifier();
         if(null != clusterID && !clusterID.isEmpty()) {
           settings.m_clusterIdentifier = clusterID;
+          EndpointCache.put(cacheKey, clusterID, settings, log);
           if (RedshiftLogger.isEnable())
             log.logDebug("setting cluster ID to : " + settings.m_clusterIdentifier);
         }
@@ -853,74 +926,68 @@ public final class IamHelper extends IdpAuthHelper {
       {
         if (RedshiftLogger.isEnable())
           log.logInfo("No cluster identifier received from Redshift CNAME lookup. Setting CNAME to false.");
+        // Only the answer that the host has no association is cached, not throttling, access or
+        // transient errors
+        if (ex instanceof CustomDomainAssociationNotFoundException)
+          EndpointCache.put(cacheKey, "", settings, log);
         settings.m_isCname = false;
       }
     }
   }
 
-  private static synchronized GetClusterCredentialsResponse getClusterCredentialsResult(
-          RedshiftJDBCSettings settings,
-          RedshiftClient client,
-          RedshiftLogger log,
+  private static GetClusterCredentialsResponse getClusterCredentialsResult(
+          final RedshiftJDBCSettings settings,
+          final AwsCredentialsProvider credProvider,
+          final RedshiftLogger log,
           CredentialProviderType providerType,
           boolean idpCredentialsRefresh) throws SdkClientException {
 
-    String key = null;
-    GetClusterCredentialsResponse credentials = null;
-
-    if (!settings.m_iamDisableCache) {
-      key = getCredentialsCacheKey(settings, providerType, false);
-      credentials = credentialsCache.get(key);
-    }
+    // The requests are built up front, the loader may run again later to refresh the credentials
+    final GetClusterCredentialsRequest cnameRequest = settings.m_isCname
+        ? constructRequestForGetClusterCredentials(settings, true, log)
+        : null;
+    final GetClusterCredentialsRequest request = constructRequestForGetClusterCredentials(settings, false, log);
+
+    IamCredentialsCache.Loader<GetClusterCredentialsResponse> loader =
+        new IamCredentialsCache.Loader<GetClusterCredentialsResponse>() {
+          @Override
+          public GetClusterCredentialsResponse load() throws SdkClientException {
+            // Its own client, as a refresh ahead runs after the connection released its client
+            try (RedshiftClient client = AwsSdkClientRegistry.getRedshiftClient(settings, log, credProvider)) {
+              if (cnameRequest != null)
+              {
+                try
+                {
+                  // make api call with cname
+                  return makeGetClusterCredentialsAPICall(cnameRequest, null, client, log);
+                }
+                catch(SdkClientException sdkClientException)
+                {
+                  // if api call with cname fails, re-make api call with clusterid
+
+                  if(RedshiftLogger.isEnable())
+                  {
+                    log.logInfo("GetClusterCredentials API call failed with CNAME request. Retrying with ClusterID.");
+                  }
+                }
+              }
+
+              // make api call with clusterid
+              return makeGetClusterCredentialsAPICall(request, null, client, log);
+            }
+          }
+        };
 
-    if (credentials == null || (providerType == CredentialProviderType.PLUGIN && idpCredentialsRefresh)
-            || RequestUtils.isCredentialExpired(credentials.expiration())) {
+    if (settings.m_iamDisableCache) {
       if (RedshiftLogger.isEnable())
         log.logInfo("GetClusterCredentials NOT from cache");
 
-      if (!settings.m_iamDisableCache)
-        credentialsCache.remove(key);
-
-      if(settings.m_isCname)
-      {
-        // construct request packet with cname
-        GetClusterCredentialsRequest request = constructRequestForGetClusterCredentials(settings, true, log);
-
-        try
-        {
-          // make api call with cname
-          credentials = makeGetClusterCredentialsAPICall(request, credentials, client, log);
-        }
-        catch(SdkClientException sdkClientException)
-        {
-          // if api call with cname fails, recreate request packet with clusterid and re-make api call
-
-          if(RedshiftLogger.isEnable())
-          {
-            log.logInfo("GetClusterCredentials API call failed with CNAME request. Retrying with ClusterID.");
-          }
-
-            request = constructRequestForGetClusterCredentials(settings, false, log);
-            credentials = makeGetClusterCredentialsAPICall(request, credentials, client, log);
-        }
-      }
-      else
-      {
-        // construct request packet with clusterid and make api call
-        GetClusterCredentialsRequest request = constructRequestForGetClusterCredentials(settings, false, log);
-        credentials = makeGetClusterCredentialsAPICall(request, credentials, client, log);
-      }
-
-      if (!settings.m_iamDisableCache)
-        credentialsCache.put(key, credentials);
-    }
-    else
-    {
-      if (RedshiftLogger.isEnable())
-        log.logInfo("GetClusterCredentials from cache");
+      return loader.load();
     }
 
-    return credentials;
+    String key = getCredentialsCacheKey(settings, providerType, false);
+    boolean isPlugin = providerType == CredentialProviderType.PLUGIN;
+    return credentialsCache.get(key, loader, isPlugin && idpCredentialsRefresh, !isPlugin, log);
   }
 
   /**
@@ -995,71 +1062,61 @@ public final class IamHelper extends IdpAuthHelper {
     }
   }
 
-  private static synchronized GetClusterCredentialsWithIamResponse getClusterCredentialsResultV2(
-          RedshiftJDBCSettings settings,
-          RedshiftClient client,
-          RedshiftLogger log,
+  private static GetClusterCredentialsWithIamResponse getClusterCredentialsResultV2(
+          final RedshiftJDBCSettings settings,
+          final RedshiftLogger log,
           CredentialProviderType providerType,
-          AwsCredentialsProvider provider,
+          final AwsCredentialsProvider provider,
           int getClusterCredentialApiType) throws SdkClientException {
-    String key = null;
-    GetClusterCredentialsWithIamResponse credentials = null;
 
-    if (!settings.m_iamDisableCache)
-    {
-      key = getCredentialsV2CacheKey(settings, providerType, provider, getClusterCredentialApiType, false);
-      credentials = credentialsV2Cache.get(key);
-    }
+    // The requests are built up front, the loader may run again later to refresh the credentials
+    final GetClusterCredentialsWithIamRequest cnameRequest = settings.m_isCname
+        ? constructRequestForGetClusterCredentialsWithIAM(settings, true, log)
+        : null;
+    final GetClusterCredentialsWithIamRequest request =
+        constructRequestForGetClusterCredentialsWithIAM(settings, false, log);
+
+    IamCredentialsCache.Loader<GetClusterCredentialsWithIamResponse> loader =
+        new IamCredentialsCache.Loader<GetClusterCredentialsWithIamResponse>() {
+          @Override
+          public GetClusterCredentialsWithIamResponse load() throws SdkClientException {
+            // Its own client, as a refresh ahead runs after the connection released its client
+            try (RedshiftClient client = AwsSdkClientRegistry.getRedshiftClient(settings, log, provider)) {
+              if (cnameRequest != null)
+              {
+                try
+                {
+                  // make api call with cname
+                  return makeGetClusterCredentialsWithIAMAPICall(cnameRequest, null, client, log);
+                }
+                catch (SdkClientException sdkClientException)
+                {
+                  // if api call with cname fails, re-make api call with clusterid
+
+                  if(RedshiftLogger.isEnable())
+                  {
+                    log.logInfo("GetClusterCredentials API call failed with CNAME request. Retrying with ClusterID.");
+                  }
+                }
+              }
+
+              // make api call with clusterid
+              return makeGetClusterCredentialsWithIAMAPICall(request, null, client, log);
+            }
+          }
+        };
 
-    if (credentials == null || (providerType == CredentialProviderType.PLUGIN && settings.m_idpToken != null)
-            || RequestUtils.isCredentialExpired(credentials.expiration()))
+    if (settings.m_iamDisableCache)
     {
       if (RedshiftLogger.isEnable())
         log.logInfo("GetClusterCredentialsV2 NOT from cache");
 
-      if (!settings.m_iamDisableCache)
-        credentialsV2Cache.remove(key);
-
-      if(settings.m_isCname)
-      {
-        // construct request packet with cname
-        GetClusterCredentialsWithIamRequest request = constructRequestForGetClusterCredentialsWithIAM(settings, true, log);
-
-        try
-        {
-          // make api call with cname
-          credentials = makeGetClusterCredentialsWithIAMAPICall(request, credentials, client, log);
-        }
-        catch (SdkClientException sdkClientException)
-        {
-          // if api call with cname fails, recreate request packet with clusterid and re-make api call
-
-          if(RedshiftLogger.isEnable())
-          {
-            log.logInfo("GetClusterCredentials API call failed with CNAME request. Retrying with ClusterID.");
-          }
-
-          request = constructRequestForGetClusterCredentialsWithIAM(settings, false, log);
-          credentials = makeGetClusterCredentialsWithIAMAPICall(request, credentials, client, log);
-        }
-      }
-      else
-      {
-        // construct request packet with clusterid and make api call
-        GetClusterCredentialsWithIamRequest request = constructRequestForGetClusterCredentialsWithIAM(settings, false, log);
-        credentials = makeGetClusterCredentialsWithIAMAPICall(request, credentials, client, log);
-      }
-
-      if (!settings.m_iamDisableCache)
-        credentialsV2Cache.put(key, credentials);
-    }
-    else
-    {
-      if (RedshiftLogger.isEnable())
-        log.logInfo("GetClusterCredentialsV2 from cache");
+      return loader.load();
     }
 
-    return credentials;
+    String key = getCredentialsV2CacheKey(settings, providerType, provider, getClusterCredentialApiType, false);
+    boolean isPlugin = providerType == CredentialProviderType.PLUGIN;
+    return credentialsV2Cache.get(key, loader, isPlugin && settings.m_idpToken != null, !isPlugin, log);
   }
 
   /**
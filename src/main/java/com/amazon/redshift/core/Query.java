@@ -61,6 +61,15 @@ public interface Query {
 
   boolean isStatementDescribed();
 
+  /**
+   * Returns the parameter types this query was last prepared with. Once the statement has been
+   * described, parameters that were bound as unspecified hold the type resolved by the server.
+   *
+   * @return parameter type oids, or <code>null</code> if the query has not been prepared or is made
+   *         up of several statements.
+   */
+  int[] getPrepareTypes();
+
   boolean isEmpty();
 
   /**
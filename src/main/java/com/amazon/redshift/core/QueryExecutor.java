@@ -13,6 +13,7 @@ import com.amazon.redshift.jdbc.AutoSave;
 import com.amazon.redshift.jdbc.BatchResultHandler;
 import com.amazon.redshift.jdbc.EscapeSyntaxCallMode;
 import com.amazon.redshift.jdbc.PreferQueryMode;
+import com.amazon.redshift.metrics.MetricsRegistry;
 import com.amazon.redshift.util.HostSpec;
 
 import java.io.IOException;
@@ -322,6 +323,21 @@ public interface QueryExecutor extends TypeTransferModeRegistry {
    */
   void sendQueryCancel() throws SQLException;
 
+  /**
+   * Sends a query cancellation for this connection without waiting for it to be sent. Used by the
+   * statement timeouts, so that the timer thread does not wait for the server.
+   *
+   * @param done run once the cancellation was sent or failed to be sent
+   */
+  void sendQueryCancelAsync(Runnable done);
+
+  /**
+   * Sets the registry the executor records its metrics in.
+   *
+   * @param metrics the registry of the connection, or null to record nothing
+   */
+  void setMetrics(MetricsRegistry metrics);
+
   /**
    * Return the process ID (PID) of the backend server process handling this connection.
    *
@@ -414,6 +430,32 @@ public interface QueryExecutor extends TypeTransferModeRegistry {
    */
   TransactionState getTransactionState();
 
+  /**
+   * Returns a counter incremented each time a DDL command or a rollback completes on this
+   * connection, so that the caches of catalog data can tell when they may be stale.
+   *
+   * @return the schema change counter
+   */
+  long getSchemaChangeCount();
+
+  /**
+   * Tells if the server answered on this connection within the given window, and neither sent
+   * anything nor closed the connection since. Does not wait for a query in progress: the connection
+   * is then not trusted.
+   *
+   * @param windowMillis the window, in milliseconds
+   * @return true if the connection can be considered valid without a round trip
+   */
+  boolean isRecentlyResponsive(int windowMillis);
+
+  /**
+   * Sends a Sync message and waits for the ReadyForQuery answering it. This checks the server
+   * is responsive without parsing or running a statement.
+   *
+   * @throws SQLException if the server does not answer, or answers with an error
+   */
+  void sendSyncPing() throws SQLException;
+
   /**
    * Returns whether the server treats string-literals according to the SQL standard or if it uses
    * traditional Redshift escaping rules. Versions up to 8.1 always treated backslashes as escape
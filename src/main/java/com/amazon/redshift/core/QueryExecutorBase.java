@@ -14,6 +14,8 @@ import com.amazon.redshift.jdbc.RedshiftWarningWrapper;
 import com.amazon.redshift.jdbc.PreferQueryMode;
 import com.amazon.redshift.logger.LogLevel;
 import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.metrics.Metric;
+import com.amazon.redshift.metrics.MetricsRegistry;
 import com.amazon.redshift.util.HostSpec;
 import com.amazon.redshift.util.LruCache;
 import com.amazon.redshift.util.RedshiftException;
@@ -28,6 +30,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
 
 public abstract class QueryExecutorBase implements QueryExecutor {
 
@@ -36,6 +39,8 @@ public abstract class QueryExecutorBase implements QueryExecutor {
   private final String user;
   private final String database;
   private final int cancelSignalTimeout;
+  // Null to send the cancel requests on the calling thread
+  private final CancelDispatcher cancelDispatcher;
 
   private int cancelPid;
   private int cancelKey;
@@ -43,6 +48,8 @@ public abstract class QueryExecutorBase implements QueryExecutor {
   private String serverVersion;
   private int serverVersionNum = 0;
   private TransactionState transactionState;
+  // Only written by the thread reading the server responses
+  private volatile long schemaChangeCount;
   private final boolean reWriteBatchedInserts;
   private final boolean columnSanitiserDisabled;
   private final EscapeSyntaxCallMode escapeSyntaxCallMode;
@@ -61,6 +68,9 @@ public abstract class QueryExecutorBase implements QueryExecutor {
   private final LruCache<Object, CachedQuery> statementCache;
   private final CachedQueryCreateAction cachedQueryCreateAction;
 
+  // Null unless enableMetrics is set, set before the connection is used
+  protected MetricsRegistry metrics;
+
   // For getParameterStatuses(), GUC_REPORT tracking
   private final TreeMap<String,String> parameterStatuses
       = new TreeMap<String,String>(String.CASE_INSENSITIVE_ORDER);
@@ -83,6 +93,10 @@ public abstract class QueryExecutorBase implements QueryExecutor {
     this.database = database;
     this.properties = info;
     this.cancelSignalTimeout = cancelSignalTimeout;
+    int cancelMaxConcurrency = RedshiftProperty.CANCEL_MAX_CONCURRENCY.getInt(info);
+    this.cancelDispatcher = (cancelMaxConcurrency > 0)
+        ? CancelDispatcher.getInstance(pgStream.getHostSpec(), cancelMaxConcurrency)
+        : null;
     this.reWriteBatchedInserts = RedshiftProperty.REWRITE_BATCHED_INSERTS.getBoolean(info);
     this.columnSanitiserDisabled = RedshiftProperty.DISABLE_COLUMN_SANITISER.getBoolean(info);
     String callMode = RedshiftProperty.ESCAPE_SYNTAX_CALL_MODE.get(info);
@@ -96,7 +110,15 @@ public abstract class QueryExecutorBase implements QueryExecutor {
         Math.max(0, RedshiftProperty.PREPARED_STATEMENT_CACHE_QUERIES.getInt(info)),
         Math.max(0, RedshiftProperty.PREPARED_STATEMENT_CACHE_SIZE_MIB.getInt(info) * 1024 * 1024),
         false,
-        cachedQueryCreateAction,
+        new LruCache.CreateAction<Object, CachedQuery>() {
+          @Override
+          public CachedQuery create(Object key) throws SQLException {
+            if (metrics != null) {
+              metrics.increment(Metric.STATEMENT_CACHE_MISSES);
+            }
+            return cachedQueryCreateAction.create(key);
+          }
+        },
         new LruCache.EvictAction<CachedQuery>() {
           @Override
           public void evict(CachedQuery cachedQuery) throws SQLException {
@@ -193,8 +215,66 @@ public abstract class QueryExecutorBase implements QueryExecutor {
       return;
     }
 
+    if (cancelDispatcher == null) {
+      sendCancelRequest();
+      return;
+    }
+
+    final CountDownLatch sent = new CountDownLatch(1);
+    sendQueryCancelAsync(new Runnable() {
+      @Override
+      public void run() {
+        sent.countDown();
+      }
+    });
+    // Wait even if interrupted: the request is still sent, and would cancel the next query of
+    // the connection if the statement was reported cancelled before.
+    boolean interrupted = false;
+    while (true) {
+      try {
+        sent.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void sendQueryCancelAsync(Runnable done) {
+    if (cancelPid <= 0 || cancelDispatcher == null) {
+      try {
+        sendQueryCancel();
+      } catch (SQLException e) {
+        // Not thrown by sendQueryCancel itself
+      } finally {
+        done.run();
+      }
+      return;
+    }
+
+    if(RedshiftLogger.isEnable()) {
+      logger.logDebug("Queueing cancel request for pid={0}", cancelPid);
+    }
+    cancelDispatcher.submit(((long) cancelPid << 32) | (cancelKey & 0xffffffffL),
+        new Runnable() {
+          @Override
+          public void run() {
+            sendCancelRequest();
+          }
+        }, done);
+  }
+
+  private void sendCancelRequest() {
     RedshiftStream cancelStream = null;
 
+    if (metrics != null) {
+      metrics.increment(Metric.QUERY_CANCELS);
+    }
+
     // Now we need to construct and send a cancel packet
     try {
     	if(RedshiftLogger.isEnable()) {
@@ -322,6 +402,18 @@ public abstract class QueryExecutorBase implements QueryExecutor {
     return transactionState;
   }
 
+  @Override
+  public long getSchemaChangeCount() {
+    return schemaChangeCount;
+  }
+
+  /**
+   * Records that a command may have changed the catalog.
+   */
+  protected void schemaChanged() {
+    schemaChangeCount++;
+  }
+
   public void setEncoding(Encoding encoding) throws IOException {
     pgStream.setEncoding(encoding);
   }
@@ -344,16 +436,19 @@ public abstract class QueryExecutorBase implements QueryExecutor {
 
   @Override
   public final CachedQuery borrowQuery(String sql) throws SQLException {
+    countCacheLookup();
     return statementCache.borrow(sql);
   }
 
   @Override
   public final CachedQuery borrowCallableQuery(String sql) throws SQLException {
+    countCacheLookup();
     return statementCache.borrow(new CallableQueryKey(sql));
   }
 
   @Override
   public final CachedQuery borrowReturningQuery(String sql, String[] columnNames) throws SQLException {
+    countCacheLookup();
     return statementCache.borrow(new QueryWithReturningColumnsKey(sql, true, true,
         columnNames
     ));
@@ -361,9 +456,21 @@ public abstract class QueryExecutorBase implements QueryExecutor {
 
   @Override
   public CachedQuery borrowQueryByKey(Object key) throws SQLException {
+    countCacheLookup();
     return statementCache.borrow(key);
   }
 
+  private void countCacheLookup() {
+    if (metrics != null) {
+      metrics.increment(Metric.STATEMENT_CACHE_LOOKUPS);
+    }
+  }
+
+  @Override
+  public void setMetrics(MetricsRegistry metrics) {
+    this.metrics = metrics;
+  }
+
   @Override
   public void releaseQuery(CachedQuery cachedQuery) {
   	
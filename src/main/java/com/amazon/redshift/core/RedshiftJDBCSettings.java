@@ -1,5 +1,6 @@
 package com.amazon.redshift.core;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -312,4 +313,19 @@ public class RedshiftJDBCSettings
      * Is there a custom cluster name?
      */
     public boolean m_isCname;
+
+    /**
+     * Seconds the endpoints resolved through the control plane APIs are cached. 0 disables it.
+     */
+    public int m_endpointCacheTtl;
+
+    /**
+     * File the endpoint cache is saved to, if any.
+     */
+    public String m_endpointCacheFile;
+
+    /**
+     * Endpoint cache entries used by this connection, dropped if the connection fails.
+     */
+    public List<String> m_endpointCacheKeys = new ArrayList<String>();
 }
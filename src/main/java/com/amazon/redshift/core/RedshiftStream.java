@@ -65,6 +65,8 @@ public class RedshiftStream implements Closeable, Flushable {
 
   private long maxResultBuffer = -1;
   private long resultBufferByteCount = 0;
+  // Size of all the rows received, never cleared
+  private long totalResultByteCount = 0;
   private RedshiftLogger logger;
 
   /**
@@ -190,6 +192,33 @@ public class RedshiftStream implements Closeable, Flushable {
     return available;
   }
 
+  /**
+   * Check without blocking that the backend sent nothing and did not close the connection. Unlike
+   * {@link #hasMessagePending()}, it reads the socket on every call, whatever the minimum stream
+   * available check delay, and tells the end of the stream from a stream with nothing to read.
+   *
+   * @return true if nothing was received and the stream did not end
+   * @throws IOException if something wrong happens
+   */
+  public boolean isIdle() throws IOException {
+    if (pgInput.available() > 0) {
+      return false;
+    }
+
+    int soTimeout = getNetworkTimeout();
+    connection.setSoTimeout(1);
+    try {
+      if (pgInput.ensureBytes(1, false)) {
+        return false;
+      }
+      return !pgInput.isEndOfStream();
+    } catch (SocketTimeoutException e) {
+      return true;
+    } finally {
+      connection.setSoTimeout(soTimeout);
+    }
+  }
+
   public void setMinStreamAvailableCheckDelay(int delay) {
     this.minStreamAvailableCheckDelay = delay;
   }
@@ -716,6 +745,14 @@ public class RedshiftStream implements Closeable, Flushable {
     maxResultBuffer = RedshiftPropertyMaxResultBufferParser.parseProperty(value, RedshiftProperty.MAX_RESULT_BUFFER.getName());
   }
 
+  /**
+   * @return size of all the rows received on this stream, in bytes. Unlike the count checked
+   *         against maxResultBuffer, it is never cleared.
+   */
+  public long getTotalResultByteCount() {
+    return totalResultByteCount;
+  }
+
   /**
    * Method to clear count of byte buffer.
    */
@@ -732,6 +769,7 @@ public class RedshiftStream implements Closeable, Flushable {
    *                          buffer.
    */
   private void increaseByteCounter(long value) throws SQLException {
+    totalResultByteCount += value;
     if (maxResultBuffer != -1) {
       resultBufferByteCount += value;
       if (resultBufferByteCount > maxResultBuffer) {
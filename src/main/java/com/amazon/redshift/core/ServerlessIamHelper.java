@@ -1,16 +1,13 @@
 package com.amazon.redshift.core;
 
+import java.time.Instant;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.amazon.redshift.core.IamHelper.CredentialProviderType;
 import com.amazon.redshift.logger.RedshiftLogger;
-import com.amazon.redshift.plugin.utils.RequestUtils;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.services.redshiftserverless.RedshiftServerlessClient;
-import software.amazon.awssdk.services.redshiftserverless.RedshiftServerlessClientBuilder;
 import software.amazon.awssdk.services.redshiftserverless.model.Endpoint;
 import software.amazon.awssdk.services.redshiftserverless.model.GetCredentialsRequest;
 import software.amazon.awssdk.services.redshiftserverless.model.GetCredentialsResponse;
@@ -25,17 +22,26 @@ public final class ServerlessIamHelper {
     private RedshiftLogger log;
     private RedshiftServerlessClient client;
 
-    private static Map<String, GetCredentialsResponse> credentialsCache = new HashMap<String, GetCredentialsResponse>();
+    // To acquire a client of its own when the credentials are loaded, null with a given client
+    private RedshiftJDBCSettings settings;
+    private AwsCredentialsProvider credProvider;
+
+    private static final IamCredentialsCache<GetCredentialsResponse> credentialsCache =
+        new IamCredentialsCache<GetCredentialsResponse>("GetCredentials",
+            new IamCredentialsCache.Expiration<GetCredentialsResponse>() {
+                @Override
+                public Instant expiration(GetCredentialsResponse credentials) {
+                    return credentials.expiration();
+                }
+            });
 
     ServerlessIamHelper(RedshiftJDBCSettings settings,
                         RedshiftLogger log,
                         AwsCredentialsProvider credProvider) {
         this.log = log;
-        RedshiftServerlessClientBuilder builder = RedshiftServerlessClient.builder();
-
-        builder = (RedshiftServerlessClientBuilder) IamHelper.setBuilderConfiguration(settings, log, builder);
-
-        client = builder.credentialsProvider(credProvider).build();
+        this.settings = settings;
+        this.credProvider = credProvider;
+        client = AwsSdkClientRegistry.getServerlessClient(settings, log, credProvider);
     }
 
     /* package */ ServerlessIamHelper(RedshiftServerlessClient client, RedshiftLogger log) {
@@ -43,6 +49,13 @@ public final class ServerlessIamHelper {
         this.log = log;
     }
 
+    /**
+     * Releases the SDK client.
+     */
+    void close() {
+        client.close();
+    }
+
     synchronized void describeConfiguration(RedshiftJDBCSettings settings) {
         GetWorkgroupRequest.Builder requestBuilder = GetWorkgroupRequest.builder();
 
@@ -55,6 +68,13 @@ public final class ServerlessIamHelper {
             throw SdkClientException.create("Serverless workgroup is not set.");
         }
 
+        String cacheKey = EndpointCache.getKey("GetWorkgroup", settings, settings.m_workGroup);
+        String cachedEndpoint = EndpointCache.get(cacheKey, settings, log);
+        if (cachedEndpoint != null) {
+            IamHelper.setEndpoint(settings, cachedEndpoint);
+            return;
+        }
+
         GetWorkgroupResponse resp = client.getWorkgroup(requestBuilder.build());
 
         Endpoint endpoint = resp.workgroup().endpoint();
@@ -66,69 +86,77 @@ public final class ServerlessIamHelper {
 
         settings.m_host = endpoint.address();
         settings.m_port = endpoint.port();
+        EndpointCache.put(cacheKey, settings.m_host + ":" + settings.m_port, settings, log);
     }
 
-    synchronized void getCredentialsResult(RedshiftJDBCSettings settings,
-                                           CredentialProviderType providerType,
-                                           boolean idpCredentialsRefresh
+    void getCredentialsResult(RedshiftJDBCSettings settings,
+                              CredentialProviderType providerType,
+                              boolean idpCredentialsRefresh
     ) throws SdkClientException {
-        String key = null;
-        GetCredentialsResponse credentials = null;
-
-        if (!settings.m_iamDisableCache) {
-            key = IamHelper.getCredentialsCacheKey(settings, providerType, true);
-            credentials = credentialsCache.get(key);
+        GetCredentialsRequest.Builder requestBuilder = GetCredentialsRequest.builder();
+        if (settings.m_iamDuration > 0) {
+            requestBuilder.durationSeconds(settings.m_iamDuration);
         }
 
-        if (credentials == null
-                || (providerType == CredentialProviderType.PLUGIN
-                && idpCredentialsRefresh)
-                || RequestUtils.isCredentialExpired(credentials.expiration()))
-        {
-            if (RedshiftLogger.isEnable()) {
-                log.logInfo("GetCredentials NOT from cache");
-            }
-            if (!settings.m_iamDisableCache) {
-                credentialsCache.remove(key);
+        requestBuilder.dbName(settings.m_Schema);
+        if (settings.m_workGroup != null && settings.m_workGroup.length() > 0) {
+            // Set workgroup in the request
+            requestBuilder.workgroupName(settings.m_workGroup);
+        } else {
+            if (settings.m_isCname) {
+                requestBuilder.customDomainName(settings.m_host);
             }
+        }
 
-            GetCredentialsRequest.Builder requestBuilder = GetCredentialsRequest.builder();
-            if (settings.m_iamDuration > 0) {
-                requestBuilder.durationSeconds(settings.m_iamDuration);
-            }
+        if (RedshiftLogger.isEnable()) {
+            log.logInfo(requestBuilder.toString());
+        }
 
-            requestBuilder.dbName(settings.m_Schema);
-            if (settings.m_workGroup != null && settings.m_workGroup.length() > 0) {
-                // Set workgroup in the request
-                requestBuilder.workgroupName(settings.m_workGroup);
-            } else {
-                if (settings.m_isCname) {
-                    requestBuilder.customDomainName(settings.m_host);
+        // The request is built up front, the loader may run again later to refresh the credentials
+        final GetCredentialsRequest request = requestBuilder.build();
+        final RedshiftServerlessClient givenClient = (credProvider == null) ? client : null;
+        final RedshiftJDBCSettings clientSettings = this.settings;
+        final AwsCredentialsProvider clientCredProvider = credProvider;
+        final RedshiftLogger logger = log;
+        IamCredentialsCache.Loader<GetCredentialsResponse> loader =
+            new IamCredentialsCache.Loader<GetCredentialsResponse>() {
+                @Override
+                public GetCredentialsResponse load() throws SdkClientException {
+                    // Its own client, as a refresh ahead runs after the helper released its client
+                    RedshiftServerlessClient serverlessClient = (givenClient != null)
+                        ? givenClient
+                        : AwsSdkClientRegistry.getServerlessClient(clientSettings, logger, clientCredProvider);
+                    try {
+                        GetCredentialsResponse credentials = null;
+                        for (int i = 0; i < IamHelper.MAX_AMAZONCLIENT_RETRY; ++i) {
+                            try {
+                                credentials = serverlessClient.getCredentials(request);
+                                break;
+                            }
+                            catch (SdkClientException sdkClientException) {
+                                IamHelper.checkForApiCallRateExceedError(sdkClientException, i, "getCredentialsResult", logger);
+                            }
+                        }
+                        return credentials;
+                    } finally {
+                        if (givenClient == null) {
+                            serverlessClient.close();
+                        }
+                    }
                 }
-            }
+            };
 
+        GetCredentialsResponse credentials;
+        if (settings.m_iamDisableCache) {
             if (RedshiftLogger.isEnable()) {
-                log.logInfo(requestBuilder.toString());
-            }
-
-            for (int i = 0; i < IamHelper.MAX_AMAZONCLIENT_RETRY; ++i) {
-                try {
-                    credentials = client.getCredentials(requestBuilder.build());
-                    break;
-                }
-                catch (SdkClientException sdkClientException) {
-                    IamHelper.checkForApiCallRateExceedError(sdkClientException, i, "getCredentialsResult", log);
-                }
-            }
-
-            if (!settings.m_iamDisableCache) {
-                credentialsCache.put(key, credentials);
+                log.logInfo("GetCredentials NOT from cache");
             }
+            credentials = loader.load();
         }
         else {
-            if (RedshiftLogger.isEnable()) {
-                log.logInfo("GetCredentials from cache");
-            }
+            String key = IamHelper.getCredentialsCacheKey(settings, providerType, true);
+            boolean isPlugin = providerType == CredentialProviderType.PLUGIN;
+            credentials = credentialsCache.get(key, loader, isPlugin && idpCredentialsRefresh, !isPlugin, log);
         }
 
         settings.m_username = credentials.dbUser();
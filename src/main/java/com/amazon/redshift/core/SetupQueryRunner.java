@@ -78,4 +78,59 @@ public class SetupQueryRunner {
     return tuples.get(0);
   }
 
+  /**
+   * Runs several setup statements in a single round trip, by sending them as one simple query
+   * message. If results are wanted, they are taken from the last statement, which must return
+   * exactly one row.
+   *
+   * @param executor query executor of the connection being set up
+   * @param queries statements to run, in order
+   * @param wantResults whether the last statement returns a row
+   * @return the row returned by the last statement, or null if no results are wanted
+   * @throws SQLException if any of the statements fails
+   */
+  public static Tuple runPipelined(QueryExecutor executor, List<String> queries,
+      boolean wantResults) throws SQLException {
+    if (queries.size() == 1) {
+      return run(executor, queries.get(0), wantResults);
+    }
+
+    StringBuilder sql = new StringBuilder();
+    for (String query : queries) {
+      if (sql.length() > 0) {
+        sql.append("; ");
+      }
+      sql.append(query);
+    }
+
+    // Do not split the statements, so they travel together in one 'Q' message
+    List<NativeQuery> nativeQueries = Parser.parseJdbcSql(sql.toString(),
+        executor.getStandardConformingStrings(), false, false, false, true);
+    Query query = executor.wrap(nativeQueries);
+    SimpleResultHandler handler = new SimpleResultHandler();
+
+    int flags = QueryExecutor.QUERY_ONESHOT | QueryExecutor.QUERY_SUPPRESS_BEGIN
+        | QueryExecutor.QUERY_EXECUTE_AS_SIMPLE;
+    if (!wantResults) {
+      flags |= QueryExecutor.QUERY_NO_RESULTS | QueryExecutor.QUERY_NO_METADATA;
+    }
+
+    try {
+      executor.execute(query, null, handler, 0, 0, flags);
+    } finally {
+      query.close();
+    }
+
+    if (!wantResults) {
+      return null;
+    }
+
+    List<Tuple> tuples = handler.getResults();
+    if (tuples == null || tuples.size() != 1) {
+      throw new RedshiftException(GT.tr("An unexpected result was returned by a query."),
+          RedshiftState.CONNECTION_UNABLE_TO_CONNECT);
+    }
+
+    return tuples.get(0);
+  }
 }
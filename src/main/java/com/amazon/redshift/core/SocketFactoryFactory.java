@@ -9,6 +9,7 @@ import com.amazon.redshift.RedshiftProperty;
 import com.amazon.redshift.jdbc.RedshiftConnectionImpl;
 import com.amazon.redshift.ssl.LibPQFactory;
 import com.amazon.redshift.ssl.NonValidatingFactory;
+import com.amazon.redshift.ssl.SSLSocketFactoryCache;
 import com.amazon.redshift.util.GT;
 import com.amazon.redshift.util.ObjectFactory;
 import com.amazon.redshift.util.RedshiftException;
@@ -60,6 +61,9 @@ public class SocketFactoryFactory {
     if (classname == null
         || "com.amazon.redshift.ssl.jdbc4.LibPQFactory".equals(classname)
         || "com.amazon.redshift.ssl.LibPQFactory".equals(classname)) {
+      if (RedshiftProperty.SSL_CONTEXT_CACHE.getBoolean(info)) {
+        return SSLSocketFactoryCache.getLibPQFactory(info);
+      }
       return new LibPQFactory(info);
     }
     try {
@@ -55,6 +55,11 @@ public class VisibleBufferedInputStream extends InputStream {
    */
   private boolean timeoutRequested = false;
 
+  /**
+   * true once the wrapped stream returned its end
+   */
+  private boolean endOfStream = false;
+
   /**
    * number of bytes read from stream
    */
@@ -181,6 +186,7 @@ public class VisibleBufferedInputStream extends InputStream {
       }
     }
     if (read < 0) {
+      endOfStream = true;
       return false;
     }
     endIndex += read;
@@ -356,6 +362,13 @@ public class VisibleBufferedInputStream extends InputStream {
     }
   }
 
+  /**
+   * @return true if a read reached the end of the wrapped stream
+   */
+  public boolean isEndOfStream() {
+    return endOfStream;
+  }
+
   public void setTimeoutRequested(boolean timeoutRequested) {
     this.timeoutRequested = timeoutRequested;
   }
@@ -80,6 +80,10 @@ class CompositeQuery implements Query {
     return true;
   }
 
+  public int[] getPrepareTypes() {
+    return null;
+  }
+
   public boolean isEmpty() {
     for (SimpleQuery subquery : subqueries) {
       if (!subquery.isEmpty()) {
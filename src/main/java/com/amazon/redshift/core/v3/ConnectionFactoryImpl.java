@@ -8,6 +8,7 @@ package com.amazon.redshift.core.v3;
 
 import com.amazon.redshift.RedshiftProperty;
 import com.amazon.redshift.core.ConnectionFactory;
+import com.amazon.redshift.core.ConnectionTimings;
 import com.amazon.redshift.core.RedshiftStream;
 import com.amazon.redshift.core.QueryExecutor;
 import com.amazon.redshift.core.ServerVersion;
@@ -39,14 +40,19 @@ import com.amazon.redshift.util.ServerErrorMessage;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.SocketFactory;
 
@@ -58,6 +64,8 @@ import javax.net.SocketFactory;
 public class ConnectionFactoryImpl extends ConnectionFactory {
 
   private RedshiftLogger logger;
+  private final PreConnect preConnect;
+  private final ConnectionTimings timings;
   private static final int AUTH_REQ_OK = 0;
   private static final int AUTH_REQ_KRB4 = 1;
   private static final int AUTH_REQ_KRB5 = 2;
@@ -91,6 +99,39 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
 
   private static final String TOKEN_TYPE_ACCESS_TOKEN = "ACCESS_TOKEN";
   
+  public ConnectionFactoryImpl() {
+    this(null, null);
+  }
+
+  /**
+   * @param preConnect stream opened while the credentials were fetched, or null
+   * @param timings receives the time spent in each phase, or null
+   */
+  public ConnectionFactoryImpl(PreConnect preConnect, ConnectionTimings timings) {
+    this.preConnect = preConnect;
+    this.timings = timings;
+  }
+
+  /**
+   * Starts opening the TCP connection and TLS handshake to a host on a background thread.
+   *
+   * @param hostSpec the host to connect to
+   * @param info the connection properties
+   * @param logger the connection logger
+   * @return the pre-connect, or null if the properties are not valid
+   */
+  public PreConnect startPreConnect(HostSpec hostSpec, Properties info, RedshiftLogger logger) {
+    this.logger = logger;
+    SslMode sslMode;
+    try {
+      sslMode = SslMode.of(info);
+    } catch (RedshiftException e) {
+      // Reported when connecting
+      return null;
+    }
+    return new PreConnect(this, hostSpec, sslMode, info, logger).start();
+  }
+
   private ISSPIClient createSSPI(RedshiftStream pgStream,
       String spnServiceClass,
       boolean enableNegotiate) {
@@ -106,9 +147,11 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
     }
   }
 
-  private RedshiftStream tryConnect(String user, String database,
-      Properties info, SocketFactory socketFactory, HostSpec hostSpec,
-      SslMode sslMode)
+  /**
+   * Opens the TCP connection to a host and negotiates SSL, up to the startup message.
+   */
+  RedshiftStream openStream(SocketFactory socketFactory, HostSpec hostSpec, SslMode sslMode,
+      Properties info)
       throws SQLException, IOException {
     int connectTimeout = RedshiftProperty.CONNECT_TIMEOUT.getInt(info) * 1000;
 
@@ -116,10 +159,42 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
 
     try
     {
+        long connectStart = System.nanoTime();
         newStream = constructNewStream(socketFactory, hostSpec, connectTimeout, logger, true, info);
+        long sslStart = System.nanoTime();
 
         // Construct and send an ssl startup packet if requested.
         newStream = enableSSL(newStream, sslMode, info, connectTimeout);
+
+        if (timings != null) {
+          timings.record(ConnectionTimings.Phase.TCP_CONNECT, sslStart - connectStart);
+          timings.record(ConnectionTimings.Phase.TLS_HANDSHAKE, System.nanoTime() - sslStart);
+        }
+    }
+    catch(Exception ex) {
+      closeStream(newStream);
+      throw ex;
+    }
+
+    return newStream;
+  }
+
+  private RedshiftStream tryConnect(String user, String database,
+      Properties info, SocketFactory socketFactory, HostSpec hostSpec,
+      SslMode sslMode)
+      throws SQLException, IOException {
+    RedshiftStream newStream = null;
+
+    try
+    {
+        if (preConnect != null) {
+          newStream = preConnect.take(hostSpec, sslMode);
+        }
+        if (newStream == null) {
+          newStream = openStream(socketFactory, hostSpec, sslMode, info);
+        }
+
+        long authStart = System.nanoTime();
         List<String[]> paramList = getParametersForStartup(user, database, info, true);
         sendStartupPacket(newStream, paramList);
         newStream.changeStream(false, info);
@@ -130,6 +205,10 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
         }
         // Do authentication (until AuthenticationOk).
         doAuthentication(newStream, hostSpec.getHost(), user, info);
+
+        if (timings != null) {
+          timings.record(ConnectionTimings.Phase.AUTHENTICATION, System.nanoTime() - authStart);
+        }
     }
     catch(Exception ex) {
       closeStream(newStream);
@@ -139,6 +218,77 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
     return newStream;
   }
 
+  /**
+   * Connects and authenticates to a single host, falling back to a non-SSL or SSL connection
+   * when the ssl mode allows it.
+   */
+  private RedshiftStream connectToHost(String user, String database, Properties info,
+      SocketFactory socketFactory, HostSpec hostSpec, SslMode sslMode)
+      throws SQLException, IOException {
+    RedshiftStream newStream = null;
+    try {
+      newStream = tryConnect(user, database, info, socketFactory, hostSpec, sslMode);
+    } catch (SQLException e) {
+      if (sslMode == SslMode.PREFER
+          && RedshiftState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
+        // Try non-SSL connection to cover case like "non-ssl only db"
+        // Note: PREFER allows loss of encryption, so no significant harm is made
+        Throwable ex = null;
+        try {
+          newStream =
+              tryConnect(user, database, info, socketFactory, hostSpec, SslMode.DISABLE);
+        	if(RedshiftLogger.isEnable())
+        		logger.log(LogLevel.DEBUG, "Downgraded to non-encrypted connection for host {0}",
+              hostSpec);
+        } catch (SQLException ee) {
+          ex = ee;
+        } catch (IOException ee) {
+          ex = ee; // Can't use multi-catch in Java 6 :(
+        }
+        if (ex != null) {
+        	if(RedshiftLogger.isEnable())
+        		logger.log(LogLevel.DEBUG, ex, "sslMode==PREFER, however non-SSL connection failed as well");
+          // non-SSL failed as well, so re-throw original exception
+          //JCP! if mvn.project.property.redshift.jdbc.spec >= "JDBC4.1"
+          // Add non-SSL exception as suppressed
+          e.addSuppressed(ex);
+          //JCP! endif
+          throw e;
+        }
+      } else if (sslMode == SslMode.ALLOW
+          && RedshiftState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
+        // Try using SSL
+        Throwable ex = null;
+        try {
+          newStream =
+              tryConnect(user, database, info, socketFactory, hostSpec, SslMode.REQUIRE);
+          if(RedshiftLogger.isEnable())
+          	logger.log(LogLevel.DEBUG, "Upgraded to encrypted connection for host {0}",
+          							hostSpec);
+        } catch (SQLException ee) {
+          ex = ee;
+        } catch (IOException ee) {
+          ex = ee; // Can't use multi-catch in Java 6 :(
+        }
+        if (ex != null) {
+        	if(RedshiftLogger.isEnable())
+        		logger.log(LogLevel.DEBUG, ex, "sslMode==ALLOW, however SSL connection failed as well");
+          // non-SSL failed as well, so re-throw original exception
+          //JCP! if mvn.project.property.redshift.jdbc.spec >= "JDBC4.1"
+          // Add SSL exception as suppressed
+          e.addSuppressed(ex);
+          //JCP! endif
+          throw e;
+        }
+
+      } else {
+        throw e;
+      }
+    }
+
+    return newStream;
+  }
+
   public RedshiftStream constructNewStream(SocketFactory socketFactory, HostSpec hostSpec, int connectTimeout, RedshiftLogger logger, Boolean disableCompressionForSSL, Properties info) throws SQLException, IOException
   {
     RedshiftStream newStream = new RedshiftStream(socketFactory, hostSpec, connectTimeout, logger, disableCompressionForSSL, info);
@@ -208,14 +358,27 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
           RedshiftState.CONNECTION_UNABLE_TO_CONNECT);
     }
 
+    String loadBalanceStrategy = RedshiftProperty.LOAD_BALANCE_STRATEGY.get(info);
+    if (loadBalanceStrategy != null
+        && !isChoice(RedshiftProperty.LOAD_BALANCE_STRATEGY, loadBalanceStrategy)) {
+      throw new RedshiftException(
+          GT.tr("Invalid loadBalanceStrategy value: {0}", loadBalanceStrategy),
+          RedshiftState.CONNECTION_UNABLE_TO_CONNECT);
+    }
+
     SocketFactory socketFactory = SocketFactoryFactory.getSocketFactory(info);
 
+    int parallelConnectHosts = RedshiftProperty.PARALLEL_CONNECT_HOSTS.getInt(info);
+    int parallelConnectDelay = RedshiftProperty.PARALLEL_CONNECT_DELAY.getInt(info);
+
     HostChooser hostChooser =
         HostChooserFactory.createHostChooser(hostSpecs, targetServerType, info);
     Iterator<CandidateHost> hostIter = hostChooser.iterator();
+    // Hosts taken for a race that lost it, tried again if the winner is not usable
+    Deque<CandidateHost> retryHosts = new ArrayDeque<CandidateHost>();
     Map<HostSpec, HostStatus> knownStates = new HashMap<HostSpec, HostStatus>();
-    while (hostIter.hasNext()) {
-      CandidateHost candidateHost = hostIter.next();
+    while (!retryHosts.isEmpty() || hostIter.hasNext()) {
+      CandidateHost candidateHost = nextHost(retryHosts, hostIter);
       HostSpec hostSpec = candidateHost.hostSpec;
     	if(RedshiftLogger.isEnable())
     		logger.log(LogLevel.DEBUG, "Trying to establish a protocol version 3 connection to {0}", hostSpec);
@@ -238,77 +401,50 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
       //
 
       RedshiftStream newStream = null;
+      // Failed race attempts are reported by their own thread
+      boolean raceFailed = false;
       try {
-        try {
-          newStream = tryConnect(user, database, info, socketFactory, hostSpec, sslMode);
-        } catch (SQLException e) {
-          if (sslMode == SslMode.PREFER
-              && RedshiftState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
-            // Try non-SSL connection to cover case like "non-ssl only db"
-            // Note: PREFER allows loss of encryption, so no significant harm is made
-            Throwable ex = null;
-            try {
-              newStream =
-                  tryConnect(user, database, info, socketFactory, hostSpec, SslMode.DISABLE);
-            	if(RedshiftLogger.isEnable())
-            		logger.log(LogLevel.DEBUG, "Downgraded to non-encrypted connection for host {0}",
-                  hostSpec);
-            } catch (SQLException ee) {
-              ex = ee;
-            } catch (IOException ee) {
-              ex = ee; // Can't use multi-catch in Java 6 :(
-            }
-            if (ex != null) {
-            	if(RedshiftLogger.isEnable())
-            		logger.log(LogLevel.DEBUG, ex, "sslMode==PREFER, however non-SSL connection failed as well");
-              // non-SSL failed as well, so re-throw original exception
-              //JCP! if mvn.project.property.redshift.jdbc.spec >= "JDBC4.1"
-              // Add non-SSL exception as suppressed
-              e.addSuppressed(ex);
-              //JCP! endif
-              throw e;
-            }
-          } else if (sslMode == SslMode.ALLOW
-              && RedshiftState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
-            // Try using SSL
-            Throwable ex = null;
-            try {
-              newStream =
-                  tryConnect(user, database, info, socketFactory, hostSpec, SslMode.REQUIRE);
-              if(RedshiftLogger.isEnable())
-              	logger.log(LogLevel.DEBUG, "Upgraded to encrypted connection for host {0}",
-              							hostSpec);
-            } catch (SQLException ee) {
-              ex = ee;
-            } catch (IOException ee) {
-              ex = ee; // Can't use multi-catch in Java 6 :(
-            }
-            if (ex != null) {
-            	if(RedshiftLogger.isEnable())
-            		logger.log(LogLevel.DEBUG, ex, "sslMode==ALLOW, however SSL connection failed as well");
-              // non-SSL failed as well, so re-throw original exception
-              //JCP! if mvn.project.property.redshift.jdbc.spec >= "JDBC4.1"
-              // Add SSL exception as suppressed
-              e.addSuppressed(ex);
-              //JCP! endif
-              throw e;
+        List<CandidateHost> raceHosts = getParallelConnectHosts(candidateHost, retryHosts,
+            hostIter, knownStates, parallelConnectHosts);
+        if (raceHosts.size() > 1) {
+          raceFailed = true;
+          ParallelConnectAttempt winner = raceConnect(raceHosts, user, database, info,
+              socketFactory, sslMode, parallelConnectDelay, knownStates);
+          raceFailed = false;
+          newStream = winner.stream;
+          candidateHost = winner.candidateHost;
+          hostSpec = candidateHost.hostSpec;
+
+          // The other hosts are tried next if the winner is not of the required type or fails
+          // the session setup. The ones that failed in the race are known and skipped.
+          for (int i = raceHosts.size() - 1; i >= 0; i--) {
+            if (raceHosts.get(i) != candidateHost) {
+              retryHosts.addFirst(raceHosts.get(i));
             }
-
-          } else {
-            throw e;
           }
+        } else {
+          long connectStart = System.nanoTime();
+          newStream = connectToHost(user, database, info, socketFactory, hostSpec, sslMode);
+          GlobalHostStatusTracker.reportConnectLatency(hostSpec, System.nanoTime() - connectStart);
         }
 
         int cancelSignalTimeout = RedshiftProperty.CANCEL_SIGNAL_TIMEOUT.getInt(info) * 1000;
+        long setupStart = System.nanoTime();
 
         // Do final startup.
         QueryExecutor queryExecutor = new QueryExecutorImpl(newStream, user, database,
             cancelSignalTimeout, info, logger);
 
-        // Check Primary or Secondary
+        // Session setup and the Primary or Secondary check share one round trip
+        boolean checkPrimary = candidateHost.targetServerType != HostRequirement.any;
+        Tuple readOnly = runInitialQueries(queryExecutor, info, checkPrimary);
+        if (timings != null) {
+          timings.record(ConnectionTimings.Phase.SESSION_SETUP, System.nanoTime() - setupStart);
+        }
+
         HostStatus hostStatus = HostStatus.ConnectOK;
-        if (candidateHost.targetServerType != HostRequirement.any) {
-          hostStatus = isPrimary(queryExecutor) ? HostStatus.Primary : HostStatus.Secondary;
+        if (checkPrimary) {
+          hostStatus = isPrimary(queryExecutor, readOnly) ? HostStatus.Primary : HostStatus.Secondary;
         }
         GlobalHostStatusTracker.reportHostStatus(hostSpec, hostStatus);
         knownStates.put(hostSpec, hostStatus);
@@ -317,17 +453,17 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
           continue;
         }
 
-        runInitialQueries(queryExecutor, info);
-
         // And we're done.
         return queryExecutor;
       } catch (ConnectException cex) {
         // Added by Peter Mount <peter@retep.org.uk>
         // ConnectException is thrown when the connection cannot be made.
         // we trap this an return a more meaningful message for the end user
-        GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+        if (!raceFailed) {
+          GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+        }
         knownStates.put(hostSpec, HostStatus.ConnectFail);
-        if (hostIter.hasNext()) {
+        if (!retryHosts.isEmpty() || hostIter.hasNext()) {
         	if(RedshiftLogger.isEnable())
         		logger.log(LogLevel.DEBUG, cex, "ConnectException occurred while connecting to {0}", hostSpec);
           // still more addresses to try
@@ -338,9 +474,11 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
             hostSpec), RedshiftState.CONNECTION_UNABLE_TO_CONNECT, cex);
       } catch (IOException ioe) {
         closeStream(newStream);
-        GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+        if (!raceFailed) {
+          GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+        }
         knownStates.put(hostSpec, HostStatus.ConnectFail);
-        if (hostIter.hasNext()) {
+        if (!retryHosts.isEmpty() || hostIter.hasNext()) {
         	if(RedshiftLogger.isEnable())
         		logger.log(LogLevel.DEBUG, ioe, "IOException occurred while connecting to {0}", hostSpec);
           // still more addresses to try
@@ -350,9 +488,11 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
             RedshiftState.CONNECTION_UNABLE_TO_CONNECT, ioe);
       } catch (SQLException se) {
         closeStream(newStream);
-        GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+        if (!raceFailed) {
+          GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+        }
         knownStates.put(hostSpec, HostStatus.ConnectFail);
-        if (hostIter.hasNext()) {
+        if (!retryHosts.isEmpty() || hostIter.hasNext()) {
         	if(RedshiftLogger.isEnable())
         		logger.log(LogLevel.DEBUG, se, "SQLException occurred while connecting to {0}", hostSpec);
           // still more addresses to try
@@ -366,6 +506,226 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
         RedshiftState.CONNECTION_UNABLE_TO_CONNECT);
   }
 
+  private static boolean isChoice(RedshiftProperty property, String value) {
+    for (String choice : property.getChoices()) {
+      if (choice.equalsIgnoreCase(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static CandidateHost nextHost(Deque<CandidateHost> retryHosts,
+      Iterator<CandidateHost> hostIter) {
+    return retryHosts.isEmpty() ? hostIter.next() : retryHosts.removeFirst();
+  }
+
+  /**
+   * Returns the hosts for the next connection attempt: the given candidate and, when parallel
+   * connect is enabled, up to parallelConnectHosts - 1 more candidates that are not known to be
+   * unusable.
+   */
+  private List<CandidateHost> getParallelConnectHosts(CandidateHost candidateHost,
+      Deque<CandidateHost> retryHosts, Iterator<CandidateHost> hostIter,
+      Map<HostSpec, HostStatus> knownStates, int parallelConnectHosts) {
+    List<CandidateHost> hosts = new ArrayList<CandidateHost>(Math.max(1, parallelConnectHosts));
+    hosts.add(candidateHost);
+    while (hosts.size() < parallelConnectHosts && (!retryHosts.isEmpty() || hostIter.hasNext())) {
+      CandidateHost next = nextHost(retryHosts, hostIter);
+      HostStatus knownStatus = knownStates.get(next.hostSpec);
+      if (knownStatus != null && !next.targetServerType.allowConnectingTo(knownStatus)) {
+        continue;
+      }
+      boolean duplicate = false;
+      for (CandidateHost host : hosts) {
+        duplicate |= host.hostSpec.equals(next.hostSpec);
+      }
+      if (!duplicate) {
+        hosts.add(next);
+      }
+    }
+    return hosts;
+  }
+
+  /**
+   * Races connections to several hosts. Attempts are started parallelConnectDelay milliseconds
+   * apart, or right away when an attempt fails. The first host to authenticate wins and the
+   * streams of the other attempts are closed when they complete.
+   *
+   * @return the winning attempt
+   * @throws SQLException if all the attempts fail, with the failure of the first host
+   * @throws IOException if all the attempts fail, with the failure of the first host
+   */
+  private ParallelConnectAttempt raceConnect(List<CandidateHost> hosts, String user,
+      String database, Properties info, SocketFactory socketFactory, SslMode sslMode,
+      int parallelConnectDelay, Map<HostSpec, HostStatus> knownStates)
+      throws SQLException, IOException {
+    BlockingQueue<ParallelConnectAttempt> completed =
+        new LinkedBlockingQueue<ParallelConnectAttempt>();
+    List<ParallelConnectAttempt> attempts = new ArrayList<ParallelConnectAttempt>(hosts.size());
+    ParallelConnectAttempt winner = null;
+
+    try {
+      attempts.add(new ParallelConnectAttempt(hosts.get(0), user, database, info, socketFactory,
+          sslMode, completed).start());
+      int done = 0;
+      while (winner == null && done < hosts.size()) {
+        ParallelConnectAttempt attempt;
+        if (attempts.size() < hosts.size()) {
+          attempt = completed.poll(parallelConnectDelay, TimeUnit.MILLISECONDS);
+        } else {
+          attempt = completed.take();
+        }
+
+        if (attempt != null) {
+          done++;
+          if (attempt.failure == null) {
+            winner = attempt;
+            break;
+          }
+          knownStates.put(attempt.candidateHost.hostSpec, HostStatus.ConnectFail);
+          if (RedshiftLogger.isEnable()) {
+            logger.log(LogLevel.DEBUG, attempt.failure,
+                "Parallel connection attempt to {0} failed", attempt.candidateHost.hostSpec);
+          }
+        }
+
+        // Start the next host when the delay is over or when an attempt has failed
+        if (attempts.size() < hosts.size()) {
+          attempts.add(new ParallelConnectAttempt(hosts.get(attempts.size()), user, database,
+              info, socketFactory, sslMode, completed).start());
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new RedshiftException(GT.tr("Interrupted while attempting to connect."),
+          RedshiftState.CONNECTION_UNABLE_TO_CONNECT, ie);
+    } finally {
+      for (ParallelConnectAttempt attempt : attempts) {
+        if (attempt != winner) {
+          attempt.abandon();
+        }
+      }
+    }
+
+    if (winner != null) {
+      if (RedshiftLogger.isEnable()) {
+        logger.log(LogLevel.DEBUG, "Parallel connection attempt to {0} won out of {1} hosts",
+            winner.candidateHost.hostSpec, hosts.size());
+      }
+      return winner;
+    }
+
+    // All the attempts failed, report the first host like a sequential attempt would
+    Throwable failure = attempts.get(0).failure;
+    //JCP! if mvn.project.property.redshift.jdbc.spec >= "JDBC4.1"
+    for (int i = 1; i < attempts.size(); i++) {
+      failure.addSuppressed(attempts.get(i).failure);
+    }
+    //JCP! endif
+    if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new RedshiftException(GT.tr("The connection attempt failed."),
+        RedshiftState.CONNECTION_UNABLE_TO_CONNECT, failure);
+  }
+
+  /**
+   * A connection attempt to one host made on its own thread, see
+   * {@link #raceConnect(List, String, String, Properties, SocketFactory, SslMode, int, Map)}.
+   */
+  private class ParallelConnectAttempt implements Runnable {
+    private final CandidateHost candidateHost;
+    private final String user;
+    private final String database;
+    private final Properties info;
+    private final SocketFactory socketFactory;
+    private final SslMode sslMode;
+    private final BlockingQueue<ParallelConnectAttempt> completed;
+
+    private RedshiftStream stream;
+    private Throwable failure;
+    private boolean abandoned;
+
+    ParallelConnectAttempt(CandidateHost candidateHost, String user, String database,
+        Properties info, SocketFactory socketFactory, SslMode sslMode,
+        BlockingQueue<ParallelConnectAttempt> completed) {
+      this.candidateHost = candidateHost;
+      this.user = user;
+      this.database = database;
+      this.info = info;
+      this.socketFactory = socketFactory;
+      this.sslMode = sslMode;
+      this.completed = completed;
+    }
+
+    ParallelConnectAttempt start() {
+      Thread thread = new Thread(this, "Redshift JDBC driver parallel connect thread");
+      thread.setDaemon(true); // Don't prevent the VM from shutting down
+      thread.start();
+      return this;
+    }
+
+    @Override
+    public void run() {
+      HostSpec hostSpec = candidateHost.hostSpec;
+      RedshiftStream newStream = null;
+      Throwable error = null;
+      try {
+        long connectStart = System.nanoTime();
+        newStream = connectToHost(user, database, info, socketFactory, hostSpec, sslMode);
+        GlobalHostStatusTracker.reportConnectLatency(hostSpec, System.nanoTime() - connectStart);
+      } catch (Throwable t) {
+        // Errors as well, raceConnect waits until each attempt it started completes
+        error = t;
+      }
+
+      // Each attempt is reported once: a failure here, the winner by openConnectionImpl once
+      // its status is known, and a successful loser when it is abandoned
+      if (error != null) {
+        GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+      }
+
+      synchronized (this) {
+        failure = error;
+        if (abandoned) {
+          if (newStream != null) {
+            reportLoser();
+          }
+          closeStream(newStream);
+          return;
+        }
+        stream = newStream;
+      }
+      completed.add(this);
+    }
+
+    /**
+     * Closes the stream of an attempt that lost the race, now or once it completes.
+     */
+    synchronized void abandon() {
+      abandoned = true;
+      if (stream != null) {
+        reportLoser();
+      }
+      closeStream(stream);
+      stream = null;
+    }
+
+    private void reportLoser() {
+      // Without a required server type, the status is known without the setup queries
+      if (candidateHost.targetServerType == HostRequirement.any) {
+        GlobalHostStatusTracker.reportHostStatus(candidateHost.hostSpec, HostStatus.ConnectOK);
+      }
+    }
+  }
+
   private List<String[]> getParametersForStartup(String user, String database, Properties info, boolean driverOsVersionParams) {
     List<String[]> paramList = new ArrayList<String[]>();
     boolean redshiftNativeAuth = false;
@@ -1003,27 +1363,36 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
 
   }
 
-  private void runInitialQueries(QueryExecutor queryExecutor, Properties info)
-      throws SQLException {
-    String assumeMinServerVersion = RedshiftProperty.ASSUME_MIN_SERVER_VERSION.get(info);
-    if (Utils.parseServerVersionStr(assumeMinServerVersion) >= ServerVersion.v9_0.getVersionNum()) {
-      // We already sent the parameter values in the StartupMessage so skip this
-      return;
-    }
+  /**
+   * Applies the session settings that could not be sent in the StartupMessage. All of them, and
+   * the read only check when needed, are sent together so they cost a single round trip.
+   *
+   * @return the transaction_read_only row when checkPrimary is set, null otherwise
+   */
+  private Tuple runInitialQueries(QueryExecutor queryExecutor, Properties info,
+      boolean checkPrimary) throws SQLException {
+    List<String> queries = new ArrayList<String>();
 
-    final int dbVersion = queryExecutor.getServerVersionNum();
+    // With a 9.0+ version assumed, these were already sent in the StartupMessage
+    String assumeMinServerVersion = RedshiftProperty.ASSUME_MIN_SERVER_VERSION.get(info);
+    if (Utils.parseServerVersionStr(assumeMinServerVersion) < ServerVersion.v9_0.getVersionNum()) {
+      final int dbVersion = queryExecutor.getServerVersionNum();
 
-    if (dbVersion >= ServerVersion.v9_0.getVersionNum()) {
-      SetupQueryRunner.run(queryExecutor, "SET extra_float_digits = 3", false);
-    }
+      if (dbVersion >= ServerVersion.v9_0.getVersionNum()) {
+        queries.add("SET extra_float_digits = 3");
+      }
 
-    String appName = RedshiftProperty.APPLICATION_NAME.get(info);
-    if (appName != null && appName.length() != 0) { //  && dbVersion >= ServerVersion.v9_0.getVersionNum()
-      StringBuilder sql = new StringBuilder();
-      sql.append("SET application_name = '");
-      Utils.escapeLiteral(sql, appName, queryExecutor.getStandardConformingStrings());
-      sql.append("'");
-      SetupQueryRunner.run(queryExecutor, sql.toString(), false);
+      // application_name goes in the StartupMessage, only set it again if the server did not
+      // report it back as applied.
+      String appName = RedshiftProperty.APPLICATION_NAME.get(info);
+      if (appName != null && appName.length() != 0
+          && !appName.equals(queryExecutor.getApplicationName())) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SET application_name = '");
+        Utils.escapeLiteral(sql, appName, queryExecutor.getStandardConformingStrings());
+        sql.append("'");
+        queries.add(sql.toString());
+      }
     }
 
     String queryGroup = RedshiftProperty.QUERY_GROUP.get(info);
@@ -1032,12 +1401,21 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
       sql.append("SET query_group TO '");
       Utils.escapeLiteral(sql, queryGroup, queryExecutor.getStandardConformingStrings());
       sql.append("'");
-      SetupQueryRunner.run(queryExecutor, sql.toString(), false);
+      queries.add(sql.toString());
     }
+
+    if (checkPrimary) {
+      queries.add("show transaction_read_only");
+    }
+
+    if (queries.isEmpty()) {
+      return null;
+    }
+
+    return SetupQueryRunner.runPipelined(queryExecutor, queries, checkPrimary);
   }
 
-  private boolean isPrimary(QueryExecutor queryExecutor) throws SQLException, IOException {
-    Tuple results = SetupQueryRunner.run(queryExecutor, "show transaction_read_only", true);
+  private boolean isPrimary(QueryExecutor queryExecutor, Tuple results) throws SQLException, IOException {
     String value = queryExecutor.getEncoding().decode(results.get(0));
     return value.equalsIgnoreCase("off");
   }
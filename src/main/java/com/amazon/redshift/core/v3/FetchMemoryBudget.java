@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.core.v3;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Memory shared by the ring buffers of the open result sets of the connections with
+ * {@code adaptiveFetch}, and the fetch sizes derived from it.
+ *
+ * <p>Without it, each result set may buffer up to {@code fetchRingBufferSize}, whatever the number
+ * of result sets open at once. With it, each ring buffer is capped to an equal share of the budget,
+ * and the number of rows fetched from a suspended portal follows the measured size of the rows and
+ * the rate the application reads them: narrow rows are fetched in larger batches, and wide rows in
+ * batches that fit the share.</p>
+ */
+public final class FetchMemoryBudget {
+
+  private static final ConcurrentMap<Long, FetchMemoryBudget> budgets =
+      new ConcurrentHashMap<Long, FetchMemoryBudget>();
+
+  // A ring buffer always holds at least one row, whatever its share
+  private static final long MIN_SHARE = 1024 * 1024;
+
+  private static final int MIN_FETCH_SIZE = 16;
+
+  private static final int MAX_FETCH_SIZE = 1000000;
+
+  // Rows fetched at once, in seconds of reading by the application
+  private static final double TARGET_DRAIN_SECONDS = 2.0;
+
+  private final long budget;
+
+  private final AtomicInteger openBuffers = new AtomicInteger();
+
+  private FetchMemoryBudget(long budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Returns the budget of the given size, shared by the connections with the same setting.
+   *
+   * @param budget size of the budget, in bytes
+   * @return the budget
+   */
+  public static FetchMemoryBudget getInstance(long budget) {
+    FetchMemoryBudget memoryBudget = budgets.get(budget);
+    if (memoryBudget == null) {
+      FetchMemoryBudget newBudget = new FetchMemoryBudget(budget);
+      memoryBudget = budgets.putIfAbsent(budget, newBudget);
+      if (memoryBudget == null) {
+        memoryBudget = newBudget;
+      }
+    }
+    return memoryBudget;
+  }
+
+  /**
+   * Counts a ring buffer sharing the budget.
+   */
+  void register() {
+    openBuffers.incrementAndGet();
+  }
+
+  /**
+   * Stops counting a ring buffer, once its rows were read or it was closed.
+   */
+  void unregister() {
+    openBuffers.decrementAndGet();
+  }
+
+  /**
+   * @param maxBytes the {@code fetchRingBufferSize} of the connection, 0 for no limit
+   * @return the size a ring buffer may use, in bytes
+   */
+  public long getShare(long maxBytes) {
+    long share = Math.max(MIN_SHARE, budget / Math.max(1, openBuffers.get()));
+    return (maxBytes > 0) ? Math.min(share, maxBytes) : share;
+  }
+
+  /**
+   * Computes the number of rows to fetch next from a suspended portal.
+   *
+   * @param fetchSize the fetch size of the statement, used until rows were measured
+   * @param averageRowSize the estimated memory size of the rows read so far, 0 if none
+   * @param drainRate rows read by the application per second, 0 if unknown
+   * @param maxBytes the {@code fetchRingBufferSize} of the connection, 0 for no limit
+   * @return the number of rows to fetch
+   */
+  public int getFetchSize(int fetchSize, long averageRowSize, double drainRate, long maxBytes) {
+    if (averageRowSize <= 0) {
+      return fetchSize;
+    }
+    long rows = getShare(maxBytes) / averageRowSize;
+    if (drainRate > 0) {
+      // Don't buffer rows the application will not read for a while
+      rows = Math.min(rows, (long) (drainRate * TARGET_DRAIN_SECONDS));
+    }
+    return (int) Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, rows));
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.core.v3;
+
+import com.amazon.redshift.core.RedshiftStream;
+import com.amazon.redshift.core.SocketFactoryFactory;
+import com.amazon.redshift.jdbc.SslMode;
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.util.GT;
+import com.amazon.redshift.util.HostSpec;
+import com.amazon.redshift.util.RedshiftException;
+import com.amazon.redshift.util.RedshiftState;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * TCP connection and TLS handshake to a host, started on a background thread while the
+ * credentials needed to authenticate are fetched.
+ *
+ * <p>The connection factory takes the stream when it connects to the same host with the same SSL
+ * mode, and sends the startup message on it. A stream nobody takes within {@link #MAX_IDLE_MILLIS}
+ * is closed, as the server may drop a connection that does not authenticate, and the connection
+ * factory then opens a new one. The stream should be closed with {@link #close()} as soon as it is
+ * known not to be used, for instance when getting the credentials fails.</p>
+ */
+public final class PreConnect implements Runnable {
+
+  private static final long MAX_IDLE_MILLIS = 30000;
+
+  private final ConnectionFactoryImpl factory;
+  private final HostSpec hostSpec;
+  private final SslMode sslMode;
+  private final Properties info;
+  private final RedshiftLogger logger;
+
+  // Guarded by this
+  private RedshiftStream stream;
+  private Exception failure;
+  private long completedAt;
+  private boolean done;
+  private boolean taken;
+  private boolean closed;
+
+  PreConnect(ConnectionFactoryImpl factory, HostSpec hostSpec, SslMode sslMode, Properties info,
+      RedshiftLogger logger) {
+    this.factory = factory;
+    this.hostSpec = hostSpec;
+    this.sslMode = sslMode;
+    this.info = info;
+    this.logger = logger;
+  }
+
+  PreConnect start() {
+    Thread thread = new Thread(this, "Redshift JDBC driver pre-connect thread");
+    thread.setDaemon(true); // Don't prevent the VM from shutting down
+    thread.start();
+    return this;
+  }
+
+  @Override
+  public void run() {
+    RedshiftStream newStream = null;
+    Exception error = null;
+    try {
+      newStream = factory.openStream(SocketFactoryFactory.getSocketFactory(info), hostSpec,
+          sslMode, info);
+    } catch (Exception e) {
+      error = e;
+    }
+
+    synchronized (this) {
+      stream = newStream;
+      failure = error;
+      completedAt = System.currentTimeMillis();
+      done = true;
+      if (failure != null && RedshiftLogger.isEnable()) {
+        logger.log(LogLevel.DEBUG, failure, "Pre-connect to {0} failed", hostSpec);
+      }
+      notifyAll();
+
+      try {
+        long remaining = MAX_IDLE_MILLIS;
+        while (!taken && !closed && remaining > 0) {
+          wait(remaining);
+          remaining = completedAt + MAX_IDLE_MILLIS - System.currentTimeMillis();
+        }
+      } catch (InterruptedException e) {
+        // Close the stream now
+      }
+
+      if (!taken) {
+        if (!closed && stream != null && RedshiftLogger.isEnable()) {
+          logger.log(LogLevel.DEBUG, "Pre-connected stream to {0} not used within {1} ms, closed",
+              hostSpec, MAX_IDLE_MILLIS);
+        }
+        closed = true;
+        closeStream();
+      }
+    }
+  }
+
+  /**
+   * Returns the stream opened to the host, waiting for the TLS handshake to complete.
+   *
+   * @param hostSpec the host the connection factory connects to
+   * @param sslMode the SSL mode of the attempt
+   * @return the stream, or null if it was opened to another host or SSL mode, was already taken
+   *         or was closed
+   * @throws IOException if the pre-connect failed
+   * @throws SQLException if the pre-connect failed
+   */
+  synchronized RedshiftStream take(HostSpec hostSpec, SslMode sslMode)
+      throws IOException, SQLException {
+    if (taken || closed || sslMode != this.sslMode || !this.hostSpec.equals(hostSpec)) {
+      return null;
+    }
+    taken = true;
+    notifyAll();
+
+    try {
+      while (!done) {
+        wait();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      // The pre-connect thread closes the stream once done
+      taken = false;
+      closed = true;
+      throw new RedshiftException(GT.tr("Interrupted while attempting to connect."),
+          RedshiftState.CONNECTION_UNABLE_TO_CONNECT, e);
+    }
+
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+
+    if (RedshiftLogger.isEnable()) {
+      logger.log(LogLevel.DEBUG, "Using pre-connected stream to {0}, waited {1} ms for credentials",
+          hostSpec, System.currentTimeMillis() - completedAt);
+    }
+    RedshiftStream newStream = stream;
+    stream = null;
+    return newStream;
+  }
+
+  /**
+   * Closes the stream if it was not used, now or once the TLS handshake completes.
+   */
+  public synchronized void close() {
+    if (!taken) {
+      closed = true;
+      notifyAll();
+    }
+  }
+
+  private void closeStream() {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        // Ignore
+      }
+      stream = null;
+    }
+  }
+}
@@ -35,6 +35,13 @@ import com.amazon.redshift.jdbc.FieldMetadata;
 import com.amazon.redshift.jdbc.TimestampUtils;
 import com.amazon.redshift.logger.LogLevel;
 import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.metrics.Metric;
+import com.amazon.redshift.tracing.GuardedQueryTrace;
+import com.amazon.redshift.tracing.QueryPhase;
+import com.amazon.redshift.tracing.QueryTrace;
+import com.amazon.redshift.tracing.QueryTracer;
+import com.amazon.redshift.tracing.QueryTracerFactory;
+import com.amazon.redshift.tracing.SlowQueryDetector;
 
 import com.amazon.redshift.util.QuerySanitizer;
 import com.amazon.redshift.util.ByteStreamWriter;
@@ -77,6 +84,8 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   private static final Pattern ROLLBACK_PATTERN = Pattern.compile("\\brollback\\b", Pattern.CASE_INSENSITIVE);
   private static final Pattern COMMIT_PATTERN = Pattern.compile("\\bcommit\\b", Pattern.CASE_INSENSITIVE);
   private static final Pattern PREPARE_PATTERN = Pattern.compile("\\bprepare ++transaction\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern CREATE_PATTERN = Pattern.compile("\\s*create\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern INTO_PATTERN = Pattern.compile("\\binto\\b", Pattern.CASE_INSENSITIVE);
 
   private static boolean looksLikeCommit(String sql) {
     if ("COMMIT".equalsIgnoreCase(sql)) {
@@ -140,6 +149,12 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   private boolean enableFetchRingBuffer;
   
   private long fetchRingBufferSize;
+
+  // Null unless adaptiveFetch is set
+  private final FetchMemoryBudget fetchMemoryBudget;
+
+  // Only the metadata cache reads the schema change count
+  private final boolean trackSchemaChanges;
   
   // Last running ring buffer thread.
   private RingBufferThread m_ringBufferThread = null;
@@ -149,6 +164,23 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   // Query or some execution on a socket in process
   private final Lock m_executingLock = new ReentrantLock();
 
+  // System.nanoTime() of the last ReadyForQuery, 0 if none was received yet
+  private volatile long lastReadyForQueryNanos;
+
+  // Null unless queryTracer is set
+  private final QueryTracer tracer;
+
+  // Null unless a slow query threshold is set
+  private final SlowQueryDetector slowQueryDetector;
+
+  // Trace of the statement receiving results, used by the executing thread then by the ring
+  // buffer thread it is handed to with the rows
+  private QueryTrace currentTrace;
+  private boolean currentTraceStreaming;
+  private boolean currentTraceHandedOff;
+  private long currentTraceRows;
+  private long currentTraceStartBytes;
+
   private static final long INVALID_TUPLE_SIZE = -1L;
 
   /**
@@ -167,8 +199,16 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     this.fetchRingBufferSize = (fetchRingBufferSizeStr != null ) 
     															? RedshiftPropertyMaxResultBufferParser.parseProperty(fetchRingBufferSizeStr, RedshiftProperty.FETCH_RING_BUFFER_SIZE.getName())
     															: 0;
+    this.fetchMemoryBudget = RedshiftProperty.ADAPTIVE_FETCH.getBoolean(info)
+        ? FetchMemoryBudget.getInstance(RedshiftPropertyMaxResultBufferParser.parseProperty(
+            RedshiftProperty.ADAPTIVE_FETCH_MEMORY.get(info),
+            RedshiftProperty.ADAPTIVE_FETCH_MEMORY.getName()))
+        : null;
 
     this.enableStatementCache = RedshiftProperty.ENABLE_STATEMENT_CACHE.getBoolean(info);
+    this.trackSchemaChanges = RedshiftProperty.DATABASE_METADATA_CACHE_TTL.getInt(info) > 0;
+    this.tracer = QueryTracerFactory.getQueryTracer(info);
+    this.slowQueryDetector = SlowQueryDetector.getInstance(info, logger);
     this.serverProtocolVersion = 0;
     readStartupMessages();
   }
@@ -316,14 +356,50 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
   public void execute(Query query, ParameterList parameters, ResultHandler handler,
       int maxRows, int fetchSize, int flags) throws SQLException {
+    QueryTrace trace = startTrace(query);
+    if (trace == null) {
+      executeTraced(query, parameters, handler, maxRows, fetchSize, flags, null);
+      return;
+    }
+
+    trace.phase(QueryPhase.WAIT_CONNECTION);
+    boolean handedOff = false;
+    Throwable error = null;
+    try {
+      handedOff = executeTraced(query, parameters, handler, maxRows, fetchSize, flags, trace);
+      error = (handler != null) ? handler.getException() : null;
+    } catch (SQLException e) {
+      error = e;
+      throw e;
+    } finally {
+      // Once it received the rows, the ring buffer thread ends the trace
+      if (!handedOff) {
+        trace.end(error);
+      }
+    }
+  }
+
+  /**
+   * Executes a query, with the trace of {@link #execute(Query, ParameterList, ResultHandler, int,
+   * int, int)}.
+   *
+   * @param trace the trace of the query, or null
+   * @return true if the ring buffer thread ends the trace
+   */
+  private boolean executeTraced(Query query, ParameterList parameters, ResultHandler handler,
+      int maxRows, int fetchSize, int flags, QueryTrace trace) throws SQLException {
     // Wait for current ring buffer thread to finish, if any.
   	// Shouldn't call from synchronized method, which can cause dead-lock.
     waitForRingBufferThreadToFinish(false, false, false, null, null);
     
+    boolean traceHandedOff = false;
     synchronized(this) {
 	  	waitOnLock();
 	  	try {
 	  		m_executingLock.lock();	  		
+	  		if (trace != null) {
+	  			startCurrentTrace(trace);
+	  		}
 		    if (RedshiftLogger.isEnable()) {
 		      logger.log(LogLevel.DEBUG, "  simple execute, handler={0}, maxRows={1}, fetchSize={2}, flags={3}",
 		          new Object[]{handler, maxRows, fetchSize, flags});
@@ -349,6 +425,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 		    }
 		
 		    boolean autosave = false;
+		    long executeStart = (metrics != null) ? System.nanoTime() : 0;
 		    try {
 		      try {
 		        handler = sendQueryPreamble(handler, flags);
@@ -362,8 +439,15 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 		        	sendFlush();
 		          sendSync(true);
 		        }
+		        if (trace != null) {
+		          trace.phase(QueryPhase.WAIT_FIRST_ROW);
+		        }
 		        processResults(handler, flags, fetchSize, (query.getSubqueries() != null), maxRows);
 		        estimatedReceiveBufferBytes = 0;
+		        if (metrics != null) {
+		          // Until the first rows when they are read by the ring buffer thread
+		          metrics.record(Metric.EXECUTE, System.nanoTime() - executeStart);
+		        }
 		      } catch (RedshiftBindException se) {
 		        // There are three causes of this error, an
 		        // invalid total Bind message length, a
@@ -408,9 +492,125 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 		    }
 	  	} 
 	  	finally {
+	  		if (trace != null) {
+	  			traceHandedOff = detachCurrentTrace(trace);
+	  		}
 	  		m_executingLock.unlock();
 	  	}
     } // synchronized
+    return traceHandedOff;
+  }
+
+  private QueryTrace startTrace(Query query) {
+    if (tracer == null && slowQueryDetector == null) {
+      return null;
+    }
+    String sql = query.getNativeSql();
+    try {
+      QueryTrace trace = (tracer != null) ? tracer.start(sql) : null;
+      if (slowQueryDetector != null) {
+        trace = slowQueryDetector.start(sql, trace);
+      }
+      // A failing tracer or listener doesn't fail the statement
+      return GuardedQueryTrace.wrap(trace, logger);
+    } catch (RuntimeException e) {
+      if (RedshiftLogger.isEnable()) {
+        logger.log(LogLevel.DEBUG, e, "Query tracer failed");
+      }
+      return null;
+    }
+  }
+
+  private void startCurrentTrace(QueryTrace trace) {
+    currentTrace = trace;
+    currentTraceStreaming = false;
+    currentTraceHandedOff = false;
+    currentTraceRows = 0;
+    currentTraceStartBytes = pgStream.getTotalResultByteCount();
+    trace.phase(QueryPhase.SEND);
+  }
+
+  /**
+   * Stops tracing the rows of the executing thread, unless the ring buffer thread receives them.
+   *
+   * @param trace the trace of the executing thread
+   * @return true if the ring buffer thread ends the trace
+   */
+  private boolean detachCurrentTrace(QueryTrace trace) {
+    if (trace != currentTrace) {
+      // Failed before it was sent
+      return false;
+    }
+    if (currentTraceHandedOff) {
+      return true;
+    }
+    takeCurrentTrace();
+    return false;
+  }
+
+  /**
+   * Stops tracing the rows of the current statement.
+   *
+   * @return the trace, to be ended by the caller
+   */
+  private QueryTrace takeCurrentTrace() {
+    QueryTrace trace = currentTrace;
+    currentTrace = null;
+    trace.rowsReceived(currentTraceRows,
+        pgStream.getTotalResultByteCount() - currentTraceStartBytes);
+    return trace;
+  }
+
+  @Override
+  public boolean isRecentlyResponsive(int windowMillis) {
+    long last = lastReadyForQueryNanos;
+    if (windowMillis <= 0 || last == 0
+        || System.nanoTime() - last > TimeUnit.MILLISECONDS.toNanos(windowMillis)) {
+      return false;
+    }
+
+    synchronized (this) {
+      // Don't read the socket while a query or a ring buffer thread does
+      if (lockedFor != null || m_ringBufferThread != null || !m_executingLock.tryLock()) {
+        return false;
+      }
+      try {
+        // A notice, a notification or an error sent before the server closed the connection, or
+        // the end of the stream once it did
+        return pgStream.isIdle();
+      } catch (IOException e) {
+        return false;
+      } finally {
+        m_executingLock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public void sendSyncPing() throws SQLException {
+    // Wait for current ring buffer thread to finish, if any.
+  	// Shouldn't call from synchronized method, which can cause dead-lock.
+    waitForRingBufferThreadToFinish(false, false, false, null, null);
+
+    synchronized (this) {
+      waitOnLock();
+      try {
+        m_executingLock.lock();
+        ResultHandler handler = new ResultHandlerBase(properties);
+        try {
+          sendSync(true);
+          processResults(handler, 0, 0, false, 0);
+        } catch (IOException e) {
+          abort();
+          handler.handleError(
+              new RedshiftException(GT.tr("An I/O error occurred while sending to the backend."),
+                  RedshiftState.CONNECTION_FAILURE, e));
+        }
+        handler.handleCompletion();
+      } finally {
+        m_executingLock.unlock();
+      }
+    } // synchronized
   }
 
   private boolean sendAutomaticSavepoint(Query query, int flags) throws IOException {
@@ -1986,6 +2186,10 @@ public class QueryExecutorImpl extends QueryExecutorBase {
                     Portal currentPortal = executeData.portal;
 
                     String nativeSql = currentQuery.getNativeQuery().nativeSql;
+                    if (trackSchemaChanges && isSchemaChange(status, nativeSql)) {
+                        schemaChanged();
+                    }
+
                     // Certain backend versions (e.g. 12.2, 11.7, 10.12, 9.6.17, 9.5.21, etc)
                     // silently rollback the transaction in the response to COMMIT statement
                     // in case the transaction has failed.
@@ -2127,12 +2331,27 @@ public class QueryExecutorImpl extends QueryExecutorBase {
                                 rowCount[0] += 1;
                         }
 
+                        if (metrics != null && !skipRow) {
+                            metrics.increment(Metric.ROWS_FETCHED);
+                        }
+
+                        if (currentTrace != null) {
+                            if (!skipRow) {
+                                currentTraceRows++;
+                            }
+                            if (!currentTraceStreaming) {
+                                currentTraceStreaming = true;
+                                currentTrace.phase(QueryPhase.STREAM);
+                            }
+                        }
+
                         if (useRingBuffer) {
                             boolean firstRow = false;
                             if (msgLoopState.queueTuples == null) {
                                 // i.e. First row
                                 firstRow = true;
-                                msgLoopState.queueTuples = new RedshiftRowsBlockingQueue<Tuple>(fetchSize, fetchRingBufferSize, logger);
+                                msgLoopState.queueTuples = new RedshiftRowsBlockingQueue<Tuple>(fetchSize, fetchRingBufferSize, logger, fetchMemoryBudget);
+                                msgLoopState.queueTuples.setTrace(currentTrace);
                             }
 
                             // Add row in the queue
@@ -2156,6 +2375,12 @@ public class QueryExecutorImpl extends QueryExecutorBase {
                                 // Create a new ring buffer thread to process rows
                                 m_ringBufferThread = new RingBufferThread(handler, flags, fetchSize, msgLoopState, subQueries, rowCount, maxRows);
 
+                                // The ring buffer thread ends the trace once it received the rows
+                                if (currentTrace != null) {
+                                    m_ringBufferThread.endsTrace = true;
+                                    currentTraceHandedOff = true;
+                                }
+
                                 handler.handleResultRows(currentQuery, fields, null, null, msgLoopState.queueTuples, rowCount, m_ringBufferThread);
 
                                 if (RedshiftLogger.isEnable()) {
@@ -2602,6 +2827,26 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     return status;
   }
 
+  /**
+   * @param status the command status
+   * @param sql the SQL of the command
+   * @return true if the command may have changed the tables, columns or constraints seen by the
+   *         metadata API
+   */
+  private static boolean isSchemaChange(String status, String sql) {
+    if (status.startsWith("SELECT")) {
+      // CREATE TABLE AS and SELECT INTO complete like a SELECT. Scan only the first 1024
+      // characters to avoid big overhead for long queries.
+      int end = Math.min(sql.length(), 1024);
+      return CREATE_PATTERN.matcher(sql).region(0, end).lookingAt()
+          || INTO_PATTERN.matcher(sql).region(0, end).find();
+    }
+    return status.startsWith("CREATE") || status.startsWith("ALTER")
+        || status.startsWith("DROP") || status.startsWith("COMMENT")
+        || status.startsWith("GRANT") || status.startsWith("REVOKE")
+        || status.startsWith("ROLLBACK");
+  }
+
   private void interpretCommandStatus(String status, ResultHandler handler) {
     try {
       commandCompleteParser.parse(status);
@@ -2624,6 +2869,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     if (RedshiftLogger.isEnable()) {
       logger.log(LogLevel.DEBUG, " <=BE ReadyForQuery({0})", tStatus);
     }
+    lastReadyForQueryNanos = System.nanoTime();
 
     // Update connection state.
     switch (tStatus) {
@@ -2895,13 +3141,15 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 							if (queueRows != null)
 								queueRows.setSkipRows();
 							
-							// Wait for thread associated with result to terminate.
-							if (ringBufferThread != null) {
-								ringBufferThread.join();
+							try {
+								// Wait for thread associated with result to terminate.
+								if (ringBufferThread != null) {
+									ringBufferThread.join();
+								}
+							} finally {
+								if (queueRows != null)
+									queueRows.close();
 							}
-							
-							if (queueRows != null)
-								queueRows.close();
 						}
                         else if(calledFromStatementClose)
                         {
@@ -3006,6 +3254,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   	boolean subQueries;
   	int[] rowCount;
   	int maxRows;
+  	boolean endsTrace;
   	
   	/**
   	 * Constructor
@@ -3072,7 +3321,12 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 				// Add end-of-result marker
 				if (this.msgLoopState.queueTuples != null) {
 					try {
-						this.msgLoopState.queueTuples.setHandlerException(handler.getException());
+						SQLException error = handler.getException();
+						if (error != null) {
+							// The rows may never be read to the end
+							this.msgLoopState.queueTuples.releaseMemoryBudget();
+						}
+						this.msgLoopState.queueTuples.setHandlerException(error);
 						this.msgLoopState.queueTuples.checkAndAddEndOfRowsIndicator();
 					} catch (Exception e) {
 						// Ignore
@@ -3081,12 +3335,24 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   			
 				handler.setStatementStateIdleFromInQuery();
 				
+				QueryTrace trace = null;
+				SQLException traceError = null;
+				if (endsTrace) {
+					endsTrace = false;
+					traceError = handler.getException();
+					trace = takeCurrentTrace();
+				}
+				
 				// Reset vars
   			this.msgLoopState.queueTuples = null;
   			this.msgLoopState = null;
   			this.handler = null;
   			m_ringBufferStopThread = false;
   			m_ringBufferThread = null;  			
+  			
+  			if (trace != null) {
+  				trace.end(traceError);
+  			}
   		}
   	}
   } // RingBufferThread
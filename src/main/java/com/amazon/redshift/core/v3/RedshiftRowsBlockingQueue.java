@@ -4,6 +4,7 @@ import java.sql.SQLException;
 // import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -12,6 +13,9 @@ import com.amazon.redshift.core.Tuple;
 import com.amazon.redshift.jdbc.RedshiftConnectionImpl;
 import com.amazon.redshift.logger.LogLevel;
 import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.metrics.Metric;
+import com.amazon.redshift.metrics.MetricsRegistry;
+import com.amazon.redshift.tracing.QueryTrace;
 
 public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
 	private static final long serialVersionUID = -7903933977591709194L;
@@ -37,19 +41,60 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
   private RedshiftLogger logger;  
   
   private Portal currentSuspendedPortal;
+
+  // Null unless the statement is traced
+  private volatile QueryTrace trace;
+
+  // Null unless adaptiveFetch is set. The capacity is then a share of the budget.
+  private final FetchMemoryBudget memoryBudget;
+  private final AtomicBoolean memoryBudgetReleased = new AtomicBoolean();
+
+  // Rows put and their estimated size, counted with a memory budget only.
+  // Written by the ring buffer thread, read by the thread fetching the next rows.
+  private volatile long rowsPut;
+  private volatile long bytesPut;
+  // Written by the thread reading the rows
+  private volatile long firstTakeNanos;
 	
   public RedshiftRowsBlockingQueue(int capacity) {
 		super(capacity);
+		this.memoryBudget = null;
   	init(capacity, 0, null);
 	}
   
   public RedshiftRowsBlockingQueue(int fetchSize, long fetchRingBufferSize, RedshiftLogger logger) {
+  	this(fetchSize, fetchRingBufferSize, logger, null);
+  }
+
+  /**
+   * @param fetchSize the fetch size of the statement
+   * @param fetchRingBufferSize maximum size of the rows in the queue, in bytes, 0 for no limit
+   * @param logger the connection logger
+   * @param memoryBudget the budget the size of the rows is capped by, or null
+   */
+  public RedshiftRowsBlockingQueue(int fetchSize, long fetchRingBufferSize, RedshiftLogger logger,
+  		FetchMemoryBudget memoryBudget) {
   	super(
   			(fetchSize != 0 
-  				 && fetchRingBufferSize == 0) 
+  				 && fetchRingBufferSize == 0
+  				 && memoryBudget == null) 
   			? fetchSize
   			: Integer.MAX_VALUE);
+  	this.memoryBudget = memoryBudget;
   	init(fetchSize, fetchRingBufferSize, logger);
+  	if (memoryBudget != null) {
+  		limitByBufSize = true;
+  		memoryBudget.register();
+  	}
+  }
+
+  /**
+   * @return maximum size of the rows in the queue, in bytes
+   */
+  private long getCapacity() {
+  	return (memoryBudget != null)
+  			? memoryBudget.getShare(fetchRingBufferSizeCapacity)
+  			: fetchRingBufferSizeCapacity;
   }
   
   private void init(int fetchSize, long fetchRingBufferSize, RedshiftLogger logger) {
@@ -78,8 +123,14 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
   	    															limitByBufSize, totalFetchRingBufferSize.get(), fetchRingBufferSizeCapacity, fetchSize);
   	    } */
 
+				Tuple putRow = (Tuple)e;
+				if (memoryBudget != null && putRow.fieldCount() != 0) {
+					rowsPut++;
+					bytesPut += RedshiftMemoryUtils.calculateNodeSize(putRow);
+				}
+
 				// Is buffer at full capacity?
-				if(totalFetchRingBufferSize.get() >= fetchRingBufferSizeCapacity) {
+				if(totalFetchRingBufferSize.get() >= getCapacity()) {
 
 					final ReentrantLock putLock = this.putLock;
 
@@ -93,14 +144,24 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
 							logger.log(LogLevel.DEBUG, "put(): Buffer full. Waiting for application to read rows and make space");
 						}
 
+						MetricsRegistry metrics = MetricsRegistry.getGlobal();
+						if (metrics != null) {
+							metrics.increment(Metric.RING_BUFFER_STALLS);
+						}
+
 						// Wait buffer at capacity
-						while (totalFetchRingBufferSize.get() >= fetchRingBufferSizeCapacity) {
+						long waitStart = System.nanoTime();
+						while (totalFetchRingBufferSize.get() >= getCapacity()) {
 							if(skipRows) {
 								return;
 							}
 							notFull.await(1, TimeUnit.SECONDS);
 						}
 
+						QueryTrace trace = this.trace;
+						if (trace != null)
+							trace.bufferFull(System.nanoTime() - waitStart);
+
 						if (RedshiftLogger.isEnable() && logger != null)
 							logger.log(LogLevel.DEBUG, "put(): Buffer state change from full to having some space. Now adding a new row.");
 
@@ -108,7 +169,7 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
 
 						currentBufSize = totalFetchRingBufferSize.addAndGet(RedshiftMemoryUtils.calculateNodeSize(row));
 
-						if (currentBufSize < fetchRingBufferSizeCapacity)
+						if (currentBufSize < getCapacity())
 							notFull.signal();
 					} finally {
 						putLock.unlock();
@@ -120,8 +181,17 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
 				}
 			}
 		} // By size
-		else
-			super.put(e);
+		else {
+			QueryTrace trace = this.trace;
+			if (trace != null && remainingCapacity() == 0) {
+				// Waits for the application to read rows
+				long waitStart = System.nanoTime();
+				super.put(e);
+				trace.bufferFull(System.nanoTime() - waitStart);
+			}
+			else
+				super.put(e);
+		}
 	}
   
   @Override
@@ -132,15 +202,24 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
   		// Reduce the total buf size
   		Tuple row = (Tuple)e;
   		long currentBufSize;
-  		boolean bufWasFull = (totalFetchRingBufferSize.get() >= fetchRingBufferSizeCapacity);  		
+  		long capacity = getCapacity();
+  		boolean bufWasFull = (totalFetchRingBufferSize.get() >= capacity);  		
   		currentBufSize = totalFetchRingBufferSize.addAndGet(-RedshiftMemoryUtils.calculateNodeSize(row));
   		
   		// Signal the waiters
   		if (bufWasFull) {
-	      if (currentBufSize < fetchRingBufferSizeCapacity)
+	      if (currentBufSize < capacity)
 	        signalNotFull();
   		}
   	}
+  	if (memoryBudget != null) {
+  		if (firstTakeNanos == 0)
+  			firstTakeNanos = System.nanoTime();
+  		if (e != null && ((Tuple)e).fieldCount() == 0) {
+  			// All the rows were read
+  			releaseMemoryBudget();
+  		}
+  	}
   	
   	return e;
   }
@@ -178,6 +257,36 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
 			// Ignore
 		}
   	totalFetchRingBufferSize.set(0);
+  	releaseMemoryBudget();
+  }
+
+  /**
+   * Stops sharing the memory budget, if any. Called once all the rows were read, when the queue is
+   * closed, or when the ring buffer thread ends with an error. Only the first call does something.
+   */
+  void releaseMemoryBudget() {
+  	if (memoryBudget != null && memoryBudgetReleased.compareAndSet(false, true))
+  		memoryBudget.unregister();
+  }
+
+  /**
+   * Computes the number of rows to fetch next from the suspended portal, from the size of the rows
+   * of this queue and the rate they were read at.
+   *
+   * @param fetchSize the fetch size of the statement
+   * @return the number of rows to fetch, the fetch size without a memory budget
+   */
+  public int getAdaptiveFetchSize(int fetchSize) {
+  	long rows = rowsPut;
+  	if (memoryBudget == null || rows == 0)
+  		return fetchSize;
+  	long firstTake = firstTakeNanos;
+  	long elapsedNanos = System.nanoTime() - firstTake;
+  	double drainRate = (firstTake != 0 && elapsedNanos > 0)
+  			? (currentRow + 1) * 1e9 / elapsedNanos
+  			: 0;
+  	return memoryBudget.getFetchSize(fetchSize, bytesPut / rows, drainRate,
+  			fetchRingBufferSizeCapacity);
   }
   
   public void setSkipRows(){
@@ -210,6 +319,20 @@ public class RedshiftRowsBlockingQueue<E> extends LinkedBlockingQueue<E> {
   	checkAndAddEndOfRowsIndicator();
   }
   
+  /**
+   * @param trace the trace of the statement of the rows, or null
+   */
+  public void setTrace(QueryTrace trace) {
+  	this.trace = trace;
+  }
+
+  /**
+   * @return the trace of the statement of the rows, or null
+   */
+  public QueryTrace getTrace() {
+  	return trace;
+  }
+
   public Portal getSuspendedPortal() {
   	return currentSuspendedPortal;
   }
@@ -23,6 +23,7 @@ import com.amazon.redshift.util.StreamWrapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.Arrays;
 
 /**
@@ -257,6 +258,13 @@ class SimpleParameterList implements V3ParameterList {
           type = "double precision";
           break;
 
+        case Oid.DATE:
+          // days since 2000-01-01
+          int days = ByteConverter.int4((byte[]) paramValues[index], 0);
+          textValue = LocalDate.ofEpochDay(days + 10957L).toString();
+          type = "date";
+          break;
+
         case Oid.UUID:
           textValue =
               new UUIDArrayAssistant().buildElement((byte[]) paramValues[index], 0, 16).toString();
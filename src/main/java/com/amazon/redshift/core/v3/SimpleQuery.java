@@ -141,7 +141,7 @@ class SimpleQuery implements Query {
     System.arraycopy(paramTypes, 0, this.preparedTypes, 0, paramTypes.length);
   }
 
-  int[] getPrepareTypes() {
+  public int[] getPrepareTypes() {
     return preparedTypes;
   }
 
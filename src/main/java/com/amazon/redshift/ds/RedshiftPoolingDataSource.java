@@ -12,9 +12,16 @@ import com.amazon.redshift.util.RedshiftState;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Stack;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.naming.NamingException;
 import javax.naming.Reference;
@@ -49,7 +56,12 @@ import javax.sql.PooledConnection;
  * </p>
  *
  * <p>
- * This implementation supports JDK 1.5 and higher.
+ * Borrowing and returning a connection do not take a pool wide lock, and new physical connections
+ * are opened outside of any lock, so a slow connect does not block the other borrowers. When
+ * maxConnections are in use, waiting borrowers get the returned connections in FIFO order. The
+ * optional minIdleConnections, maxLifetime and idleTimeout settings are applied by a background
+ * thread, and the wait for connections is reported by {@link #getTotalWaitMillis()} and
+ * {@link #getMaxWaitMillis()}.
  * </p>
  *
  * @author Aaron Mulder (ammulder@chariotsolutions.com)
@@ -70,12 +82,30 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
   protected String dataSourceName; // Must be protected for subclasses to sync updates to it
   private int initialConnections = 0;
   private int maxConnections = 0;
+  private int minIdleConnections = 0;
+  private int maxLifetime = 0;
+  private int idleTimeout = 0;
+  private int connectionTimeout = 0;
   // State variables
-  private boolean initialized = false;
-  private Stack<PooledConnection> available = new Stack<PooledConnection>();
-  private Stack<PooledConnection> used = new Stack<PooledConnection>();
-  private Object lock = new Object();
-  private RedshiftConnectionPoolDataSource source;
+  private static final long MAINTENANCE_PERIOD_MILLIS = 5000L;
+  // Wait for a connection opened by the maintenance thread, before checking for a free slot again
+  private static final long MAINTENANCE_CONNECT_WAIT_MILLIS = 100L;
+  private volatile boolean initialized = false;
+  private volatile boolean closed = false;
+  // Most recently returned first, so that the least used connections can time out
+  private final LinkedBlockingDeque<PoolEntry> idle = new LinkedBlockingDeque<PoolEntry>();
+  // All the physical connections, idle or in use
+  private final ConcurrentMap<PooledConnection, PoolEntry> entries =
+      new ConcurrentHashMap<PooledConnection, PoolEntry>();
+  // Physical connections, including the ones being opened
+  private final AtomicInteger total = new AtomicInteger();
+  private volatile Semaphore permits;
+  private final AtomicLong borrowCount = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private ScheduledExecutorService maintenance;
+  private final Object lock = new Object();
+  private volatile RedshiftConnectionPoolDataSource source;
 
   /**
    * Gets a description of this DataSource.
@@ -211,6 +241,104 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
     this.maxConnections = maxConnections;
   }
 
+  /**
+   * Gets the number of idle connections the pool keeps open, opening new ones in the background
+   * when needed.
+   *
+   * @return minimum number of idle connections, or 0 for none
+   */
+  public int getMinIdleConnections() {
+    return minIdleConnections;
+  }
+
+  /**
+   * Sets the number of idle connections the pool keeps open, opening new ones in the background
+   * when needed. Idle connections above this number are closed after idleTimeout.
+   *
+   * @param minIdleConnections minimum number of idle connections, or 0 for none
+   * @throws IllegalStateException The Minimum Idle Connections cannot be changed after the
+   *         DataSource has been used.
+   */
+  public void setMinIdleConnections(int minIdleConnections) {
+    if (initialized) {
+      throw new IllegalStateException(
+          "Cannot set Data Source properties after DataSource has been used");
+    }
+    this.minIdleConnections = minIdleConnections;
+  }
+
+  /**
+   * Gets the time after which a physical connection is closed, once it is returned to the pool.
+   *
+   * @return maximum lifetime in seconds, or 0 for no maximum
+   */
+  public int getMaxLifetime() {
+    return maxLifetime;
+  }
+
+  /**
+   * Sets the time after which a physical connection is closed, once it is returned to the pool.
+   *
+   * @param maxLifetime maximum lifetime in seconds, or 0 for no maximum
+   * @throws IllegalStateException The Maximum Lifetime cannot be changed after the DataSource has
+   *         been used.
+   */
+  public void setMaxLifetime(int maxLifetime) {
+    if (initialized) {
+      throw new IllegalStateException(
+          "Cannot set Data Source properties after DataSource has been used");
+    }
+    this.maxLifetime = maxLifetime;
+  }
+
+  /**
+   * Gets the time after which an idle connection above minIdleConnections is closed.
+   *
+   * @return idle timeout in seconds, or 0 for none
+   */
+  public int getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  /**
+   * Sets the time after which an idle connection above minIdleConnections is closed.
+   *
+   * @param idleTimeout idle timeout in seconds, or 0 for none
+   * @throws IllegalStateException The Idle Timeout cannot be changed after the DataSource has been
+   *         used.
+   */
+  public void setIdleTimeout(int idleTimeout) {
+    if (initialized) {
+      throw new IllegalStateException(
+          "Cannot set Data Source properties after DataSource has been used");
+    }
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * Gets the time a request waits for a connection when maxConnections are in use.
+   *
+   * @return wait timeout in seconds, or 0 to wait until a connection is returned
+   */
+  public int getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
+  /**
+   * Sets the time a request waits for a connection when maxConnections are in use.
+   *
+   * @param connectionTimeout wait timeout in seconds, or 0 to wait until a connection is returned
+   * @throws IllegalStateException The Connection Timeout cannot be changed after the DataSource
+   *         has been used.
+   */
+  public void setConnectionTimeout(int connectionTimeout) {
+    if (initialized) {
+      throw new IllegalStateException(
+          "Cannot set Data Source properties after DataSource has been used");
+    }
+    this.connectionTimeout = connectionTimeout;
+  }
+
   /**
    * Gets the name of this DataSource. This uniquely identifies the DataSource. You cannot use more
    * than one DataSource in the same VM with the same name.
@@ -262,6 +390,14 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
    */
   public void initialize() throws SQLException {
     synchronized (lock) {
+      if (initialized) {
+        return;
+      }
+      if (closed) {
+        throw new RedshiftException(GT.tr("DataSource has been closed."),
+            RedshiftState.CONNECTION_DOES_NOT_EXIST);
+      }
+
       source = createConnectionPool();
       try {
         source.initializeFrom(this);
@@ -270,8 +406,21 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
             e);
       }
 
-      while (available.size() < initialConnections) {
-        available.push(source.getPooledConnection());
+      if (maxConnections > 0) {
+        // Fair, so that waiting borrowers get the returned connections in FIFO order
+        permits = new Semaphore(maxConnections, true);
+      }
+
+      while (idle.size() < initialConnections) {
+        PoolEntry entry = createEntry();
+        if (entry == null) {
+          break; // maxConnections reached
+        }
+        idle.offerFirst(entry);
+      }
+
+      if (minIdleConnections > 0 || maxLifetime > 0 || idleTimeout > 0) {
+        startMaintenance();
       }
 
       initialized = true;
@@ -331,24 +480,18 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
    */
   public void close() {
     synchronized (lock) {
-      while (!available.isEmpty()) {
-        PooledConnection pci = available.pop();
-        try {
-          pci.close();
-        } catch (SQLException e) {
-        }
+      closed = true;
+      if (maintenance != null) {
+        maintenance.shutdownNow();
+        maintenance = null;
       }
-      available = null;
-      while (!used.isEmpty()) {
-        PooledConnection pci = used.pop();
-        pci.removeConnectionEventListener(connectionEventListener);
-        try {
-          pci.close();
-        } catch (SQLException e) {
-        }
-      }
-      used = null;
     }
+
+    for (PoolEntry entry : entries.values()) {
+      entry.pc.removeConnectionEventListener(connectionEventListener);
+      closeEntry(entry);
+    }
+    idle.clear();
     removeStoredDataSource();
   }
 
@@ -360,38 +503,296 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
     dataSources.put(dataSourceName, this);
   }
 
+  /**
+   * Gets the number of connections currently borrowed from the pool.
+   *
+   * @return number of connections in use
+   */
+  public int getActiveConnections() {
+    return Math.max(0, entries.size() - idle.size());
+  }
+
+  /**
+   * Gets the number of open connections waiting in the pool to be borrowed.
+   *
+   * @return number of idle connections
+   */
+  public int getIdleConnections() {
+    return idle.size();
+  }
+
+  /**
+   * Gets the number of threads waiting for a connection because maxConnections are in use.
+   *
+   * @return number of waiting threads
+   */
+  public int getWaitingThreads() {
+    Semaphore p = permits;
+    return p == null ? 0 : p.getQueueLength();
+  }
+
+  /**
+   * Gets the number of connections borrowed from the pool since it was initialized.
+   *
+   * @return number of borrows
+   */
+  public long getBorrowCount() {
+    return borrowCount.get();
+  }
+
+  /**
+   * Gets the time borrowers spent waiting for a connection, either for one to be returned or for
+   * a new one to be opened, since the pool was initialized.
+   *
+   * @return total wait time in milliseconds
+   */
+  public long getTotalWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+  }
+
+  /**
+   * Gets the longest time a borrower waited for a connection since the pool was initialized.
+   *
+   * @return maximum wait time in milliseconds
+   */
+  public long getMaxWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+  }
+
   /**
    * Gets a connection from the pool. Will get an available one if present, or create a new one if
    * under the max limit. Will block if all used and a new one would exceed the max.
    */
   private Connection getPooledConnection() throws SQLException {
-    PooledConnection pc = null;
-    synchronized (lock) {
-      if (available == null) {
-        throw new RedshiftException(GT.tr("DataSource has been closed."),
-            RedshiftState.CONNECTION_DOES_NOT_EXIST);
+    checkNotClosed();
+    long start = System.nanoTime();
+
+    Semaphore p = permits;
+    if (p != null) {
+      try {
+        if (connectionTimeout > 0) {
+          if (!p.tryAcquire(connectionTimeout, TimeUnit.SECONDS)) {
+            throw new RedshiftException(
+                GT.tr("Timed out after {0} seconds waiting for a pooled connection.", connectionTimeout),
+                RedshiftState.CONNECTION_UNABLE_TO_CONNECT);
+          }
+        } else {
+          p.acquire();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RedshiftException(GT.tr("Interrupted while waiting for a pooled connection."),
+            RedshiftState.CONNECTION_UNABLE_TO_CONNECT, e);
+      }
+    }
+
+    PoolEntry entry = null;
+    try {
+      entry = borrowEntry();
+      entry.pc.addConnectionEventListener(connectionEventListener);
+      Connection con = entry.pc.getConnection();
+      recordWait(System.nanoTime() - start);
+      return con;
+    } catch (SQLException | RuntimeException e) {
+      if (entry != null) {
+        entry.pc.removeConnectionEventListener(connectionEventListener);
+        discardEntry(entry);
+      } else if (p != null) {
+        p.release();
       }
-      while (true) {
-        if (!available.isEmpty()) {
-          pc = available.pop();
-          used.push(pc);
-          break;
+      throw e;
+    }
+  }
+
+  /**
+   * Takes an idle connection, or opens a new one. The caller holds a permit when maxConnections is
+   * set, so a slot is free unless the maintenance thread is filling the pool, in which case the new
+   * connection shows up as idle.
+   */
+  private PoolEntry borrowEntry() throws SQLException {
+    PoolEntry entry = idle.pollFirst();
+    while (true) {
+      checkNotClosed();
+
+      if (entry != null) {
+        if (!isExpired(entry, System.currentTimeMillis())) {
+          return entry;
         }
-        if (maxConnections == 0 || used.size() < maxConnections) {
-          pc = source.getPooledConnection();
-          used.push(pc);
-          break;
-        } else {
-          try {
-            // Wake up every second at a minimum
-            lock.wait(1000L);
-          } catch (InterruptedException e) {
-          }
+        removeEntry(entry);
+        closeEntry(entry);
+        entry = idle.pollFirst();
+        continue;
+      }
+
+      // Opened outside of any lock, other borrowers are not blocked by the connect
+      entry = createEntry();
+      if (entry != null) {
+        return entry;
+      }
+
+      // The connection the maintenance thread is opening is taken by this thread as soon as it
+      // shows up, it is not put back for another borrower
+      try {
+        entry = idle.pollFirst(MAINTENANCE_CONNECT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RedshiftException(GT.tr("Interrupted while waiting for a pooled connection."),
+            RedshiftState.CONNECTION_UNABLE_TO_CONNECT, e);
+      }
+    }
+  }
+
+  /**
+   * Opens a new physical connection if maxConnections allows it.
+   *
+   * @return the new entry, or null if the pool is full
+   */
+  private PoolEntry createEntry() throws SQLException {
+    while (true) {
+      int current = total.get();
+      if (maxConnections > 0 && current >= maxConnections) {
+        return null;
+      }
+      if (total.compareAndSet(current, current + 1)) {
+        break;
+      }
+    }
+
+    PooledConnection pc;
+    try {
+      pc = source.getPooledConnection();
+    } catch (SQLException | RuntimeException e) {
+      total.decrementAndGet();
+      throw e;
+    }
+
+    PoolEntry entry = new PoolEntry(pc);
+    entries.put(pc, entry);
+    if (closed) {
+      // close() may not have seen it, removeEntry frees its slot
+      removeEntry(entry);
+      closeEntry(entry);
+      checkNotClosed();
+    }
+    return entry;
+  }
+
+  private void returnEntry(PoolEntry entry) {
+    if (closed) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    if (isExpired(entry, now)) {
+      discardEntry(entry);
+      closeEntry(entry);
+      return;
+    }
+
+    entry.lastReturned = now;
+    idle.offerFirst(entry);
+    Semaphore p = permits;
+    if (p != null) {
+      // There's now a new connection available
+      p.release();
+    }
+  }
+
+  /**
+   * Removes a borrowed connection from the pool, freeing its slot.
+   */
+  private void discardEntry(PoolEntry entry) {
+    Semaphore p = permits;
+    // Released once, even if both the borrower and the fatal error listener discard it
+    if (removeEntry(entry) && p != null) {
+      // We're now at least 1 connection under the max
+      p.release();
+    }
+  }
+
+  private boolean removeEntry(PoolEntry entry) {
+    if (entries.remove(entry.pc, entry)) {
+      total.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private void closeEntry(PoolEntry entry) {
+    try {
+      entry.pc.close();
+    } catch (SQLException e) {
+    } catch (RuntimeException e) {
+      // Already closed after a fatal error
+    }
+  }
+
+  private boolean isExpired(PoolEntry entry, long now) {
+    return maxLifetime > 0 && now - entry.created >= maxLifetime * 1000L;
+  }
+
+  private void recordWait(long nanos) {
+    borrowCount.incrementAndGet();
+    totalWaitNanos.addAndGet(nanos);
+    long max = maxWaitNanos.get();
+    while (nanos > max && !maxWaitNanos.compareAndSet(max, nanos)) {
+      max = maxWaitNanos.get();
+    }
+  }
+
+  private void checkNotClosed() throws SQLException {
+    if (closed) {
+      throw new RedshiftException(GT.tr("DataSource has been closed."),
+          RedshiftState.CONNECTION_DOES_NOT_EXIST);
+    }
+  }
+
+  private void startMaintenance() {
+    maintenance = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Redshift JDBC driver pool maintenance thread");
+        thread.setDaemon(true); // Don't prevent the VM from shutting down
+        return thread;
+      }
+    });
+    maintenance.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        maintain();
+      }
+    }, MAINTENANCE_PERIOD_MILLIS, MAINTENANCE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Closes the idle connections past maxLifetime, and past idleTimeout above minIdleConnections,
+   * then opens connections up to minIdleConnections.
+   */
+  private void maintain() {
+    long now = System.currentTimeMillis();
+    int idleCount = idle.size();
+    for (PoolEntry entry : idle) {
+      boolean idleTooLong = idleTimeout > 0 && idleCount > minIdleConnections
+          && now - entry.lastReturned >= idleTimeout * 1000L;
+      if ((isExpired(entry, now) || idleTooLong) && idle.remove(entry)) {
+        idleCount--;
+        removeEntry(entry);
+        closeEntry(entry);
+      }
+    }
+
+    try {
+      while (!closed && idle.size() < minIdleConnections) {
+        PoolEntry entry = createEntry();
+        if (entry == null) {
+          break; // maxConnections reached
         }
+        // No permit to release, as no borrower held the new connection
+        idle.offerLast(entry);
       }
+    } catch (SQLException e) {
+      // Retried on the next run, borrowers get the error if the server is down
     }
-    pc.addConnectionEventListener(connectionEventListener);
-    return pc.getConnection();
   }
 
   /**
@@ -401,18 +802,9 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
   private ConnectionEventListener connectionEventListener = new ConnectionEventListener() {
     public void connectionClosed(ConnectionEvent event) {
       ((PooledConnection) event.getSource()).removeConnectionEventListener(this);
-      synchronized (lock) {
-        if (available == null) {
-          return; // DataSource has been closed
-        }
-        boolean removed = used.remove(event.getSource());
-        if (removed) {
-          available.push((PooledConnection) event.getSource());
-          // There's now a new connection available
-          lock.notify();
-        } else {
-          // a connection error occurred
-        }
+      PoolEntry entry = entries.get(event.getSource());
+      if (entry != null) {
+        returnEntry(entry);
       }
     }
 
@@ -422,17 +814,26 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
      */
     public void connectionErrorOccurred(ConnectionEvent event) {
       ((PooledConnection) event.getSource()).removeConnectionEventListener(this);
-      synchronized (lock) {
-        if (available == null) {
-          return; // DataSource has been closed
-        }
-        used.remove(event.getSource());
-        // We're now at least 1 connection under the max
-        lock.notify();
+      PoolEntry entry = entries.get(event.getSource());
+      if (entry != null && !closed) {
+        discardEntry(entry);
       }
     }
   };
 
+  /**
+   * A physical connection of the pool.
+   */
+  private static class PoolEntry {
+    final PooledConnection pc;
+    final long created = System.currentTimeMillis();
+    volatile long lastReturned = created;
+
+    PoolEntry(PooledConnection pc) {
+      this.pc = pc;
+    }
+  }
+
   /**
    * Adds custom properties for this DataSource to the properties defined in the superclass.
    */
@@ -445,6 +846,18 @@ public class RedshiftPoolingDataSource extends BaseDataSource implements DataSou
     if (maxConnections > 0) {
       ref.add(new StringRefAddr("maxConnections", Integer.toString(maxConnections)));
     }
+    if (minIdleConnections > 0) {
+      ref.add(new StringRefAddr("minIdleConnections", Integer.toString(minIdleConnections)));
+    }
+    if (maxLifetime > 0) {
+      ref.add(new StringRefAddr("maxLifetime", Integer.toString(maxLifetime)));
+    }
+    if (idleTimeout > 0) {
+      ref.add(new StringRefAddr("idleTimeout", Integer.toString(idleTimeout)));
+    }
+    if (connectionTimeout > 0) {
+      ref.add(new StringRefAddr("connectionTimeout", Integer.toString(connectionTimeout)));
+    }
     return ref;
   }
 
@@ -509,6 +509,102 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_MIB.set(properties, cacheSize);
   }
 
+  /**
+   * @return true if the field metadata cache is shared between connections to the same database
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_FIELDS_SHARED
+   */
+  public boolean getDatabaseMetadataCacheFieldsShared() {
+    return RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_SHARED.getBoolean(properties);
+  }
+
+  /**
+   * @param shared true to share the field metadata cache between connections to the same database
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_FIELDS_SHARED
+   */
+  public void setDatabaseMetadataCacheFieldsShared(boolean shared) {
+    RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_SHARED.set(properties, shared);
+  }
+
+  /**
+   * @return seconds fields stay in the shared field metadata cache
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_FIELDS_TTL
+   */
+  public int getDatabaseMetadataCacheFieldsTtl() {
+    return RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_TTL.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param ttl seconds fields stay in the shared field metadata cache, 0 for no expiration
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_FIELDS_TTL
+   */
+  public void setDatabaseMetadataCacheFieldsTtl(int ttl) {
+    RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_TTL.set(properties, ttl);
+  }
+
+  /**
+   * @return maximum number of SHOW command results cached per connection
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_SIZE
+   */
+  public int getDatabaseMetadataCacheSize() {
+    return RedshiftProperty.DATABASE_METADATA_CACHE_SIZE.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param cacheSize maximum number of SHOW command results cached per connection
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_SIZE
+   */
+  public void setDatabaseMetadataCacheSize(int cacheSize) {
+    RedshiftProperty.DATABASE_METADATA_CACHE_SIZE.set(properties, cacheSize);
+  }
+
+  /**
+   * @return seconds the SHOW command results are cached, 0 if not cached
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_TTL
+   */
+  public int getDatabaseMetadataCacheTtl() {
+    return RedshiftProperty.DATABASE_METADATA_CACHE_TTL.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param ttl seconds the SHOW command results are cached, 0 to disable the cache
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_TTL
+   */
+  public void setDatabaseMetadataCacheTtl(int ttl) {
+    RedshiftProperty.DATABASE_METADATA_CACHE_TTL.set(properties, ttl);
+  }
+
+  /**
+   * @return number of connections the metadata API runs its SHOW commands on at once
+   * @see RedshiftProperty#DATABASE_METADATA_PARALLELISM
+   */
+  public int getDatabaseMetadataParallelism() {
+    return RedshiftProperty.DATABASE_METADATA_PARALLELISM.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param parallelism number of connections the metadata API runs its SHOW commands on at once
+   * @see RedshiftProperty#DATABASE_METADATA_PARALLELISM
+   */
+  public void setDatabaseMetadataParallelism(int parallelism) {
+    RedshiftProperty.DATABASE_METADATA_PARALLELISM.set(properties, parallelism);
+  }
+
+  /**
+   * @return true if getTables and getColumns run their SHOW commands as the rows are read
+   * @see RedshiftProperty#DATABASE_METADATA_STREAMING
+   */
+  public boolean getDatabaseMetadataStreaming() {
+    return RedshiftProperty.DATABASE_METADATA_STREAMING.getBoolean(properties);
+  }
+
+  /**
+   * @param streaming true to run the SHOW commands of getTables and getColumns as the rows are read
+   * @see RedshiftProperty#DATABASE_METADATA_STREAMING
+   */
+  public void setDatabaseMetadataStreaming(boolean streaming) {
+    RedshiftProperty.DATABASE_METADATA_STREAMING.set(properties, streaming);
+  }
+
   /**
    * @param fetchSize default fetch size
    * @see RedshiftProperty#DEFAULT_ROW_FETCH_SIZE
@@ -573,6 +669,23 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     return RedshiftProperty.CANCEL_SIGNAL_TIMEOUT.getIntNoCheck(properties);
   }
 
+  /**
+   * @param maxConcurrency maximum number of cancel requests sent to a host at a time, 0 for no
+   *        limit
+   * @see RedshiftProperty#CANCEL_MAX_CONCURRENCY
+   */
+  public void setCancelMaxConcurrency(int maxConcurrency) {
+    RedshiftProperty.CANCEL_MAX_CONCURRENCY.set(properties, maxConcurrency);
+  }
+
+  /**
+   * @return maximum number of cancel requests sent to a host at a time, 0 for no limit
+   * @see RedshiftProperty#CANCEL_MAX_CONCURRENCY
+   */
+  public int getCancelMaxConcurrency() {
+    return RedshiftProperty.CANCEL_MAX_CONCURRENCY.getIntNoCheck(properties);
+  }
+
   /**
    * @param enabled if SSL is enabled
    * @see RedshiftProperty#SSL
@@ -674,6 +787,22 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     RedshiftProperty.SSL_CERT.set(properties, file);
   }
 
+  /**
+   * @param enabled if the SSL context should be shared across connections
+   * @see RedshiftProperty#SSL_CONTEXT_CACHE
+   */
+  public void setSslContextCache(boolean enabled) {
+    RedshiftProperty.SSL_CONTEXT_CACHE.set(properties, enabled);
+  }
+
+  /**
+   * @return true if the SSL context is shared across connections
+   * @see RedshiftProperty#SSL_CONTEXT_CACHE
+   */
+  public boolean getSslContextCache() {
+    return RedshiftProperty.SSL_CONTEXT_CACHE.getBoolean(properties);
+  }
+
   /**
    * @return SSL certificate
    * @see RedshiftProperty#SSL_KEY
@@ -786,6 +915,70 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     return RedshiftProperty.LOAD_BALANCE_HOSTS.isPresent(properties);
   }
 
+  /**
+   * @param loadBalanceStrategy how hosts are ordered when load balancing
+   * @see RedshiftProperty#LOAD_BALANCE_STRATEGY
+   */
+  public void setLoadBalanceStrategy(String loadBalanceStrategy) {
+    RedshiftProperty.LOAD_BALANCE_STRATEGY.set(properties, loadBalanceStrategy);
+  }
+
+  /**
+   * @return how hosts are ordered when load balancing
+   * @see RedshiftProperty#LOAD_BALANCE_STRATEGY
+   */
+  public String getLoadBalanceStrategy() {
+    return RedshiftProperty.LOAD_BALANCE_STRATEGY.get(properties);
+  }
+
+  /**
+   * @param enabled if the connection is opened while the credentials are fetched
+   * @see RedshiftProperty#PRE_CONNECT
+   */
+  public void setPreConnect(boolean enabled) {
+    RedshiftProperty.PRE_CONNECT.set(properties, enabled);
+  }
+
+  /**
+   * @return true if the connection is opened while the credentials are fetched
+   * @see RedshiftProperty#PRE_CONNECT
+   */
+  public boolean getPreConnect() {
+    return RedshiftProperty.PRE_CONNECT.getBoolean(properties);
+  }
+
+  /**
+   * @param parallelConnectHosts number of hosts to connect to in parallel
+   * @see RedshiftProperty#PARALLEL_CONNECT_HOSTS
+   */
+  public void setParallelConnectHosts(int parallelConnectHosts) {
+    RedshiftProperty.PARALLEL_CONNECT_HOSTS.set(properties, parallelConnectHosts);
+  }
+
+  /**
+   * @return number of hosts to connect to in parallel
+   * @see RedshiftProperty#PARALLEL_CONNECT_HOSTS
+   */
+  public int getParallelConnectHosts() {
+    return RedshiftProperty.PARALLEL_CONNECT_HOSTS.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param parallelConnectDelay delay in milliseconds between parallel connection attempts
+   * @see RedshiftProperty#PARALLEL_CONNECT_DELAY
+   */
+  public void setParallelConnectDelay(int parallelConnectDelay) {
+    RedshiftProperty.PARALLEL_CONNECT_DELAY.set(properties, parallelConnectDelay);
+  }
+
+  /**
+   * @return delay in milliseconds between parallel connection attempts
+   * @see RedshiftProperty#PARALLEL_CONNECT_DELAY
+   */
+  public int getParallelConnectDelay() {
+    return RedshiftProperty.PARALLEL_CONNECT_DELAY.getIntNoCheck(properties);
+  }
+
   /**
    * @param hostRecheckSeconds host recheck seconds
    * @see RedshiftProperty#HOST_RECHECK_SECONDS
@@ -802,6 +995,40 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     return RedshiftProperty.HOST_RECHECK_SECONDS.getIntNoCheck(properties);
   }
 
+  /**
+   * @param syncPing true to validate connections with a Sync message instead of an empty statement
+   * @see RedshiftProperty#ISVALID_SYNC_PING
+   */
+  public void setIsValidSyncPing(boolean syncPing) {
+    RedshiftProperty.ISVALID_SYNC_PING.set(properties, syncPing);
+  }
+
+  /**
+   * @return true if connections are validated with a Sync message
+   * @see RedshiftProperty#ISVALID_SYNC_PING
+   */
+  public boolean getIsValidSyncPing() {
+    return RedshiftProperty.ISVALID_SYNC_PING.getBoolean(properties);
+  }
+
+  /**
+   * @param trustWindow milliseconds after a server response during which a connection is valid
+   *        without a round trip
+   * @see RedshiftProperty#ISVALID_TRUST_WINDOW
+   */
+  public void setIsValidTrustWindow(int trustWindow) {
+    RedshiftProperty.ISVALID_TRUST_WINDOW.set(properties, trustWindow);
+  }
+
+  /**
+   * @return milliseconds after a server response during which a connection is valid without a
+   *         round trip
+   * @see RedshiftProperty#ISVALID_TRUST_WINDOW
+   */
+  public int getIsValidTrustWindow() {
+    return RedshiftProperty.ISVALID_TRUST_WINDOW.getIntNoCheck(properties);
+  }
+
   /**
    * @param enabled if TCP keep alive should be enabled
    * @see RedshiftProperty#TCP_KEEP_ALIVE
@@ -1195,6 +1422,204 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
   public void setLogDirectory(String logDirectory) {
     RedshiftProperty.LOG_PATH.set(properties, logDirectory);
   }
+
+  /**
+   * @return time in milliseconds to the first row above which a statement is reported as slow
+   * @see RedshiftProperty#SLOW_QUERY_THRESHOLD
+   */
+  public int getSlowQueryThreshold() {
+    return RedshiftProperty.SLOW_QUERY_THRESHOLD.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param threshold time in milliseconds to the first row above which a statement is reported
+   *        as slow, 0 for no threshold
+   * @see RedshiftProperty#SLOW_QUERY_THRESHOLD
+   */
+  public void setSlowQueryThreshold(int threshold) {
+    RedshiftProperty.SLOW_QUERY_THRESHOLD.set(properties, threshold);
+  }
+
+  /**
+   * @return time in milliseconds to receive all the results above which a statement is reported
+   *         as slow
+   * @see RedshiftProperty#SLOW_FETCH_THRESHOLD
+   */
+  public int getSlowFetchThreshold() {
+    return RedshiftProperty.SLOW_FETCH_THRESHOLD.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param threshold time in milliseconds to receive all the results above which a statement is
+   *        reported as slow, 0 for no threshold
+   * @see RedshiftProperty#SLOW_FETCH_THRESHOLD
+   */
+  public void setSlowFetchThreshold(int threshold) {
+    RedshiftProperty.SLOW_FETCH_THRESHOLD.set(properties, threshold);
+  }
+
+  /**
+   * @return size of the rows above which a statement is reported as a large result
+   * @see RedshiftProperty#LARGE_RESULT_THRESHOLD
+   */
+  public String getLargeResultThreshold() {
+    return RedshiftProperty.LARGE_RESULT_THRESHOLD.get(properties);
+  }
+
+  /**
+   * @param threshold size of the rows above which a statement is reported as a large result
+   * @see RedshiftProperty#LARGE_RESULT_THRESHOLD
+   */
+  public void setLargeResultThreshold(String threshold) {
+    RedshiftProperty.LARGE_RESULT_THRESHOLD.set(properties, threshold);
+  }
+
+  /**
+   * @return true if the ring buffer size and the fetch size adapt to the size of the rows
+   * @see RedshiftProperty#ADAPTIVE_FETCH
+   */
+  public boolean getAdaptiveFetch() {
+    return RedshiftProperty.ADAPTIVE_FETCH.getBoolean(properties);
+  }
+
+  /**
+   * @param adaptiveFetch true to adapt the ring buffer size and the fetch size to the size of the
+   *        rows
+   * @see RedshiftProperty#ADAPTIVE_FETCH
+   */
+  public void setAdaptiveFetch(boolean adaptiveFetch) {
+    RedshiftProperty.ADAPTIVE_FETCH.set(properties, adaptiveFetch);
+  }
+
+  /**
+   * @return memory shared by the ring buffers of the open result sets
+   * @see RedshiftProperty#ADAPTIVE_FETCH_MEMORY
+   */
+  public String getAdaptiveFetchMemory() {
+    return RedshiftProperty.ADAPTIVE_FETCH_MEMORY.get(properties);
+  }
+
+  /**
+   * @param memory memory shared by the ring buffers of the open result sets
+   * @see RedshiftProperty#ADAPTIVE_FETCH_MEMORY
+   */
+  public void setAdaptiveFetchMemory(String memory) {
+    RedshiftProperty.ADAPTIVE_FETCH_MEMORY.set(properties, memory);
+  }
+
+  /**
+   * @return class name of the tracer of the statements, or "opentelemetry"
+   * @see RedshiftProperty#QUERY_TRACER
+   */
+  public String getQueryTracer() {
+    return RedshiftProperty.QUERY_TRACER.get(properties);
+  }
+
+  /**
+   * @param queryTracer class name of the tracer of the statements, or "opentelemetry"
+   * @see RedshiftProperty#QUERY_TRACER
+   */
+  public void setQueryTracer(String queryTracer) {
+    RedshiftProperty.QUERY_TRACER.set(properties, queryTracer);
+  }
+
+  /**
+   * @return true if the driver metrics are collected
+   * @see RedshiftProperty#ENABLE_METRICS
+   */
+  public boolean getEnableMetrics() {
+    return RedshiftProperty.ENABLE_METRICS.getBoolean(properties);
+  }
+
+  /**
+   * @param enableMetrics true to collect the driver metrics
+   * @see RedshiftProperty#ENABLE_METRICS
+   */
+  public void setEnableMetrics(boolean enableMetrics) {
+    RedshiftProperty.ENABLE_METRICS.set(properties, enableMetrics);
+  }
+
+  /**
+   * @return true if log messages are written on a background thread
+   * @see RedshiftProperty#LOG_ASYNC
+   */
+  public boolean getLogAsync() {
+    return RedshiftProperty.LOG_ASYNC.getBoolean(properties);
+  }
+
+  /**
+   * @param logAsync true to write the log messages on a background thread
+   * @see RedshiftProperty#LOG_ASYNC
+   */
+  public void setLogAsync(boolean logAsync) {
+    RedshiftProperty.LOG_ASYNC.set(properties, logAsync);
+  }
+
+  /**
+   * @return maximum number of log messages waiting to be written
+   * @see RedshiftProperty#LOG_ASYNC_QUEUE_SIZE
+   */
+  public int getLogAsyncQueueSize() {
+    return RedshiftProperty.LOG_ASYNC_QUEUE_SIZE.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param queueSize maximum number of log messages waiting to be written
+   * @see RedshiftProperty#LOG_ASYNC_QUEUE_SIZE
+   */
+  public void setLogAsyncQueueSize(int queueSize) {
+    RedshiftProperty.LOG_ASYNC_QUEUE_SIZE.set(properties, queueSize);
+  }
+
+  /**
+   * @return regular expression matched against the URL, applicationName and logTag of the
+   *         connections that log
+   * @see RedshiftProperty#LOG_FILTER
+   */
+  public String getLogFilter() {
+    return RedshiftProperty.LOG_FILTER.get(properties);
+  }
+
+  /**
+   * @param logFilter regular expression matched against the URL, applicationName and logTag of
+   *        the connections that log
+   * @see RedshiftProperty#LOG_FILTER
+   */
+  public void setLogFilter(String logFilter) {
+    RedshiftProperty.LOG_FILTER.set(properties, logFilter);
+  }
+
+  /**
+   * @return tag of the connections, matched by the log filter
+   * @see RedshiftProperty#LOG_TAG
+   */
+  public String getLogTag() {
+    return RedshiftProperty.LOG_TAG.get(properties);
+  }
+
+  /**
+   * @param logTag tag of the connections, matched by the log filter
+   * @see RedshiftProperty#LOG_TAG
+   */
+  public void setLogTag(String logTag) {
+    RedshiftProperty.LOG_TAG.set(properties, logTag);
+  }
+
+  /**
+   * @return maximum number of per row DEBUG messages logged per second by a connection
+   * @see RedshiftProperty#LOG_ROW_MESSAGE_RATE_LIMIT
+   */
+  public int getLogRowMessageRateLimit() {
+    return RedshiftProperty.LOG_ROW_MESSAGE_RATE_LIMIT.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param limit maximum number of per row DEBUG messages logged per second by a connection
+   * @see RedshiftProperty#LOG_ROW_MESSAGE_RATE_LIMIT
+   */
+  public void setLogRowMessageRateLimit(int limit) {
+    RedshiftProperty.LOG_ROW_MESSAGE_RATE_LIMIT.set(properties, limit);
+  }
   
   /**
    * Generates a {@link DriverManager} URL from the other properties supplied.
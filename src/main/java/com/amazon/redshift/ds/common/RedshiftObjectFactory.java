@@ -71,6 +71,22 @@ public class RedshiftObjectFactory implements ObjectFactory {
     if (max != null) {
       pds.setMaxConnections(Integer.parseInt(max));
     }
+    String minIdle = getProperty(ref, "minIdleConnections");
+    if (minIdle != null) {
+      pds.setMinIdleConnections(Integer.parseInt(minIdle));
+    }
+    String maxLifetime = getProperty(ref, "maxLifetime");
+    if (maxLifetime != null) {
+      pds.setMaxLifetime(Integer.parseInt(maxLifetime));
+    }
+    String idleTimeout = getProperty(ref, "idleTimeout");
+    if (idleTimeout != null) {
+      pds.setIdleTimeout(Integer.parseInt(idleTimeout));
+    }
+    String connectionTimeout = getProperty(ref, "connectionTimeout");
+    if (connectionTimeout != null) {
+      pds.setConnectionTimeout(Integer.parseInt(connectionTimeout));
+    }
     return pds;
   }
 
@@ -8,16 +8,24 @@ package com.amazon.redshift.hostchooser;
 import com.amazon.redshift.util.HostSpec;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Keeps track of HostSpec targets in a global map.
+ * Keeps track of HostSpec targets in a global map, along with a moving average of the connect
+ * latency and of the connect error rate of each host.
  */
 public class GlobalHostStatusTracker {
-  private static final Map<HostSpec, HostSpecStatus> hostStatusMap =
-      new HashMap<HostSpec, HostSpecStatus>();
+  // Weight of the newest sample in the moving averages
+  private static final double SAMPLE_WEIGHT = 0.2;
+
+  // A failed connect counts like this much extra latency when hosts are ranked
+  private static final long ERROR_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private static final ConcurrentMap<HostSpec, HostSpecStatus> hostStatusMap =
+      new ConcurrentHashMap<HostSpec, HostSpecStatus>();
 
   /**
    * Store the actual observed host status.
@@ -27,15 +35,29 @@ public class GlobalHostStatusTracker {
    */
   public static void reportHostStatus(HostSpec hostSpec, HostStatus hostStatus) {
     long now = System.nanoTime() / 1000000;
-    synchronized (hostStatusMap) {
-      HostSpecStatus hostSpecStatus = hostStatusMap.get(hostSpec);
+    getHostSpecStatus(hostSpec).reportStatus(hostStatus, now);
+  }
+
+  /**
+   * Store the time it took to connect and authenticate to a host.
+   *
+   * @param hostSpec The host that was connected to.
+   * @param connectNanos Time taken by the connection, in nanoseconds.
+   */
+  public static void reportConnectLatency(HostSpec hostSpec, long connectNanos) {
+    getHostSpecStatus(hostSpec).reportLatency(connectNanos);
+  }
+
+  private static HostSpecStatus getHostSpecStatus(HostSpec hostSpec) {
+    HostSpecStatus hostSpecStatus = hostStatusMap.get(hostSpec);
+    if (hostSpecStatus == null) {
+      HostSpecStatus newStatus = new HostSpecStatus(hostSpec);
+      hostSpecStatus = hostStatusMap.putIfAbsent(hostSpec, newStatus);
       if (hostSpecStatus == null) {
-        hostSpecStatus = new HostSpecStatus(hostSpec);
-        hostStatusMap.put(hostSpec, hostSpecStatus);
+        hostSpecStatus = newStatus;
       }
-      hostSpecStatus.status = hostStatus;
-      hostSpecStatus.lastUpdated = now;
     }
+    return hostSpecStatus;
   }
 
   /**
@@ -50,31 +72,68 @@ public class GlobalHostStatusTracker {
       HostRequirement targetServerType, long hostRecheckMillis) {
     List<HostSpec> candidates = new ArrayList<HostSpec>(hostSpecs.length);
     long latestAllowedUpdate = System.nanoTime() / 1000000 - hostRecheckMillis;
-    synchronized (hostStatusMap) {
-      for (HostSpec hostSpec : hostSpecs) {
-        HostSpecStatus hostInfo = hostStatusMap.get(hostSpec);
-        // candidates are nodes we do not know about and the nodes with correct type
-        if (hostInfo == null
-            || hostInfo.lastUpdated < latestAllowedUpdate
-            || targetServerType.allowConnectingTo(hostInfo.status)) {
-          candidates.add(hostSpec);
-        }
+    for (HostSpec hostSpec : hostSpecs) {
+      HostSpecStatus hostInfo = hostStatusMap.get(hostSpec);
+      // candidates are nodes we do not know about and the nodes with correct type
+      if (hostInfo == null || hostInfo.isCandidate(targetServerType, latestAllowedUpdate)) {
+        candidates.add(hostSpec);
       }
     }
     return candidates;
   }
 
+  /**
+   * Returns the cost of connecting to a host, used to rank hosts when load balancing. It is the
+   * average connect latency plus a penalty proportional to the recent error rate. Hosts never
+   * connected to cost nothing, so they are tried and measured.
+   *
+   * @param hostSpec The host to rank.
+   * @return connect cost in nanoseconds.
+   */
+  static long getConnectCost(HostSpec hostSpec) {
+    HostSpecStatus hostInfo = hostStatusMap.get(hostSpec);
+    return hostInfo == null ? 0 : hostInfo.getConnectCost();
+  }
+
   static class HostSpecStatus {
     final HostSpec host;
     HostStatus status;
     long lastUpdated;
+    // Moving averages, latency is -1 until the first successful connect
+    double latencyNanos = -1;
+    double errorRate;
 
     HostSpecStatus(HostSpec host) {
       this.host = host;
     }
 
+    synchronized void reportStatus(HostStatus hostStatus, long now) {
+      status = hostStatus;
+      lastUpdated = now;
+      double sample = hostStatus == HostStatus.ConnectFail ? 1 : 0;
+      errorRate += SAMPLE_WEIGHT * (sample - errorRate);
+    }
+
+    synchronized void reportLatency(long connectNanos) {
+      if (latencyNanos < 0) {
+        latencyNanos = connectNanos;
+      } else {
+        latencyNanos += SAMPLE_WEIGHT * (connectNanos - latencyNanos);
+      }
+    }
+
+    synchronized boolean isCandidate(HostRequirement targetServerType, long latestAllowedUpdate) {
+      return status == null
+          || lastUpdated < latestAllowedUpdate
+          || targetServerType.allowConnectingTo(status);
+    }
+
+    synchronized long getConnectCost() {
+      return (long) (Math.max(latencyNanos, 0) + errorRate * ERROR_PENALTY_NANOS);
+    }
+
     @Override
-    public String toString() {
+    public synchronized String toString() {
       return host.toString() + '=' + status;
     }
   }
@@ -15,9 +15,13 @@ import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * HostChooser that keeps track of known host statuses.
@@ -27,6 +31,7 @@ class MultiHostChooser implements HostChooser {
   private final HostRequirement targetServerType;
   private int hostRecheckTime;
   private boolean loadBalance;
+  private String loadBalanceStrategy;
 
   MultiHostChooser(HostSpec[] hostSpecs, HostRequirement targetServerType,
       Properties info) {
@@ -35,6 +40,7 @@ class MultiHostChooser implements HostChooser {
     try {
       hostRecheckTime = RedshiftProperty.HOST_RECHECK_SECONDS.getInt(info) * 1000;
       loadBalance = RedshiftProperty.LOAD_BALANCE_HOSTS.getBoolean(info);
+      loadBalanceStrategy = RedshiftProperty.LOAD_BALANCE_STRATEGY.get(info);
     } catch (RedshiftException e) {
       throw new RuntimeException(e);
     }
@@ -47,8 +53,7 @@ class MultiHostChooser implements HostChooser {
       // In case all the candidate hosts are unavailable or do not match, try all the hosts just in case
       List<HostSpec> allHosts = Arrays.asList(hostSpecs);
       if (loadBalance) {
-        allHosts = new ArrayList<HostSpec>(allHosts);
-        Collections.shuffle(allHosts);
+        allHosts = balance(new ArrayList<HostSpec>(allHosts));
       }
       res = withReqStatus(targetServerType, allHosts).iterator();
     }
@@ -88,11 +93,61 @@ class MultiHostChooser implements HostChooser {
     List<HostSpec> candidates =
         GlobalHostStatusTracker.getCandidateHosts(hostSpecs, hostRequirement, hostRecheckTime);
     if (loadBalance) {
-      shuffle(candidates);
+      candidates = balance(candidates);
     }
     return withReqStatus(hostRequirement, candidates);
   }
 
+  /**
+   * Orders the hosts according to the loadBalanceStrategy. The connect cost of each host is the
+   * moving average of its connect latency, penalized by its recent connect error rate.
+   */
+  private List<HostSpec> balance(List<HostSpec> hosts) {
+    shuffle(hosts);
+    if (hosts.size() < 2 || loadBalanceStrategy == null
+        || "random".equalsIgnoreCase(loadBalanceStrategy)) {
+      return hosts;
+    }
+
+    final Map<HostSpec, Long> costs = new HashMap<HostSpec, Long>();
+    for (HostSpec host : hosts) {
+      costs.put(host, GlobalHostStatusTracker.getConnectCost(host));
+    }
+
+    if ("leastLatency".equalsIgnoreCase(loadBalanceStrategy)) {
+      // The sort is stable, so hosts with the same cost stay shuffled
+      Collections.sort(hosts, new Comparator<HostSpec>() {
+        @Override
+        public int compare(HostSpec a, HostSpec b) {
+          return costs.get(a).compareTo(costs.get(b));
+        }
+      });
+      return hosts;
+    }
+
+    if ("powerOfTwoChoices".equalsIgnoreCase(loadBalanceStrategy)) {
+      // Each position gets the cheaper of two random remaining hosts, so a slow host is avoided
+      // without sending every client to the single fastest one
+      List<HostSpec> remaining = new ArrayList<HostSpec>(hosts);
+      List<HostSpec> ordered = new ArrayList<HostSpec>(hosts.size());
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      while (remaining.size() > 1) {
+        int first = random.nextInt(remaining.size());
+        int second = random.nextInt(remaining.size() - 1);
+        if (second >= first) {
+          second++;
+        }
+        int pick = costs.get(remaining.get(second)) < costs.get(remaining.get(first))
+            ? second : first;
+        ordered.add(remaining.remove(pick));
+      }
+      ordered.addAll(remaining);
+      return ordered;
+    }
+
+    return hosts;
+  }
+
   private List<CandidateHost> withReqStatus(final HostRequirement requirement, final List<HostSpec> hosts) {
     return new AbstractList<CandidateHost>() {
       @Override
@@ -1471,6 +1471,11 @@ public class MetadataAPIHelper {
     return ((BaseStatement) createMetaDataStatement()).createDriverResultSet(col, data);
   }
 
+  // Create forward only ResultSet reading its Tuple batches as the rows are needed
+  protected ResultSet createStreamingRs(Field[] col, MetadataResultSet.Batches<Tuple> batches) throws SQLException {
+    return new MetadataResultSet((BaseStatement) createMetaDataStatement(), col, batches);
+  }
+
   // Helper function for executing query
   protected ResultSet runQuery(String sql) throws SQLException{
     return createMetaDataStatement().executeQuery(sql);
@@ -91,6 +91,21 @@ public class MetadataAPIPostProcessor extends MetadataAPIHelper {
             return createRs(GET_TABLES_COLS, new ArrayList<>());
         }
 
+        return createRs(GET_TABLES_COLS, getTablesTuples(serverResultSets, types));
+    }
+
+    // Post-processing for metadata API getTables(), applied to each SHOW TABLES as the rows are read
+    protected ResultSet getTablesStreamingPostProcessing(final MetadataResultSet.Batches<ShowTablesInfo> serverBatches, final String[] types) throws SQLException {
+        if (RedshiftLogger.isEnable()) {
+            connection.getLogger().logDebug("Calling getTablesStreamingPostProcessing");
+        }
+        return createStreamingRs(GET_TABLES_COLS, () -> {
+            List<ShowTablesInfo> serverResultSets = serverBatches.next();
+            return serverResultSets == null ? null : getTablesTuples(serverResultSets, types);
+        });
+    }
+
+    private List<Tuple> getTablesTuples(List<ShowTablesInfo> serverResultSets, String[] types) throws SQLException {
         // Create a Tuple list to store the data row for final ResultSet
         List<Tuple> final_data = new ArrayList<>();
 
@@ -121,7 +136,7 @@ public class MetadataAPIPostProcessor extends MetadataAPIHelper {
                 final_data.add(new Tuple(tuple));
             }
         }
-        return createRs(GET_TABLES_COLS, final_data);
+        return final_data;
     }
 
     // Post-processing for metadata API getColumns()
@@ -134,6 +149,21 @@ public class MetadataAPIPostProcessor extends MetadataAPIHelper {
             return createRs(GET_COLUMNS_COLS, new ArrayList<>());
         }
 
+        return createRs(GET_COLUMNS_COLS, getColumnsTuples(serverResultSets));
+    }
+
+    // Post-processing for metadata API getColumns(), applied to each SHOW COLUMNS as the rows are read
+    protected ResultSet getColumnsStreamingPostProcessing(final MetadataResultSet.Batches<ShowColumnsInfo> serverBatches) throws SQLException {
+        if (RedshiftLogger.isEnable()) {
+            connection.getLogger().logDebug("Calling getColumnsStreamingPostProcessing");
+        }
+        return createStreamingRs(GET_COLUMNS_COLS, () -> {
+            List<ShowColumnsInfo> serverResultSets = serverBatches.next();
+            return serverResultSets == null ? null : getColumnsTuples(serverResultSets);
+        });
+    }
+
+    private List<Tuple> getColumnsTuples(List<ShowColumnsInfo> serverResultSets) throws SQLException {
         // Create a Tuple list to store the data row for final ResultSet
         List<Tuple> columnTuples = new ArrayList<>();
 
@@ -202,7 +232,7 @@ public class MetadataAPIPostProcessor extends MetadataAPIHelper {
             // Add the data row into the tuple list
             columnTuples.add(new Tuple(tuple));
         }
-        return createRs(GET_COLUMNS_COLS, columnTuples);
+        return columnTuples;
     }
 
     // Post-processing for metadata API getPrimaryKeys()
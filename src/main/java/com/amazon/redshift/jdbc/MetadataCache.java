@@ -0,0 +1,130 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.jdbc;
+
+import com.amazon.redshift.core.QueryExecutor;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per connection cache of the results of the SHOW commands issued by the metadata API.
+ *
+ * <p>BI tools call {@code getTables}, {@code getColumns} and {@code getPrimaryKeys} with the same
+ * arguments over and over, each call running the same SHOW commands on the server. With
+ * {@code databaseMetadataCacheTtl} set, the results of SHOW SCHEMAS, SHOW TABLES, SHOW COLUMNS and
+ * SHOW CONSTRAINTS PRIMARY KEY are kept for that many seconds, up to
+ * {@code databaseMetadataCacheSize} results, the least recently used being dropped first. The cache
+ * is cleared when a DDL command or a rollback completes on the connection. Changes made by other
+ * sessions are seen once the results expire.</p>
+ */
+class MetadataCache {
+
+    /**
+     * Runs the SHOW command on a miss.
+     */
+    interface Loader<T> {
+        List<T> load() throws SQLException;
+    }
+
+    private final QueryExecutor queryExecutor;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // Guarded by entries
+    private long schemaChangeCount;
+
+    MetadataCache(QueryExecutor queryExecutor, int ttlSeconds, final int maxEntries) {
+        this.queryExecutor = queryExecutor;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.schemaChangeCount = queryExecutor.getSchemaChangeCount();
+    }
+
+    /**
+     * Returns the cached result of a SHOW command, or runs it and caches the result.
+     *
+     * @param key the command and its arguments
+     * @param loader runs the command
+     * @param <T> the result type
+     * @return the result, which must not be modified
+     * @throws SQLException if the command fails
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<T> get(String key, Loader<T> loader) throws SQLException {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            long count = queryExecutor.getSchemaChangeCount();
+            if (count != schemaChangeCount) {
+                entries.clear();
+                schemaChangeCount = count;
+            }
+
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return (List<T>) entry.value;
+                }
+                entries.remove(key);
+            }
+        }
+
+        misses.incrementAndGet();
+        List<T> value = Collections.unmodifiableList(loader.load());
+
+        synchronized (entries) {
+            // Don't cache a result read before a change the connection made meanwhile
+            if (queryExecutor.getSchemaChangeCount() == schemaChangeCount) {
+                entries.put(key, new Entry(value, now + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops all the cached results.
+     */
+    void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return number of SHOW commands answered from the cache
+     */
+    long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of SHOW commands sent to the server
+     */
+    long getMissCount() {
+        return misses.get();
+    }
+
+    private static class Entry {
+        final List<?> value;
+        final long expiresAt;
+
+        Entry(List<?> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
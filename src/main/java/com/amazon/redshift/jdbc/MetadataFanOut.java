@@ -0,0 +1,237 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.jdbc;
+
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.util.RedshiftException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the SHOW commands of a metadata call over several connections at once.
+ *
+ * <p>The metadata API issues one SHOW command per catalog, schema or table, each a round trip to
+ * the server. With {@code databaseMetadataParallelism} set above 1, the commands of one phase are
+ * spread over the connection and up to {@code databaseMetadataParallelism - 1} auxiliary
+ * connections, opened on first use with the properties and the resolved IAM credentials of the
+ * connection, and closed with the connection. There are no auxiliary connections with identity
+ * provider token plugins, which would prompt the user again. Results are merged in the order of
+ * the commands, so that the metadata result sets are the same as when the commands run one at a
+ * time.</p>
+ *
+ * <p>Auxiliary connections do not see the uncommitted changes of the connection, so commands run
+ * one at a time on the connection when autocommit is off. When an auxiliary connection cannot be
+ * opened, the commands run on the connections already open.</p>
+ */
+class MetadataFanOut {
+
+    /**
+     * A SHOW command, run on the proxy of the connection it is given.
+     */
+    interface Task<T> {
+        List<T> run(MetadataServerProxy proxy) throws SQLException;
+    }
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Redshift JDBC driver metadata thread " + count.incrementAndGet());
+            thread.setDaemon(true); // Don't prevent the VM from shutting down
+            return thread;
+        }
+    });
+
+    private final RedshiftConnectionImpl connection;
+    private final Connection[] auxConnections;
+    private final MetadataServerProxy[] auxProxies;
+    private boolean closed;
+
+    MetadataFanOut(RedshiftConnectionImpl connection, int parallelism) {
+        this.connection = connection;
+        this.auxConnections = new Connection[parallelism - 1];
+        this.auxProxies = new MetadataServerProxy[parallelism - 1];
+    }
+
+    /**
+     * Runs the tasks, the first one on the calling thread with the connection proxy, the others on
+     * auxiliary connections.
+     *
+     * @param tasks the tasks
+     * @param proxy the proxy of the connection
+     * @param <T> the result type
+     * @return the results of the tasks, in the order of the tasks
+     * @throws SQLException if a task fails
+     */
+    synchronized <T> List<T> run(final List<Task<T>> tasks, MetadataServerProxy proxy) throws SQLException {
+        if (closed) {
+            throw new RedshiftException("Metadata fan-out is closed");
+        }
+
+        final List<List<T>> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(null);
+        }
+        final AtomicInteger next = new AtomicInteger();
+        final Worker<T> main = new Worker<>(-1, proxy, tasks, results, next);
+
+        int workers = Math.min(auxProxies.length, tasks.size() - 1);
+        List<Future<?>> futures = new ArrayList<>(workers);
+        List<Worker<T>> auxWorkers = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Worker<T> worker = new Worker<>(i, null, tasks, results, next);
+            auxWorkers.add(worker);
+            futures.add(executor.submit(worker));
+        }
+
+        main.run();
+
+        // Wait for all the workers, so that no auxiliary connection is in use once this returns
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // Stop taking tasks, the workers finish the running ones
+                    interrupted = true;
+                    next.set(tasks.size());
+                } catch (ExecutionException e) {
+                    // Workers catch their failures
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        SQLException failure = main.failure;
+        for (Worker<T> worker : auxWorkers) {
+            if (failure == null) {
+                failure = worker.failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        List<T> merged = new ArrayList<>();
+        synchronized (results) {
+            for (List<T> result : results) {
+                if (result == null) {
+                    throw new RedshiftException("Metadata fan-out was interrupted");
+                }
+                merged.addAll(result);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Closes the auxiliary connections.
+     */
+    synchronized void close() {
+        closed = true;
+        for (int i = 0; i < auxConnections.length; i++) {
+            if (auxConnections[i] != null) {
+                try {
+                    auxConnections[i].close();
+                } catch (SQLException e) {
+                    // Ignore
+                }
+                auxConnections[i] = null;
+                auxProxies[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Opens the auxiliary connection of a worker, if not already open.
+     *
+     * @param index the auxiliary connection index
+     * @return the proxy of the connection, or null if it could not be opened
+     */
+    private MetadataServerProxy getAuxProxy(int index) {
+        if (auxProxies[index] != null) {
+            return auxProxies[index];
+        }
+
+        try {
+            RedshiftConnectionImpl auxConnection = connection.openAuxiliaryConnection();
+            auxConnections[index] = auxConnection;
+            auxProxies[index] = new MetadataServerProxy(auxConnection, connection.getMetadataCache());
+
+            if (RedshiftLogger.isEnable()) {
+                connection.getLogger().log(LogLevel.DEBUG, "Opened auxiliary metadata connection {0}", index + 1);
+            }
+            return auxProxies[index];
+        } catch (SQLException e) {
+            if (RedshiftLogger.isEnable()) {
+                connection.getLogger().log(LogLevel.DEBUG, e, "Could not open auxiliary metadata connection {0}", index + 1);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Takes the next task until none is left, and stops at the first failure of any worker.
+     */
+    private class Worker<T> implements Runnable {
+        private final int index;
+        private final List<Task<T>> tasks;
+        private final List<List<T>> results;
+        private final AtomicInteger next;
+        private MetadataServerProxy proxy;
+        volatile SQLException failure;
+
+        Worker(int index, MetadataServerProxy proxy, List<Task<T>> tasks, List<List<T>> results, AtomicInteger next) {
+            this.index = index;
+            this.proxy = proxy;
+            this.tasks = tasks;
+            this.results = results;
+            this.next = next;
+        }
+
+        @Override
+        public void run() {
+            if (proxy == null) {
+                proxy = getAuxProxy(index);
+                if (proxy == null) {
+                    // The other workers take the tasks
+                    return;
+                }
+            }
+
+            int i;
+            while ((i = next.getAndIncrement()) < tasks.size()) {
+                try {
+                    List<T> result = tasks.get(i).run(proxy);
+                    synchronized (results) {
+                        results.set(i, result);
+                    }
+                } catch (SQLException e) {
+                    failure = e;
+                    next.set(tasks.size());
+                } catch (RuntimeException e) {
+                    failure = new RedshiftException("Metadata fan-out: " + e.getMessage(), e);
+                    next.set(tasks.size());
+                }
+            }
+        }
+    }
+}
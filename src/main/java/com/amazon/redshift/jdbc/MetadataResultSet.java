@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.jdbc;
+
+import com.amazon.redshift.core.BaseStatement;
+import com.amazon.redshift.core.Field;
+import com.amazon.redshift.core.Tuple;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forward only metadata result set, reading its rows one batch at a time.
+ *
+ * <p>The metadata API runs one SHOW command per schema or table, and used to hold the results of
+ * all of them, then all the rows built from them, before returning the result set. With
+ * {@code databaseMetadataStreaming} enabled, each batch of rows is the result of one SHOW command,
+ * run when the rows before it have been read. Only the current batch is held, and the first rows
+ * are returned as soon as the first command completes.</p>
+ */
+class MetadataResultSet extends RedshiftResultSet {
+
+    /**
+     * Batches of rows, read as they are needed.
+     */
+    interface Batches<T> {
+        /**
+         * @return the next batch, which may be empty, or null once all were read
+         * @throws SQLException if a database error occurs
+         */
+        List<T> next() throws SQLException;
+    }
+
+    // Null once all the batches were read
+    private Batches<Tuple> batches;
+
+    // Batch read ahead by isLast()
+    private List<Tuple> nextBatch;
+
+    MetadataResultSet(BaseStatement statement, Field[] fields, Batches<Tuple> batches) throws SQLException {
+        super(null, statement, fields, new ArrayList<Tuple>(), null, 0, 0, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY, statement.getResultSetHoldability(), null, null, null);
+        this.batches = batches;
+
+        // Run the first command now, so that its errors are thrown by the metadata call
+        List<Tuple> first = readBatch();
+        if (first != null) {
+            rows = first;
+        }
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        checkClosed();
+
+        if (!onInsertRow && currentRow + 1 >= rows.size()) {
+            List<Tuple> batch = readBatch();
+            if (batch != null) {
+                // Discard the rows already read
+                rowOffset += rows.size();
+                rows = batch;
+                currentRow = -1;
+            }
+        }
+        return super.next();
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkClosed();
+
+        if (!onInsertRow && !rows.isEmpty() && currentRow == rows.size() - 1 && nextBatch == null) {
+            // Read ahead to know if more rows follow
+            nextBatch = readBatch();
+            if (nextBatch != null) {
+                return false;
+            }
+        }
+        return nextBatch == null && super.isLast();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        batches = null;
+        nextBatch = null;
+        super.close();
+    }
+
+    /**
+     * @return the next batch of rows, skipping empty ones, or null if none is left
+     * @throws SQLException if a database error occurs
+     */
+    private List<Tuple> readBatch() throws SQLException {
+        if (nextBatch != null) {
+            List<Tuple> batch = nextBatch;
+            nextBatch = null;
+            return batch;
+        }
+
+        while (batches != null) {
+            List<Tuple> batch = batches.next();
+            if (batch == null) {
+                batches = null;
+            } else if (!batch.isEmpty()) {
+                return batch;
+            }
+        }
+        return null;
+    }
+}
@@ -14,8 +14,22 @@ import com.amazon.redshift.core.Utils;
 
 public class MetadataServerProxy extends MetadataAPIHelper {
 
+    // Results of the SHOW commands, or null if the cache is disabled
+    private final MetadataCache metadataCache;
+
     public MetadataServerProxy(RedshiftConnectionImpl connection) throws SQLException {
+        this(connection, connection.getMetadataCache());
+    }
+
+    /**
+     * @param connection the connection to run the SHOW commands on
+     * @param metadataCache the cache of the SHOW results, or null; auxiliary connections share the
+     *                      cache of the connection they run the commands for
+     * @throws SQLException if a database error occurs
+     */
+    MetadataServerProxy(RedshiftConnectionImpl connection, MetadataCache metadataCache) throws SQLException {
         super(connection);
+        this.metadataCache = metadataCache;
     }
 
     /**
@@ -57,9 +71,11 @@ public class MetadataServerProxy extends MetadataAPIHelper {
             // Get Catalog list
             List<String> catalogList = fetchCatalogNames(catalog, isSingleDatabaseMetaData);
 
+            List<MetadataFanOut.Task<ShowSchemasInfo>> tasks = new ArrayList<>();
             for (String curCatalog : catalogList) {
-                intermediateRs.addAll(callShowSchemas(curCatalog, schemaPattern, true));
+                tasks.add(proxy -> proxy.callShowSchemas(curCatalog, schemaPattern, true));
             }
+            intermediateRs.addAll(fanOut(tasks));
         } catch (SQLException e) {
             throw new RedshiftException("MetadataServerProxy.getSchemas: " + e.getMessage());
         }
@@ -87,18 +103,19 @@ public class MetadataServerProxy extends MetadataAPIHelper {
             // Get Catalog list
             List<String> catalogList = fetchCatalogNames(catalog, isSingleDatabaseMetaData);
 
-            for(String curCat : catalogList) {
-                // Get Schema list
-                List<ShowSchemasInfo> schemaList = callShowSchemas(curCat, schemaPattern, false);
-                for (ShowSchemasInfo curSchema : schemaList) {
-                    intermediateRs.addAll(callShowTables(
-                            curCat,
-                            curSchema.getSchemaName(),
-                            tableNamePattern,
-                            true
-                    ));
-                }
+            // Get Schema list
+            List<String[]> schemaList = fanOutSchemaNames(catalogList, schemaPattern);
+
+            List<MetadataFanOut.Task<ShowTablesInfo>> tasks = new ArrayList<>();
+            for (String[] curSchema : schemaList) {
+                tasks.add(proxy -> proxy.callShowTables(
+                        curSchema[0],
+                        curSchema[1],
+                        tableNamePattern,
+                        true
+                ));
             }
+            intermediateRs.addAll(fanOut(tasks));
         } catch (SQLException e) {
             throw new RedshiftException("MetadataServerProxy.getTables: " + e.getMessage());
         }
@@ -110,6 +127,35 @@ public class MetadataServerProxy extends MetadataAPIHelper {
         return intermediateRs;
     }
 
+    /**
+     * Returns the intermediate results of SHOW TABLES one schema at a time, running each command
+     * when its results are read
+     * @param catalog a catalog name; must match the catalog name as it is stored in the database; null means that the catalog name should not be used to narrow the search
+     * @param schemaPattern a schema name pattern; must match the schema name as it is stored in the database; null means that the schema name should not be used to narrow the search
+     * @param tableNamePattern a table name pattern; must match the table name as it is stored in the database
+     * @param isSingleDatabaseMetaData boolean to determine if we want to retrieve metadata information only from current connected database
+     * @return the batches of intermediate result set for SHOW TABLES
+     * @throws SQLException if a database error occurs
+     */
+    protected MetadataResultSet.Batches<ShowTablesInfo> streamTables(String catalog, String schemaPattern, String tableNamePattern,
+                                                                     boolean isSingleDatabaseMetaData) throws SQLException {
+        final Iterator<String[]> schemas;
+        try {
+            List<String> catalogList = fetchCatalogNames(catalog, isSingleDatabaseMetaData);
+            schemas = fanOutSchemaNames(catalogList, schemaPattern).iterator();
+        } catch (SQLException e) {
+            throw new RedshiftException("MetadataServerProxy.getTables: " + e.getMessage());
+        }
+
+        return () -> {
+            if (!schemas.hasNext()) {
+                return null;
+            }
+            String[] curSchema = schemas.next();
+            return callShowTables(curSchema[0], curSchema[1], tableNamePattern, true);
+        };
+    }
+
     /**
      * Returns a list of intermediate result set for SHOW COLUMNS
      * @param catalog a catalog name; must match the catalog name as it is stored in the database; null means that the catalog name should not be used to narrow the search
@@ -129,22 +175,32 @@ public class MetadataServerProxy extends MetadataAPIHelper {
             // Get Catalog list
             List<String> catalogList = fetchCatalogNames(catalog, isSingleDatabaseMetaData);
 
-            for(String curCat : catalogList){
-                // Get Schema list
-                List<ShowSchemasInfo> schemaList = callShowSchemas(curCat, schemaPattern, false);
-                for (ShowSchemasInfo curSchema : schemaList) {
-                    // Get Table list
-                    List<ShowTablesInfo> tableList = callShowTables(curCat, curSchema.getSchemaName(), tableNamePattern, false);
-                    for (ShowTablesInfo curTable : tableList) {
-                        intermediateRs.addAll(callShowColumns(
-                                curCat,
-                                curSchema.getSchemaName(),
-                                curTable.getTableName(),
-                                columnNamePattern
-                        ));
+            // Get Schema list
+            List<String[]> schemaList = fanOutSchemaNames(catalogList, schemaPattern);
+
+            // Get Table list
+            List<MetadataFanOut.Task<String[]>> tableTasks = new ArrayList<>();
+            for (String[] curSchema : schemaList) {
+                tableTasks.add(proxy -> {
+                    List<String[]> tableNames = new ArrayList<>();
+                    for (ShowTablesInfo curTable : proxy.callShowTables(curSchema[0], curSchema[1], tableNamePattern, false)) {
+                        tableNames.add(new String[] {curSchema[0], curSchema[1], curTable.getTableName()});
                     }
-                }
+                    return tableNames;
+                });
+            }
+            List<String[]> tableList = fanOut(tableTasks);
+
+            List<MetadataFanOut.Task<ShowColumnsInfo>> tasks = new ArrayList<>();
+            for (String[] curTable : tableList) {
+                tasks.add(proxy -> proxy.callShowColumns(
+                        curTable[0],
+                        curTable[1],
+                        curTable[2],
+                        columnNamePattern
+                ));
             }
+            intermediateRs.addAll(fanOut(tasks));
         } catch (SQLException e) {
             throw new RedshiftException("MetadataServerProxy.getColumns: " + e.getMessage());
         }
@@ -156,6 +212,46 @@ public class MetadataServerProxy extends MetadataAPIHelper {
         return intermediateRs;
     }
 
+    /**
+     * Returns the intermediate results of SHOW COLUMNS one table at a time, running each command
+     * when its results are read
+     * @param catalog a catalog name; must match the catalog name as it is stored in the database; null means that the catalog name should not be used to narrow the search
+     * @param schemaPattern a schema name pattern; must match the schema name as it is stored in the database; null means that the schema name should not be used to narrow the search
+     * @param tableNamePattern a table name pattern; must match the table name as it is stored in the database
+     * @param columnNamePattern a column name pattern; must match the column name as it is stored in the database
+     * @param isSingleDatabaseMetaData boolean to determine if we want to retrieve metadata information only from current connected database
+     * @return the batches of intermediate result set for SHOW COLUMNS
+     * @throws SQLException if a database error occurs
+     */
+    protected MetadataResultSet.Batches<ShowColumnsInfo> streamColumns(String catalog, String schemaPattern, String tableNamePattern,
+                                                                       String columnNamePattern, boolean isSingleDatabaseMetaData) throws SQLException {
+        final Iterator<String[]> schemas;
+        try {
+            List<String> catalogList = fetchCatalogNames(catalog, isSingleDatabaseMetaData);
+            schemas = fanOutSchemaNames(catalogList, schemaPattern).iterator();
+        } catch (SQLException e) {
+            throw new RedshiftException("MetadataServerProxy.getColumns: " + e.getMessage());
+        }
+
+        return new MetadataResultSet.Batches<ShowColumnsInfo>() {
+            private String[] curSchema;
+            private Iterator<ShowTablesInfo> tables = Collections.emptyIterator();
+
+            @Override
+            public List<ShowColumnsInfo> next() throws SQLException {
+                // SHOW TABLES for the next schema once the columns of its tables were read
+                while (!tables.hasNext()) {
+                    if (!schemas.hasNext()) {
+                        return null;
+                    }
+                    curSchema = schemas.next();
+                    tables = callShowTables(curSchema[0], curSchema[1], tableNamePattern, false).iterator();
+                }
+                return callShowColumns(curSchema[0], curSchema[1], tables.next().getTableName(), columnNamePattern);
+            }
+        };
+    }
+
     /**
      * Returns a list of intermediate result set for SHOW CONSTRAINTS PRIMARY KEY
      * @param catalog a catalog name; must match the catalog name as it is stored in the database; null means that the catalog name should not be used to narrow the search
@@ -751,6 +847,65 @@ public class MetadataServerProxy extends MetadataAPIHelper {
         }
     }
 
+    /**
+     * Runs the SHOW commands of one metadata phase, over auxiliary connections when
+     * {@code databaseMetadataParallelism} allows it and autocommit is on.
+     * @param tasks the SHOW commands to run
+     * @return the results of the commands, in the order of the commands
+     * @throws SQLException if a database error occurs
+     */
+    private <T> List<T> fanOut(List<MetadataFanOut.Task<T>> tasks) throws SQLException {
+        MetadataFanOut metadataFanOut = connection.getMetadataFanOut();
+        if (metadataFanOut != null && tasks.size() > 1 && connection.getAutoCommit()) {
+            if (RedshiftLogger.isEnable()) {
+                connection.getLogger().logDebug("Running {0} SHOW commands over auxiliary connections", tasks.size());
+            }
+            return metadataFanOut.run(tasks, this);
+        }
+
+        List<T> results = new ArrayList<>();
+        for (MetadataFanOut.Task<T> task : tasks) {
+            results.addAll(task.run(this));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the schemas matching a pattern in each catalog, as catalog and schema name pairs
+     * @param catalogList the catalog names
+     * @param schemaPattern the schema name pattern
+     * @return the catalog and schema name pairs, in the order of the catalogs
+     * @throws SQLException if a database error occurs
+     */
+    private List<String[]> fanOutSchemaNames(List<String> catalogList, String schemaPattern) throws SQLException {
+        List<MetadataFanOut.Task<String[]>> tasks = new ArrayList<>();
+        for (String curCat : catalogList) {
+            tasks.add(proxy -> {
+                List<String[]> schemaNames = new ArrayList<>();
+                for (ShowSchemasInfo curSchema : proxy.callShowSchemas(curCat, schemaPattern, false)) {
+                    schemaNames.add(new String[] {curCat, curSchema.getSchemaName()});
+                }
+                return schemaNames;
+            });
+        }
+        return fanOut(tasks);
+    }
+
+    /**
+     * Returns the cache key of a SHOW command
+     * @param command the command
+     * @param arguments the command arguments, which may be null
+     * @return the cache key
+     */
+    private static String cacheKey(String command, String... arguments) {
+        StringBuilder sb = new StringBuilder(command);
+        for (String argument : arguments) {
+            // Names may contain any character but NUL
+            sb.append('\0').append(argument);
+        }
+        return sb.toString();
+    }
+
     /**
      * Helper function to get a ResultSet for SHOW SCHEMAS
      * @param catalog The name of the catalog
@@ -760,6 +915,14 @@ public class MetadataServerProxy extends MetadataAPIHelper {
      * @throws SQLException if a database error occurs
      */
     protected List<ShowSchemasInfo> callShowSchemas(String catalog, String schemaPattern, boolean fullResult) throws SQLException {
+        if (metadataCache == null) {
+            return queryShowSchemas(catalog, schemaPattern, fullResult);
+        }
+        return metadataCache.get(cacheKey("SCHEMAS", catalog, schemaPattern, String.valueOf(fullResult)),
+                () -> queryShowSchemas(catalog, schemaPattern, fullResult));
+    }
+
+    private List<ShowSchemasInfo> queryShowSchemas(String catalog, String schemaPattern, boolean fullResult) throws SQLException {
         if(Utils.isNullOrEmpty(catalog)){
             throw new RedshiftException("Catalog is not allowed to be null or empty to call SHOW SCHEMAS");
         }
@@ -810,6 +973,14 @@ public class MetadataServerProxy extends MetadataAPIHelper {
      * @throws SQLException if a database error occurs
      */
     protected List<ShowTablesInfo> callShowTables(String catalog, String schema, String tableNamePattern, boolean fullResult) throws SQLException {
+        if (metadataCache == null) {
+            return queryShowTables(catalog, schema, tableNamePattern, fullResult);
+        }
+        return metadataCache.get(cacheKey("TABLES", catalog, schema, tableNamePattern, String.valueOf(fullResult)),
+                () -> queryShowTables(catalog, schema, tableNamePattern, fullResult));
+    }
+
+    private List<ShowTablesInfo> queryShowTables(String catalog, String schema, String tableNamePattern, boolean fullResult) throws SQLException {
         if(Utils.isNullOrEmpty(catalog)){
             throw new RedshiftException("Catalog is not allowed to be null or empty to call SHOW TABLES");
         }
@@ -869,6 +1040,14 @@ public class MetadataServerProxy extends MetadataAPIHelper {
      * @throws SQLException if a database error occurs
      */
     protected List<ShowColumnsInfo> callShowColumns(String catalog, String schema, String table, String columnNamePattern) throws SQLException {
+        if (metadataCache == null) {
+            return queryShowColumns(catalog, schema, table, columnNamePattern);
+        }
+        return metadataCache.get(cacheKey("COLUMNS", catalog, schema, table, columnNamePattern),
+                () -> queryShowColumns(catalog, schema, table, columnNamePattern));
+    }
+
+    private List<ShowColumnsInfo> queryShowColumns(String catalog, String schema, String table, String columnNamePattern) throws SQLException {
         if(Utils.isNullOrEmpty(catalog)){
             throw new RedshiftException("Catalog is not allowed to be null or empty to call SHOW COLUMNS");
         }
@@ -934,6 +1113,14 @@ public class MetadataServerProxy extends MetadataAPIHelper {
      * @throws SQLException if a database error occurs
      */
     protected List<ShowPrimaryKeysInfo> callShowConstraintsPrimaryKey(String catalog, String schema, String table) throws SQLException {
+        if (metadataCache == null) {
+            return queryShowConstraintsPrimaryKey(catalog, schema, table);
+        }
+        return metadataCache.get(cacheKey("PRIMARY KEYS", catalog, schema, table),
+                () -> queryShowConstraintsPrimaryKey(catalog, schema, table));
+    }
+
+    private List<ShowPrimaryKeysInfo> queryShowConstraintsPrimaryKey(String catalog, String schema, String table) throws SQLException {
 
         if(Utils.isNullOrEmpty(catalog)){
             throw new RedshiftException("Catalog is not allowed to be null or empty to call SHOW CONSTRAINTS PRIMARY KEY");
@@ -13,7 +13,9 @@ import com.amazon.redshift.core.BaseConnection;
 import com.amazon.redshift.core.BaseStatement;
 import com.amazon.redshift.core.CachedQuery;
 import com.amazon.redshift.core.ConnectionFactory;
+import com.amazon.redshift.core.ConnectionTimings;
 import com.amazon.redshift.core.Encoding;
+import com.amazon.redshift.core.EndpointCache;
 import com.amazon.redshift.core.IamHelper;
 import com.amazon.redshift.core.NativeAuthPluginHelper;
 import com.amazon.redshift.core.Oid;
@@ -32,11 +34,15 @@ import com.amazon.redshift.fastpath.Fastpath;
 import com.amazon.redshift.largeobject.LargeObjectManager;
 import com.amazon.redshift.logger.LogLevel;
 import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.metrics.Metric;
+import com.amazon.redshift.metrics.MetricsRegistry;
 import com.amazon.redshift.ssl.NonValidatingFactory;
+import com.amazon.redshift.core.v3.PreConnect;
 import com.amazon.redshift.core.v3.QueryExecutorImpl;
 import com.amazon.redshift.util.QuerySanitizer;
 import com.amazon.redshift.util.ByteConverter;
 import com.amazon.redshift.util.GT;
+import com.amazon.redshift.util.HashedWheelTimer;
 import com.amazon.redshift.util.HostSpec;
 import com.amazon.redshift.util.LruCache;
 import com.amazon.redshift.util.RedshiftBinaryObject;
@@ -85,6 +91,7 @@ import java.util.TimeZone;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Properties;
 
 public class RedshiftConnectionImpl implements BaseConnection {
@@ -130,6 +137,18 @@ public class RedshiftConnectionImpl implements BaseConnection {
   private boolean disableColumnSanitiser = false;
 
   private boolean disableIsValidQuery = false;
+
+  private boolean isValidSyncPing;
+
+  private int isValidTrustWindow;
+
+  // Connection validation metrics
+  private final AtomicLong validations = new AtomicLong();
+  private final AtomicLong validationRoundTrips = new AtomicLong();
+  private final AtomicLong validationNanos = new AtomicLong();
+
+  // Null unless enableMetrics is set
+  private MetricsRegistry metrics;
   
   protected Properties props;
   // Default statement prepare threshold.
@@ -168,8 +187,13 @@ public class RedshiftConnectionImpl implements BaseConnection {
   // Only instantiated if a task is actually scheduled.
   private volatile Timer cancelTimer = null;
 
+  private volatile HashedWheelTimer timeoutTimer = null;
+
 
   private final LruCache<FieldMetadata.Key, FieldMetadata> fieldMetadataCache;
+
+  // Set to null once released
+  private volatile SharedFieldMetadataCache sharedFieldMetadataCache;
   
   /**
    * The connection settings.
@@ -179,6 +203,27 @@ public class RedshiftConnectionImpl implements BaseConnection {
   private int reWriteBatchedInsertsSize;
   
   private boolean databaseMetadataCurrentDbOnly;
+
+  private int databaseMetadataParallelism;
+
+  private boolean databaseMetadataStreaming;
+
+  // Auxiliary connections of the metadata API, opened on first use
+  private MetadataFanOut metadataFanOut;
+
+  // How auxiliary connections log in, with the credentials this connection resolved. The
+  // properties are null when they cannot, with identity provider tokens.
+  private HostSpec[] auxiliaryHostSpecs;
+  private String auxiliaryUser;
+  private String auxiliaryDatabase;
+  private RedshiftProperties auxiliaryInfo;
+
+  private int databaseMetadataCacheTtl;
+
+  private int databaseMetadataCacheSize;
+
+  // Results of the SHOW commands of the metadata API
+  private MetadataCache metadataCache;
   
   public static String NON_VALIDATING_SSL_FACTORY = "org.postgresql.ssl.NonValidatingFactory";
 
@@ -220,6 +265,28 @@ public class RedshiftConnectionImpl implements BaseConnection {
   		logger.log(LogLevel.DEBUG, "  setFlushCacheOnDeallocate = {0}", flushCacheOnDeallocate);
   }
 
+  /**
+   * Starts the TCP connection and TLS handshake while the credentials are fetched, when the host
+   * is known before authenticating. With an auth profile, the host and SSL settings may come from
+   * the profile, so the connection is not started early.
+   *
+   * @return the pre-connect, or null if the connection is opened after getting the credentials
+   */
+  private PreConnect startPreConnect(HostSpec[] hostSpecs, RedshiftProperties info,
+      ConnectionTimings timings) {
+    if (hostSpecs == null || hostSpecs.length != 1
+        || !RedshiftProperty.PRE_CONNECT.getBoolean(info)
+        || RedshiftProperty.AUTH_PROFILE.get(info) != null) {
+      return null;
+    }
+
+    PreConnect preConnect = ConnectionFactory.preConnect(hostSpecs[0], info, logger, timings);
+    if (preConnect != null) {
+      timings.setOverlapped();
+    }
+    return preConnect;
+  }
+
   //
   // Ctor.
   //
@@ -240,6 +307,8 @@ public class RedshiftConnectionImpl implements BaseConnection {
     RedshiftProperties.evaluateProperties(info);
 
     m_settings = new RedshiftJDBCSettings();
+    ConnectionTimings timings = new ConnectionTimings();
+    PreConnect preConnect = null;
     
     // IAM 
     boolean sslExplicitlyDisabled = setAuthMech(info);
@@ -277,7 +346,18 @@ public class RedshiftConnectionImpl implements BaseConnection {
 
       
        if(!redshiftNativeAuth) {
-      	info = IamHelper.setIAMProperties(info, m_settings, logger);
+      	// The server does not need the credentials before the startup message
+      	preConnect = startPreConnect(hostSpecs, info, timings);
+      	long credentialsStart = System.nanoTime();
+      	boolean gotCredentials = false;
+      	try {
+      		info = IamHelper.setIAMProperties(info, m_settings, logger);
+      		gotCredentials = true;
+      	} finally {
+      		timings.record(ConnectionTimings.Phase.CREDENTIALS, System.nanoTime() - credentialsStart);
+      		if (!gotCredentials && preConnect != null)
+      			preConnect.close();
+      	}
   
   //      if (RedshiftLogger.isEnable())
   //        logger.log(LogLevel.DEBUG, "info after setIAMProperties" + info);
@@ -323,10 +403,23 @@ public class RedshiftConnectionImpl implements BaseConnection {
         }
 
         // Call OAuth2 plugin and get the access token
-        info = NativeAuthPluginHelper.setNativeAuthPluginProperties(info, m_settings, logger);
+        preConnect = startPreConnect(hostSpecs, info, timings);
+        long credentialsStart = System.nanoTime();
+        boolean gotCredentials = false;
+        try {
+          info = NativeAuthPluginHelper.setNativeAuthPluginProperties(info, m_settings, logger);
+          gotCredentials = true;
+        } finally {
+          timings.record(ConnectionTimings.Phase.CREDENTIALS, System.nanoTime() - credentialsStart);
+          if (!gotCredentials && preConnect != null) {
+            preConnect.close();
+          }
+        }
       }
     }
     
+    setAuxiliaryConnectionInfo(hostSpecs, user, database, info, redshiftNativeAuth);
+
     this.creatingURL = url;
 
     this.readOnlyBehavior = getReadOnlyBehavior(RedshiftProperty.READ_ONLY_MODE.get(info));
@@ -344,7 +437,30 @@ public class RedshiftConnectionImpl implements BaseConnection {
     setGeneratedName(RedshiftProperty.ENABLE_GENERATED_NAME_FOR_PREPARED_STATEMENT.getBoolean(info));
     
     // Now make the initial connection and set up local state
-    this.queryExecutor = ConnectionFactory.openConnection(hostSpecs, user, database, info, logger);
+    try {
+      this.queryExecutor = ConnectionFactory.openConnection(hostSpecs, user, database, info, logger,
+          preConnect, timings);
+    } catch (SQLException e) {
+      // The host may have come from a stale cached endpoint, unlike an authentication failure
+      String sqlState = e.getSQLState();
+      if (sqlState != null && sqlState.startsWith("08")) {
+        EndpointCache.invalidate(m_settings, logger);
+      }
+      throw e;
+    } finally {
+      if (preConnect != null) {
+        // No-op if the connection used the pre-connected stream
+        preConnect.close();
+      }
+    }
+    timings.connectionOpened(logger);
+
+    if (RedshiftProperty.ENABLE_METRICS.getBoolean(info)) {
+      metrics = MetricsRegistry.newConnectionRegistry(logger);
+      metrics.increment(Metric.CONNECTIONS_OPENED);
+      recordConnectTimings(timings);
+      queryExecutor.setMetrics(metrics);
+    }
 
     setSessionReadOnly = createQuery("SET readonly=1", false, true); // SET SESSION CHARACTERISTICS AS TRANSACTION READ ONLY
     setSessionNotReadOnly = createQuery("SET readonly=0", false, true); // SET SESSION CHARACTERISTICS AS TRANSACTION READ WRITE
@@ -356,6 +472,14 @@ public class RedshiftConnectionImpl implements BaseConnection {
     
     this.databaseMetadataCurrentDbOnly = RedshiftProperty.DATABASE_METADATA_CURRENT_DB_ONLY.getBoolean(info);
 
+    this.databaseMetadataParallelism = RedshiftProperty.DATABASE_METADATA_PARALLELISM.getInt(info);
+
+    this.databaseMetadataStreaming = RedshiftProperty.DATABASE_METADATA_STREAMING.getBoolean(info);
+
+    this.databaseMetadataCacheTtl = RedshiftProperty.DATABASE_METADATA_CACHE_TTL.getInt(info);
+
+    this.databaseMetadataCacheSize = RedshiftProperty.DATABASE_METADATA_CACHE_SIZE.getInt(info);
+
     this.hideUnprivilegedObjects = RedshiftProperty.HIDE_UNPRIVILEGED_OBJECTS.getBoolean(info);
 
     this.overrideSchemaPatternType = RedshiftProperty.OVERRIDE_SCHEMA_PATTERN_TYPE.getInteger(info);
@@ -369,12 +493,6 @@ public class RedshiftConnectionImpl implements BaseConnection {
 
     Set<Integer> useBinaryReceiveForOids = new HashSet<Integer>(binaryOids);
 
-    /*
-     * Does not pass unit tests because unit tests expect setDate to have millisecond accuracy
-     * whereas the binary transfer only supports date accuracy.
-     */
-    useBinarySendForOids.remove(Oid.DATE);
-
     queryExecutor.setBinaryReceiveOids(useBinaryReceiveForOids);
     queryExecutor.setBinarySendOids(useBinarySendForOids);
 
@@ -432,6 +550,8 @@ public class RedshiftConnectionImpl implements BaseConnection {
     }
     this.disableColumnSanitiser = RedshiftProperty.DISABLE_COLUMN_SANITISER.getBoolean(info);
     this.disableIsValidQuery = RedshiftProperty.DISABLE_ISVALID_QUERY.getBoolean(info);    	
+    this.isValidSyncPing = RedshiftProperty.ISVALID_SYNC_PING.getBoolean(info);
+    this.isValidTrustWindow = RedshiftProperty.ISVALID_TRUST_WINDOW.getInt(info);
 
 
 /*    if (haveMinimumServerVersion(ServerVersion.v8_3)) {
@@ -453,6 +573,18 @@ public class RedshiftConnectionImpl implements BaseConnection {
             Math.max(0, RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS.getInt(info)),
             Math.max(0, RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_MIB.getInt(info) * 1024 * 1024),
         false);
+
+    if (RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_SHARED.getBoolean(info)) {
+      // Table OIDs are only unique within a database, and users see different catalogs
+      sharedFieldMetadataCache = SharedFieldMetadataCache.acquire(
+          queryExecutor.getHostSpec() + "/" + queryExecutor.getDatabase() + "/"
+              + queryExecutor.getUser(),
+          Math.max(0, RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS.getInt(info)),
+          Math.max(0, RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_MIB.getInt(info) * 1024 * 1024),
+          Math.max(0, RedshiftProperty.DATABASE_METADATA_CACHE_FIELDS_TTL.getInt(info)));
+    } else {
+      sharedFieldMetadataCache = null;
+    }
   }
 
   private static ReadOnlyBehavior getReadOnlyBehavior(String property) {
@@ -613,6 +745,33 @@ public class RedshiftConnectionImpl implements BaseConnection {
 
   }
 
+  private void recordConnectTimings(ConnectionTimings timings) {
+    metrics.record(Metric.CONNECT, timings.getTotalNanos());
+    recordConnectPhase(Metric.CONNECT_CREDENTIALS, timings, ConnectionTimings.Phase.CREDENTIALS);
+    recordConnectPhase(Metric.CONNECT_TCP, timings, ConnectionTimings.Phase.TCP_CONNECT);
+    recordConnectPhase(Metric.CONNECT_TLS, timings, ConnectionTimings.Phase.TLS_HANDSHAKE);
+    recordConnectPhase(Metric.CONNECT_AUTHENTICATION, timings,
+        ConnectionTimings.Phase.AUTHENTICATION);
+    recordConnectPhase(Metric.CONNECT_SESSION_SETUP, timings, ConnectionTimings.Phase.SESSION_SETUP);
+  }
+
+  private void recordConnectPhase(Metric metric, ConnectionTimings timings,
+      ConnectionTimings.Phase phase) {
+    long nanos = timings.getNanos(phase);
+    // Don't count the phases that did not run, such as TLS without SSL
+    if (nanos > 0) {
+      metrics.record(metric, nanos);
+    }
+  }
+
+  /**
+   * @return the metrics of this connection, or null if {@code enableMetrics} is not set
+   * @see RedshiftProperty#ENABLE_METRICS
+   */
+  public MetricsRegistry getMetrics() {
+    return metrics;
+  }
+
   @Override
   public ResultSet execSQLQuery(String s) throws SQLException {
     return execSQLQuery(s, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
@@ -906,6 +1065,21 @@ public class RedshiftConnectionImpl implements BaseConnection {
       return;
     }
     releaseTimer();
+    MetadataFanOut fanOut;
+    SharedFieldMetadataCache sharedCache;
+    synchronized (this) {
+      fanOut = metadataFanOut;
+      sharedCache = sharedFieldMetadataCache;
+      sharedFieldMetadataCache = null;
+    }
+    if (sharedCache != null) {
+      sharedCache.release();
+    }
+    if (fanOut != null) {
+      // Waits for a running metadata call
+      fanOut.close();
+    }
+    closeMetrics();
     queryExecutor.close();
     openStackTrace = null;
     
@@ -951,6 +1125,101 @@ public class RedshiftConnectionImpl implements BaseConnection {
   public boolean isDatabaseMetadataCurrentDbOnly() {
   	return databaseMetadataCurrentDbOnly;
   }
+
+  public boolean isDatabaseMetadataStreaming() {
+    return databaseMetadataStreaming;
+  }
+
+  /**
+   * @return the auxiliary connections of the metadata API, or null if
+   *         {@code databaseMetadataParallelism} is 1 or less
+   */
+  synchronized MetadataFanOut getMetadataFanOut() {
+    if (metadataFanOut == null && databaseMetadataParallelism > 1 && auxiliaryInfo != null) {
+      metadataFanOut = new MetadataFanOut(this, databaseMetadataParallelism);
+    }
+    return metadataFanOut;
+  }
+
+  private void setAuxiliaryConnectionInfo(HostSpec[] hostSpecs, String user, String database,
+      RedshiftProperties info, boolean redshiftNativeAuth) {
+    if (RedshiftProperty.DATABASE_METADATA_PARALLELISM.getIntNoCheck(info) <= 1) {
+      return;
+    }
+    if (redshiftNativeAuth) {
+      // The identity provider would be asked again for each auxiliary connection, with a browser
+      // prompt for the interactive plugins
+      if (RedshiftLogger.isEnable())
+        logger.log(LogLevel.DEBUG, "databaseMetadataParallelism ignored with an identity provider token plugin");
+      return;
+    }
+
+    auxiliaryHostSpecs = hostSpecs;
+    auxiliaryUser = user;
+    auxiliaryDatabase = database;
+    auxiliaryInfo = new RedshiftProperties();
+    auxiliaryInfo.putAll(info);
+    if (m_settings.m_iamAuth) {
+      // Log in with the temporary database credentials instead of calling IAM again
+      auxiliaryInfo.setProperty(RedshiftProperty.IAM_AUTH.getName(), "false");
+      auxiliaryInfo.remove(RedshiftProperty.CREDENTIALS_PROVIDER.getName());
+    }
+  }
+
+  /**
+   * Opens an auxiliary connection of the metadata API. It logs in with the credentials this
+   * connection resolved, so IAM and identity providers are not called again.
+   *
+   * @return the connection
+   * @throws SQLException if the connection fails, such as once temporary credentials expired
+   */
+  RedshiftConnectionImpl openAuxiliaryConnection() throws SQLException {
+    RedshiftProperties info = new RedshiftProperties();
+    info.putAll(auxiliaryInfo);
+    return new RedshiftConnectionImpl(auxiliaryHostSpecs, auxiliaryUser, auxiliaryDatabase, info,
+        creatingURL, logger);
+  }
+
+  /**
+   * @return the cache of the SHOW command results of the metadata API, or null if
+   *         {@code databaseMetadataCacheTtl} is 0
+   */
+  synchronized MetadataCache getMetadataCache() {
+    if (metadataCache == null && databaseMetadataCacheTtl > 0 && databaseMetadataCacheSize > 0) {
+      metadataCache = new MetadataCache(queryExecutor, databaseMetadataCacheTtl, databaseMetadataCacheSize);
+    }
+    return metadataCache;
+  }
+
+  /**
+   * @return number of metadata SHOW commands answered from the cache of this connection
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_TTL
+   */
+  public long getDatabaseMetadataCacheHits() {
+    MetadataCache cache = getMetadataCache();
+    return cache == null ? 0 : cache.getHitCount();
+  }
+
+  /**
+   * @return number of metadata SHOW commands this connection sent to the server while the cache
+   *         was enabled
+   * @see RedshiftProperty#DATABASE_METADATA_CACHE_TTL
+   */
+  public long getDatabaseMetadataCacheMisses() {
+    MetadataCache cache = getMetadataCache();
+    return cache == null ? 0 : cache.getMissCount();
+  }
+
+  /**
+   * Drops the SHOW command results cached by the metadata API, so that the next calls read the
+   * catalog again.
+   */
+  public void clearDatabaseMetadataCache() {
+    MetadataCache cache = getMetadataCache();
+    if (cache != null) {
+      cache.invalidate();
+    }
+  }
   
   @Override
   public void setReadOnly(boolean readOnly) throws SQLException {
@@ -1432,6 +1701,20 @@ public class RedshiftConnectionImpl implements BaseConnection {
 
   protected void abort() {
     queryExecutor.abort();
+    // The connection is closed, the application may not call close()
+    closeMetrics();
+  }
+
+  private void closeMetrics() {
+    if (metrics != null && !metrics.isClosed()) {
+      if (!queryExecutor.isClosed()) {
+        // Not counted when the connection was aborted or broken
+        metrics.add(Metric.BYTES_READ, getBytesReadFromStream());
+      }
+      metrics.increment(Metric.CONNECTIONS_CLOSED);
+      // Always unregistered, so that broken connections don't leak their MBean
+      metrics.close();
+    }
   }
 
   private synchronized Timer getTimer() {
@@ -1446,6 +1729,17 @@ public class RedshiftConnectionImpl implements BaseConnection {
       cancelTimer = null;
       Driver.getSharedTimer().releaseTimer();
     }
+    if (timeoutTimer != null) {
+      timeoutTimer = null;
+      Driver.getSharedTimer().releaseWheelTimer();
+    }
+  }
+
+  private synchronized HashedWheelTimer getTimeoutTimer() {
+    if (timeoutTimer == null) {
+      timeoutTimer = Driver.getSharedTimer().getWheelTimer();
+    }
+    return timeoutTimer;
   }
 
   @Override
@@ -1454,6 +1748,15 @@ public class RedshiftConnectionImpl implements BaseConnection {
     timer.schedule(timerTask, milliSeconds);
   }
 
+  @Override
+  public void addTimeout(HashedWheelTimer.Task task, long milliSeconds) {
+    HashedWheelTimer timer = timeoutTimer;
+    if (timer == null) {
+      timer = getTimeoutTimer();
+    }
+    timer.schedule(task, milliSeconds);
+  }
+
   @Override
   public void purgeTimerTasks() {
     Timer timer = cancelTimer;
@@ -1478,6 +1781,11 @@ public class RedshiftConnectionImpl implements BaseConnection {
     return fieldMetadataCache;
   }
 
+  @Override
+  public SharedFieldMetadataCache getSharedFieldMetadataCache() {
+    return sharedFieldMetadataCache;
+  }
+
 
   private static void appendArray(StringBuilder sb, Object elements, char delim) {
     sb.append('{');
@@ -1715,13 +2023,25 @@ public class RedshiftConnectionImpl implements BaseConnection {
     if (isClosed()) {
       return false;
     }
+    long start = System.nanoTime();
+    boolean roundTrip = false;
     try {
+        // The server answered a moment ago and sent nothing since
+        if (isValidTrustWindow > 0 && queryExecutor.isRecentlyResponsive(isValidTrustWindow))
+          return true;
+
         if (!disableIsValidQuery)
         {
+          roundTrip = true;
           int savedNetworkTimeOut = getNetworkTimeout();
           try
           {
             setNetworkTimeout(null, timeout * 1000);
+            if (isValidSyncPing)
+            {
+              queryExecutor.sendSyncPing();
+              return true;
+            }
             PreparedStatement checkConnectionQuery;
             synchronized (this)
             {
@@ -1747,10 +2067,44 @@ public class RedshiftConnectionImpl implements BaseConnection {
       
       if(RedshiftLogger.isEnable())    
           logger.log(LogLevel.DEBUG, GT.tr("Validating connection."), e);
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      validations.incrementAndGet();
+      validationNanos.addAndGet(elapsed);
+      if (metrics != null) {
+        metrics.record(Metric.VALIDATION, elapsed);
+      }
+      if (roundTrip) {
+        validationRoundTrips.incrementAndGet();
+      }
+      if (RedshiftLogger.isEnable())
+        logger.log(LogLevel.DEBUG, "isValid took {0} us, round trip: {1}", elapsed / 1000, roundTrip);
     }
     return false;
   }
 
+  /**
+   * @return number of isValid calls on this connection
+   */
+  public long getValidationCount() {
+    return validations.get();
+  }
+
+  /**
+   * @return number of isValid calls that checked the connection with the server
+   * @see RedshiftProperty#ISVALID_TRUST_WINDOW
+   */
+  public long getValidationRoundTripCount() {
+    return validationRoundTrips.get();
+  }
+
+  /**
+   * @return total time spent in isValid on this connection, in nanoseconds
+   */
+  public long getValidationTotalNanos() {
+    return validationNanos.get();
+  }
+
   @Override
   public void setClientInfo(String name, String value) throws SQLClientInfoException {
     try {
@@ -1749,7 +1749,11 @@ public class RedshiftDatabaseMetaData implements DatabaseMetaData {
       return metadataAPIPostProcessor.getTablesPostProcessing(null, types);
     }
 
-    rs = metadataAPIPostProcessor.getTablesPostProcessing(metadataServerProxy.getTables(catalog, schemaPattern, tableNamePattern, isSingleDatabaseMetaData()), types);
+    if (connection.isDatabaseMetadataStreaming()) {
+      rs = metadataAPIPostProcessor.getTablesStreamingPostProcessing(metadataServerProxy.streamTables(catalog, schemaPattern, tableNamePattern, isSingleDatabaseMetaData()), types);
+    } else {
+      rs = metadataAPIPostProcessor.getTablesPostProcessing(metadataServerProxy.getTables(catalog, schemaPattern, tableNamePattern, isSingleDatabaseMetaData()), types);
+    }
 
     if (RedshiftLogger.isEnable()) {
       connection.getLogger().logFunction(false, rs);
@@ -2281,8 +2285,13 @@ public class RedshiftDatabaseMetaData implements DatabaseMetaData {
       return metadataAPIPostProcessor.getColumnsPostProcessing(null);
     }
 
-    rs = metadataAPIPostProcessor.getColumnsPostProcessing(metadataServerProxy.getColumns(catalog, schemaPattern, tableNamePattern,
-            columnNamePattern, isSingleDatabaseMetaData()));
+    if (connection.isDatabaseMetadataStreaming()) {
+      rs = metadataAPIPostProcessor.getColumnsStreamingPostProcessing(metadataServerProxy.streamColumns(catalog, schemaPattern, tableNamePattern,
+              columnNamePattern, isSingleDatabaseMetaData()));
+    } else {
+      rs = metadataAPIPostProcessor.getColumnsPostProcessing(metadataServerProxy.getColumns(catalog, schemaPattern, tableNamePattern,
+              columnNamePattern, isSingleDatabaseMetaData()));
+    }
 
     if (RedshiftLogger.isEnable()) {
       connection.getLogger().logFunction(false, rs);
@@ -6,6 +6,7 @@
 package com.amazon.redshift.jdbc;
 
 import com.amazon.redshift.Driver;
+import com.amazon.redshift.RedshiftStatement;
 import com.amazon.redshift.core.BaseConnection;
 import com.amazon.redshift.core.CachedQuery;
 import com.amazon.redshift.core.Oid;
@@ -1205,6 +1206,21 @@ public class RedshiftPreparedStatement extends RedshiftStatementImpl implements
     preparedParameters.setBinaryParameter(paramIndex, b, oid);
   }
 
+  /**
+   * Returns the type of the given parameter as known from the last time this statement was
+   * prepared, which is the server resolved type once the statement has been described.
+   *
+   * @param paramIndex parameter index
+   * @return type oid, or {@link Oid#UNSPECIFIED} when not known
+   */
+  private int getPrepareType(int paramIndex) {
+    int[] prepareTypes = preparedQuery.query.getPrepareTypes();
+    if (prepareTypes == null || paramIndex < 1 || paramIndex > prepareTypes.length) {
+      return Oid.UNSPECIFIED;
+    }
+    return prepareTypes[paramIndex - 1];
+  }
+
   /**
    * This version is for values that should turn into strings e.g. setString directly calls
    * bindString with no escaping; the per-protocol ParameterList does escaping as needed.
@@ -1496,7 +1512,13 @@ public class RedshiftPreparedStatement extends RedshiftStatementImpl implements
       return;
     }
 
-    if (connection.binaryTransferSend(Oid.DATE)) {
+    // Binary date only has day accuracy, so it is used only once the server has described the
+    // parameter as a date. Until then the value goes as text with an unspecified type, which
+    // keeps the time part when the target turns out to be a timestamp.
+    if (connection.binaryTransferSend(Oid.DATE)
+        && getPrepareType(i) == Oid.DATE
+        && d.getTime() != RedshiftStatement.DATE_POSITIVE_INFINITY
+        && d.getTime() != RedshiftStatement.DATE_NEGATIVE_INFINITY) {
       byte[] val = new byte[4];
       TimeZone tz = cal != null ? cal.getTimeZone() : null;
       connection.getTimestampUtils().toBinDate(tz, val, d);
@@ -1621,6 +1643,13 @@ public class RedshiftPreparedStatement extends RedshiftStatementImpl implements
   //JCP! if mvn.project.property.redshift.jdbc.spec >= "JDBC4.2"
   private void setDate(int i, LocalDate localDate) throws SQLException {
     int oid = Oid.DATE;
+    if (connection.binaryTransferSend(oid)) {
+      byte[] val = new byte[4];
+      if (connection.getTimestampUtils().toBinDate(val, localDate)) {
+        bindBytes(i, val, oid);
+        return;
+      }
+    }
     bindString(i, connection.getTimestampUtils().toString(localDate), oid);
   }
 
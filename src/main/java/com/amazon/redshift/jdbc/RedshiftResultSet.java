@@ -22,6 +22,7 @@ import com.amazon.redshift.core.v3.MessageLoopState;
 import com.amazon.redshift.core.v3.RedshiftRowsBlockingQueue;
 import com.amazon.redshift.logger.LogLevel;
 import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.tracing.QueryTrace;
 import com.amazon.redshift.util.ByteConverter;
 import com.amazon.redshift.util.GT;
 import com.amazon.redshift.util.HStoreConverter;
@@ -105,6 +106,10 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   private int fetchdirection = ResultSet.FETCH_UNKNOWN;
   private TimeZone defaultTimeZone;
   protected final BaseConnection connection; // the connection we belong to
+  
+  // True if the connection logs the column reads, checked by the getters instead of the driver
+  // wide RedshiftLogger.isEnable()
+  private final boolean logColumnReads;
   protected final BaseStatement statement; // the statement we belong to
   protected final Field[] fields; // Field metadata for this resultset.
   protected final Query originalQuery; // Query we originated from
@@ -163,6 +168,8 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
     this.originalQuery = originalQuery;
     this.connection = (BaseConnection) statement.getConnection();
+    this.logColumnReads = RedshiftLogger.isEnable()
+        && connection.getLogger().isLoggable(LogLevel.DEBUG);
     this.statement = statement;
     this.fields = fields;
     this.rows = tuples;
@@ -198,7 +205,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
   
   public java.net.URL getURL(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getURL columnIndex: {0}", columnIndex);
     checkClosed();
     throw com.amazon.redshift.Driver.notImplemented(this.getClass(), "getURL(int)");
@@ -2091,7 +2098,15 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
     if (queueRows != null) {
       currentRow = 0;
       try {
-				thisRow = queueRows.take();
+				QueryTrace trace = queueRows.getTrace();
+				if (trace != null && queueRows.isEmpty()) {
+					// Waits for the ring buffer thread to receive rows
+					long waitStart = System.nanoTime();
+					thisRow = queueRows.take();
+					trace.rowsAwaited(System.nanoTime() - waitStart);
+				}
+				else
+					thisRow = queueRows.take();
 				if (thisRow == null
 						|| thisRow.fieldCount() == 0) {
 					// End of result
@@ -2188,8 +2203,8 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
       return false; // End of the resultset.
     }
   	
-    // Calculate fetch size based on max rows.
-    int fetchRows = fetchSize;
+    // Calculate fetch size based on the rows read so far and max rows.
+    int fetchRows = queueRows.getAdaptiveFetchSize(fetchSize);
     if (maxRows != 0) {
       if (fetchRows == 0 || rowCount + fetchRows > maxRows) {
         // Fetch would exceed maxRows, limit it.
@@ -2304,7 +2319,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   
   @Override
   public String getString(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getString columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2429,7 +2444,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
    */
   @Override
   public boolean getBoolean(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getBoolean columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2470,7 +2485,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
   @Override
   public byte getByte(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getByte columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2521,7 +2536,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
   @Override
   public short getShort(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getShort columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2543,7 +2558,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
   @Override
   public int getInt(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getInt columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2572,7 +2587,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
   @Override
   public long getLong(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getLong columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2787,7 +2802,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
   @Override
   public float getFloat(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getFloat columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2809,7 +2824,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
   @Override
   public double getDouble(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getDouble columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2830,7 +2845,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getBigDecimal columnIndex: {0}", columnIndex);
     
     return (BigDecimal) getNumeric(columnIndex, scale, false);
@@ -2913,7 +2928,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
    */
   @Override
   public byte[] getBytes(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getBytes columnIndex: {0}", columnIndex);
     
     checkResultSet(columnIndex);
@@ -2942,25 +2957,25 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public java.sql.Date getDate(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getDate columnIndex: {0}", columnIndex);
     return getDate(columnIndex, null);
   }
 
   public Time getTime(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getTime columnIndex: {0}", columnIndex);
     return getTime(columnIndex, null);
   }
 
   public Timestamp getTimestamp(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getTimestamp columnIndex: {0}", columnIndex);
     return getTimestamp(columnIndex, null);
   }
 
   public RedshiftIntervalYearToMonth getIntervalYearToMonth(int columnIndex) throws SQLException{
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
       connection.getLogger().log(LogLevel.DEBUG, "  getIntervalYearToMonth columnIndex: {0}", columnIndex);
 
     checkResultSet(columnIndex);
@@ -2977,7 +2992,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public RedshiftIntervalDayToSecond getIntervalDayToSecond(int columnIndex) throws SQLException{
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
       connection.getLogger().log(LogLevel.DEBUG, "  getIntervalDayToSecond columnIndex: {0}", columnIndex);
 
     checkResultSet(columnIndex);
@@ -2994,7 +3009,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public InputStream getAsciiStream(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable()) 
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getAsciiStream columnIndex: {0}", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
@@ -3016,7 +3031,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public InputStream getUnicodeStream(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getUnicodeStream columnIndex: {0}", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
@@ -3038,7 +3053,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public InputStream getBinaryStream(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getBinaryStream columnIndex: {0}", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
@@ -3160,7 +3175,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
 
   @Override
   public Object getObject(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getObject columnIndex: {0}", columnIndex);
     Field field;
 
@@ -4159,7 +4174,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   //JCP! endif
 
   public RowId getRowId(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable()) 
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getRowId columnIndex: {0}", columnIndex);
     throw com.amazon.redshift.Driver.notImplemented(this.getClass(), "getRowId(int)");
   }
@@ -4217,7 +4232,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public NClob getNClob(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getNClob columnIndex: {0}", columnIndex);
     throw com.amazon.redshift.Driver.notImplemented(this.getClass(), "getNClob(int)");
   }
@@ -4262,7 +4277,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public SQLXML getSQLXML(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getSQLXML columnIndex: {0}", columnIndex);
     String data = getString(columnIndex);
     if (data == null) {
@@ -4285,7 +4300,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public String getNString(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getNString columnIndex: {0}", columnIndex);
     throw com.amazon.redshift.Driver.notImplemented(this.getClass(), "getNString(int)");
   }
@@ -4295,7 +4310,7 @@ public class RedshiftResultSet implements ResultSet, com.amazon.redshift.Redshif
   }
 
   public Reader getNCharacterStream(int columnIndex) throws SQLException {
-    if (RedshiftLogger.isEnable())
+    if (logColumnReads && connection.getLogger().isRowMessageLoggable())
     	connection.getLogger().log(LogLevel.DEBUG, "  getNCharacterStream columnIndex: {0}", columnIndex);
     throw com.amazon.redshift.Driver.notImplemented(this.getClass(), "getNCharacterStream(int)");
   }
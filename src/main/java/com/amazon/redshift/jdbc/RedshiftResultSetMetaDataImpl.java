@@ -206,7 +206,11 @@ public class RedshiftResultSetMetaDataImpl implements ResultSetMetaData, Redshif
       return;
     }
 
-    if (populateFieldsWithMetadata(connection.getFieldMetadataCache())) {
+    // Connections to the same database may share their cache
+    SharedFieldMetadataCache sharedCache = connection.getSharedFieldMetadataCache();
+    Gettable<FieldMetadata.Key, FieldMetadata> cache =
+        sharedCache != null ? sharedCache : connection.getFieldMetadataCache();
+    if (populateFieldsWithMetadata(cache)) {
       return;
     }
 
@@ -286,7 +290,11 @@ public class RedshiftResultSetMetaDataImpl implements ResultSetMetaData, Redshif
       JdbcBlackHole.close(stmt);
     }
     populateFieldsWithMetadata(md);
-    connection.getFieldMetadataCache().putAll(md);
+    if (sharedCache != null) {
+      sharedCache.putAll(md);
+    } else {
+      connection.getFieldMetadataCache().putAll(md);
+    }
   }
 
   public String getBaseSchemaName(int column) throws SQLException {
@@ -21,6 +21,7 @@ import com.amazon.redshift.core.v3.MessageLoopState;
 import com.amazon.redshift.core.v3.RedshiftRowsBlockingQueue;
 import com.amazon.redshift.logger.RedshiftLogger;
 import com.amazon.redshift.util.GT;
+import com.amazon.redshift.util.HashedWheelTimer;
 import com.amazon.redshift.util.QuerySanitizer;
 import com.amazon.redshift.util.RedshiftException;
 import com.amazon.redshift.util.RedshiftState;
@@ -32,7 +33,6 @@ import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.Properties;
@@ -67,9 +67,9 @@ public class RedshiftStatementImpl implements Statement, BaseStatement {
    * cancelTask was created. Note: the field must be set/get/compareAndSet via
    * {@link #CANCEL_TIMER_UPDATER} as per {@link AtomicReferenceFieldUpdater} javadoc.
    */
-  private volatile TimerTask cancelTimerTask = null;
-  private static final AtomicReferenceFieldUpdater<RedshiftStatementImpl, TimerTask> CANCEL_TIMER_UPDATER =
-      AtomicReferenceFieldUpdater.newUpdater(RedshiftStatementImpl.class, TimerTask.class, "cancelTimerTask");
+  private volatile HashedWheelTimer.Task cancelTimerTask = null;
+  private static final AtomicReferenceFieldUpdater<RedshiftStatementImpl, HashedWheelTimer.Task> CANCEL_TIMER_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(RedshiftStatementImpl.class, HashedWheelTimer.Task.class, "cancelTimerTask");
 
   /**
    * Protects statement from out-of-order cancels. It protects from both
@@ -1088,6 +1088,39 @@ public class RedshiftStatementImpl implements Statement, BaseStatement {
     	connection.getLogger().logFunction(false);
   }
 
+  /**
+   * Cancels the query like {@link #cancel()}, but returns before the cancel request is sent, so
+   * that the timer thread can fire the other timeouts. The statement becomes
+   * {@link StatementCancelState#CANCELLED} once the request was sent, and {@code killTimerTask}
+   * waits for it as it does for {@link #cancel()}.
+   */
+  private void cancelOnTimeout() throws SQLException {
+    if (!(STATE_UPDATER.compareAndSet(this, StatementCancelState.IN_QUERY, StatementCancelState.CANCELING)
+            || STATE_UPDATER.compareAndSet(this, StatementCancelState.IN_QUERY_SUSPENDED, StatementCancelState.CANCELING))) {
+      return;
+    }
+
+    Runnable cancelled = new Runnable() {
+      @Override
+      public void run() {
+        synchronized (connection) {
+          STATE_UPDATER.set(RedshiftStatementImpl.this, StatementCancelState.CANCELLED);
+          connection.notifyAll(); // wake-up killTimerTask
+        }
+      }
+    };
+
+    if (connection.isClosed()) {
+      cancelled.run();
+      return;
+    }
+
+    if (RedshiftLogger.isEnable())
+      connection.getLogger().logError("Query timeout, sending query cancel to server");
+
+    connection.getQueryExecutor().sendQueryCancelAsync(cancelled);
+  }
+
   public Connection getConnection() throws SQLException {
     checkClosed();
   	
@@ -1159,7 +1192,7 @@ public class RedshiftStatementImpl implements Statement, BaseStatement {
       return;
     }
 
-    TimerTask cancelTask = new TimerTask() {
+    HashedWheelTimer.Task cancelTask = new HashedWheelTimer.Task() {
       public void run() {
         try {
           if (!CANCEL_TIMER_UPDATER.compareAndSet(RedshiftStatementImpl.this, this, null)) {
@@ -1167,14 +1200,14 @@ public class RedshiftStatementImpl implements Statement, BaseStatement {
             // cancelTimerTask reference
             return;
           }
-          RedshiftStatementImpl.this.cancel();
+          cancelOnTimeout();
         } catch (SQLException e) {
         }
       }
     };
 
     CANCEL_TIMER_UPDATER.set(this, cancelTask);
-    connection.addTimerTask(cancelTask, timeout);
+    connection.addTimeout(cancelTask, timeout);
   }
 
   /**
@@ -1182,7 +1215,7 @@ public class RedshiftStatementImpl implements Statement, BaseStatement {
    * never invoke {@link #cancel()}.
    */
   private boolean cleanupTimer() {
-    TimerTask timerTask = CANCEL_TIMER_UPDATER.get(this);
+    HashedWheelTimer.Task timerTask = CANCEL_TIMER_UPDATER.get(this);
     if (timerTask == null) {
       // If timeout is zero, then timer task did not exist, so we safely report "all clear"
       return timeout == 0;
@@ -1192,8 +1225,8 @@ public class RedshiftStatementImpl implements Statement, BaseStatement {
       // become "cancelling".
       return false;
     }
+    // Released by the timer without a purge
     timerTask.cancel();
-    connection.purgeTimerTasks();
     // All clear
     return true;
   }
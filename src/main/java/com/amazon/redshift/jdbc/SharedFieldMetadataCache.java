@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.jdbc;
+
+import com.amazon.redshift.util.CanEstimateSize;
+import com.amazon.redshift.util.Gettable;
+import com.amazon.redshift.util.LruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Field metadata cache shared by all the connections to the same database.
+ *
+ * <p>{@link RedshiftResultSetMetaDataImpl} looks up the table, schema and nullability of the result
+ * columns in the catalog, and caches them per connection. With many pooled connections, each one
+ * runs the same catalog query for the same tables and holds its own copy of the results. With
+ * {@code databaseMetadataCacheFieldsShared} enabled, connections of the same user to the same
+ * host, port and database use one cache instead, as the catalog a user sees depends on its
+ * privileges. The cache is bounded by the {@code databaseMetadataCacheFields} and
+ * {@code databaseMetadataCacheFieldsMiB} settings of the first connection that used it, and
+ * dropped once the last connection using it is closed. Entries expire after
+ * {@code databaseMetadataCacheFieldsTtl} seconds, so that the changes of a column are seen even
+ * when they keep the table OID and the column position.</p>
+ */
+public final class SharedFieldMetadataCache implements Gettable<FieldMetadata.Key, FieldMetadata> {
+
+  // Guarded by itself
+  private static final Map<String, SharedFieldMetadataCache> caches =
+      new HashMap<String, SharedFieldMetadataCache>();
+
+  private final String scope;
+  private int users; // Guarded by caches
+  private final LruCache<FieldMetadata.Key, Entry> entries;
+  private final long ttlMillis;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  private SharedFieldMetadataCache(String scope, int maxSizeEntries, long maxSizeBytes,
+      int ttlSeconds) {
+    this.scope = scope;
+    this.entries = new LruCache<FieldMetadata.Key, Entry>(maxSizeEntries, maxSizeBytes, false);
+    this.ttlMillis = ttlSeconds * 1000L;
+  }
+
+  /**
+   * Returns the cache of a database and user, creating it with the given limits if needed. It must
+   * be released once the connection is closed.
+   *
+   * @param scope the host, port, database and user of the connection
+   * @param maxSizeEntries maximum number of fields cached
+   * @param maxSizeBytes maximum size of the fields cached
+   * @param ttlSeconds seconds a field stays cached, 0 for no expiration
+   * @return the cache
+   */
+  static SharedFieldMetadataCache acquire(String scope, int maxSizeEntries, long maxSizeBytes,
+      int ttlSeconds) {
+    synchronized (caches) {
+      SharedFieldMetadataCache cache = caches.get(scope);
+      if (cache == null) {
+        cache = new SharedFieldMetadataCache(scope, maxSizeEntries, maxSizeBytes, ttlSeconds);
+        caches.put(scope, cache);
+      }
+      cache.users++;
+      return cache;
+    }
+  }
+
+  /**
+   * Stops using the cache, which is dropped when no connection uses it anymore.
+   */
+  void release() {
+    synchronized (caches) {
+      if (--users == 0) {
+        caches.remove(scope);
+      }
+    }
+  }
+
+  @Override
+  public FieldMetadata get(FieldMetadata.Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null || (ttlMillis > 0 && entry.expiresAt < System.currentTimeMillis())) {
+      // An expired entry is replaced once the field is fetched again
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return entry.metadata;
+  }
+
+  /**
+   * @param fields the fields fetched from the catalog
+   */
+  public void putAll(Map<FieldMetadata.Key, FieldMetadata> fields) {
+    long expiresAt = System.currentTimeMillis() + ttlMillis;
+    for (Map.Entry<FieldMetadata.Key, FieldMetadata> field : fields.entrySet()) {
+      entries.put(field.getKey(), new Entry(field.getValue(), expiresAt));
+    }
+  }
+
+  /**
+   * @return number of field lookups answered from the cache
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of field lookups that had to query the catalog
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  private static class Entry implements CanEstimateSize {
+    final FieldMetadata metadata;
+    final long expiresAt;
+
+    Entry(FieldMetadata metadata, long expiresAt) {
+      this.metadata = metadata;
+      this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public long getSize() {
+      return metadata.getSize() + 8L;
+    }
+  }
+}
@@ -1727,6 +1727,25 @@ public class TimestampUtils {
     ByteConverter.int4(bytes, 0, (int) (secs / 86400));
   }
 
+  //JCP! if mvn.project.property.redshift.jdbc.spec >= "JDBC4.2"
+  /**
+   * Converts the local date to binary representation for {@link Oid#DATE}. Both are proleptic
+   * Gregorian, so no calendar switch adjustment is needed.
+   *
+   * @param bytes The binary encoded date value.
+   * @param value value
+   * @return false if the value maps to infinity and has to be sent as text.
+   */
+  public boolean toBinDate(byte[] bytes, LocalDate value) {
+    if (LocalDate.MAX.equals(value) || value.isBefore(MIN_LOCAL_DATE)) {
+      return false;
+    }
+    // 10957 days between 1970-01-01 and 2000-01-01
+    ByteConverter.int4(bytes, 0, (int) (value.toEpochDay() - 10957L));
+    return true;
+  }
+  //JCP! endif
+
   /**
    * Converts the SQL Timestamp to binary representation for {@link Oid#TIMESTAMP}.
    *
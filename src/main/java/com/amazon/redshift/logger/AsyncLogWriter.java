@@ -0,0 +1,232 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.logger;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the log messages of the loggers created with {@code logAsync} on a background thread.
+ *
+ * <p>The logging thread only captures the message, its arguments, the time, the thread and an
+ * unresolved stack trace, and puts them in a bounded queue shared by all the loggers. The writer
+ * thread resolves the caller, formats the messages and writes them in batches, flushing each
+ * handler once per batch. When the queue is full, messages below {@link LogLevel#ERROR} are
+ * dropped, and the number dropped is logged with the next message of the same logger. Errors wait
+ * for room in the queue.</p>
+ */
+final class AsyncLogWriter implements Runnable {
+
+  private static final int BATCH_SIZE = 512;
+
+  private static final long SHUTDOWN_DRAIN_MILLIS = 1000;
+
+  private static AsyncLogWriter instance;
+
+  private final BlockingQueue<Entry> queue;
+
+  // Entries taken from the queue and not written yet
+  private volatile int inFlight;
+
+  private AsyncLogWriter(int queueSize) {
+    this.queue = new ArrayBlockingQueue<Entry>(queueSize);
+  }
+
+  /**
+   * Returns the writer, starting it on first use.
+   *
+   * @param queueSize capacity of the queue, only used by the first call
+   * @return the writer
+   */
+  static synchronized AsyncLogWriter getInstance(int queueSize) {
+    if (instance == null) {
+      final AsyncLogWriter writer = new AsyncLogWriter(queueSize > 0 ? queueSize : 8192);
+      Thread thread = new Thread(writer, "Redshift JDBC driver log writer thread");
+      thread.setDaemon(true); // Don't prevent the VM from shutting down
+      thread.start();
+
+      try {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+          @Override
+          public void run() {
+            writer.drain(SHUTDOWN_DRAIN_MILLIS);
+          }
+        }, "Redshift JDBC driver log shutdown thread"));
+      } catch (IllegalStateException e) {
+        // Already shutting down
+      } catch (SecurityException e) {
+        // Messages still queued at exit are lost
+      }
+      instance = writer;
+    }
+    return instance;
+  }
+
+  /**
+   * Queues a message, or drops it if the queue is full and the message is not an error.
+   *
+   * @param logger the logger of the message
+   * @param level the message level
+   * @param caller stack trace of the logging call
+   * @param msg the message
+   * @param msgArgs the message arguments
+   */
+  void write(RedshiftLogger logger, LogLevel level, RedshiftLogger.CallerTrace caller, String msg,
+      Object[] msgArgs) {
+    Entry entry = new Entry(logger, level, caller, msg, snapshot(msgArgs));
+    if (level.ordinal() <= LogLevel.ERROR.ordinal()) {
+      put(entry);
+    } else if (!queue.offer(entry)) {
+      logger.droppedMessages.incrementAndGet();
+    }
+  }
+
+  /**
+   * Queues the closing of a handler, once the messages queued before are written.
+   *
+   * @param logger the logger of the handler
+   */
+  void close(RedshiftLogger logger) {
+    put(new Entry(logger, null, null, null, null));
+  }
+
+  @Override
+  public void run() {
+    List<Entry> batch = new ArrayList<Entry>(BATCH_SIZE);
+    Map<LogHandler, Boolean> handlers = new IdentityHashMap<LogHandler, Boolean>();
+    while (true) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        // Keep the thread alive, loggers still use it
+        continue;
+      }
+      queue.drainTo(batch, BATCH_SIZE - 1);
+      inFlight = batch.size();
+
+      for (Entry entry : batch) {
+        LogHandler handler = entry.logger.getHandler();
+        if (handler == null) {
+          continue;
+        }
+        try {
+          if (entry.level == null) {
+            handler.close();
+            handlers.remove(handler);
+            continue;
+          }
+
+          long dropped = entry.logger.droppedMessages.getAndSet(0);
+          if (dropped > 0) {
+            handler.write(entry.logger.formatLogMsg(LogLevel.INFO, entry.timeMillis,
+                entry.threadId, entry.threadName, getClass().getPackage().getName(),
+                getClass().getSimpleName(), "write",
+                "{0} log messages dropped, the log queue was full", dropped));
+          }
+
+          String[] callerNames = RedshiftLogger.getCallerMethodName(entry.caller.logFunction,
+              entry.caller.getStackTrace());
+          handler.write(entry.logger.formatLogMsg(entry.level, entry.timeMillis, entry.threadId,
+              entry.threadName, callerNames[0], callerNames[1], callerNames[2], entry.msg,
+              entry.msgArgs));
+          handlers.put(handler, Boolean.TRUE);
+        } catch (Exception e) {
+          // Nowhere to report it, drop the message
+        }
+      }
+
+      for (LogHandler handler : handlers.keySet()) {
+        handler.flush();
+      }
+      handlers.clear();
+      batch.clear();
+      inFlight = 0;
+    }
+  }
+
+  /**
+   * Waits for the queued messages to be written.
+   *
+   * @param timeoutMillis maximum time to wait
+   */
+  void drain(long timeoutMillis) {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    try {
+      while ((!queue.isEmpty() || inFlight > 0) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void put(Entry entry) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(entry);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Converts the arguments that may change before the message is formatted to strings.
+   */
+  private static Object[] snapshot(Object[] msgArgs) {
+    if (msgArgs == null || msgArgs.length == 0) {
+      return msgArgs;
+    }
+    Object[] copy = new Object[msgArgs.length];
+    for (int i = 0; i < msgArgs.length; i++) {
+      Object arg = msgArgs[i];
+      if (arg == null || arg instanceof String || arg instanceof Boolean
+          || arg instanceof Character || arg instanceof Integer || arg instanceof Long
+          || arg instanceof Short || arg instanceof Byte || arg instanceof Double
+          || arg instanceof Float || arg instanceof Enum) {
+        copy[i] = arg;
+      } else if (arg instanceof Date) {
+        copy[i] = ((Date) arg).clone();
+      } else {
+        copy[i] = String.valueOf(arg);
+      }
+    }
+    return copy;
+  }
+
+  private static class Entry {
+    final RedshiftLogger logger;
+    final LogLevel level;
+    final RedshiftLogger.CallerTrace caller;
+    final String msg;
+    final Object[] msgArgs;
+    final long timeMillis;
+    final long threadId;
+    final String threadName;
+
+    Entry(RedshiftLogger logger, LogLevel level, RedshiftLogger.CallerTrace caller, String msg,
+        Object[] msgArgs) {
+      this.logger = logger;
+      this.level = level;
+      this.caller = caller;
+      this.msg = msg;
+      this.msgArgs = msgArgs;
+      this.timeMillis = System.currentTimeMillis();
+      Thread thread = Thread.currentThread();
+      this.threadId = thread.getId();
+      this.threadName = thread.getName();
+    }
+  }
+}
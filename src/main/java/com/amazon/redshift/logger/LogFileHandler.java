@@ -31,6 +31,8 @@ public class LogFileHandler implements LogHandler {
 
   private static final int BUFFER_SIZE = 8 * 1024;
   
+  private static final int LINE_SEPARATOR_LENGTH = System.getProperty("line.separator", "\n").length();
+  
   private File currentFile;
 
   private String fileName;
@@ -47,6 +49,9 @@ public class LogFileHandler implements LogHandler {
   
   private PrintWriter writer = null;
   
+  // Size of the current file, counting the characters written since it was opened
+  private long currentFileSize;
+  
   private boolean flushAfterWrite;
   
   public LogFileHandler(String filename, 
@@ -72,12 +77,13 @@ public class LogFileHandler implements LogHandler {
   public synchronized void write(String message) throws Exception
   {
       writer.println(message);
+      currentFileSize += message.length() + LINE_SEPARATOR_LENGTH;
       if (flushAfterWrite)
         writer.flush();
       if (isRotation)
       {
-        writer.flush();
-        if ((0 != maxFileSize) && (currentFile.length() >= maxFileSize))
+        // Counted rather than read from the file, so that rotation doesn't need a flush
+        if ((0 != maxFileSize) && (currentFileSize >= maxFileSize))
         {
             closeFile();
             rotateFiles();
@@ -120,6 +126,7 @@ public class LogFileHandler implements LogHandler {
       																			BUFFER_SIZE);
       writer = new PrintWriter(outStream);
       updateLoggingFileSettings(maxLogFileSize, maxLogFileCount);
+      currentFileSize = currentFile.length();
       
       return;
     }
@@ -230,6 +237,7 @@ public class LogFileHandler implements LogHandler {
 										BUFFER_SIZE);
       
       writer = new PrintWriter(outStream);
+      currentFileSize = currentFile.length();
   }
   
   private void closeFile()
@@ -13,7 +13,10 @@ import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.Locale;
 
@@ -39,13 +42,58 @@ public class RedshiftLogger {
 
   private LogHandler handler;
   
+  // Writer of the messages when logging asynchronously, null otherwise
+  private AsyncLogWriter asyncWriter;
+  
+  // Messages dropped by the asynchronous writer since the last one written
+  final AtomicLong droppedMessages = new AtomicLong();
+  
+  // Per row messages logged per second, 0 for no limit
+  private volatile int rowMessageRateLimit;
+  
+  // Guarded by this
+  private long rowMessageWindowStart;
+  private int rowMessageCount;
+  private long rowMessagesSuppressed;
+  
   private static AtomicInteger  connectionId = new AtomicInteger();
 
+  // Package and simple name of the classes that logged
+  private static final ConcurrentMap<String, String[]> classNames =
+      new ConcurrentHashMap<String, String[]>();
+
+  private static final ThreadLocal<SimpleDateFormat> dateFormat =
+      new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+          return new SimpleDateFormat("MMM dd HH:mm:ss.SSS");
+        }
+      };
+
   public RedshiftLogger(String fileName,
   											String logLevel, 
   											boolean driver,
   											String maxLogFileSize,
   											String maxLogFileCount) {
+  	this(fileName, logLevel, driver, maxLogFileSize, maxLogFileCount, false, 0);
+  }
+
+  /**
+   * @param fileName the log file, null to log to the console
+   * @param logLevel the log level
+   * @param driver true for the driver logger, false for a connection logger
+   * @param maxLogFileSize maximum size of a log file
+   * @param maxLogFileCount maximum number of log files
+   * @param async true to format and write the messages on a background thread
+   * @param asyncQueueSize maximum number of messages waiting to be written when async
+   */
+  public RedshiftLogger(String fileName,
+  											String logLevel, 
+  											boolean driver,
+  											String maxLogFileSize,
+  											String maxLogFileCount,
+  											boolean async,
+  											int asyncQueueSize) {
   	
   	if (driver) {
   		this.fileName = fileName;
@@ -81,7 +129,8 @@ public class RedshiftLogger {
 	      }
 	      else 
 	      if (this.fileName != null) {
-	      	handler = new LogFileHandler(this.fileName, driver, maxLogFileSize, maxLogFileCount);
+	      	// The asynchronous writer flushes once per batch
+	      	handler = new LogFileHandler(this.fileName, driver && !async, maxLogFileSize, maxLogFileCount);
 	      }
 	      else {
 	  			handler = new LogConsoleHandler();
@@ -91,6 +140,10 @@ public class RedshiftLogger {
   			handler = new LogConsoleHandler();
   		}
       
+      if (async) {
+      	asyncWriter = AsyncLogWriter.getInstance(asyncQueueSize);
+      }
+      
       isEnable = true;
   	}
   }
@@ -123,6 +176,57 @@ public class RedshiftLogger {
   	return level;
   }
   
+  /**
+   * Unlike {@link #isEnable()}, only true if this logger logs at the given level, so that the
+   * connections that don't log skip building the message.
+   * 
+   * @param level the message level
+   * @return true if messages of that level are logged
+   */
+  public boolean isLoggable(LogLevel level) {
+  	return checkLogLevel(level, this);
+  }
+  
+  /**
+   * @param limit number of per row messages logged per second, 0 for no limit
+   */
+  public void setRowMessageRateLimit(int limit) {
+  	rowMessageRateLimit = limit;
+  }
+  
+  /**
+   * Samples the messages logged for each row or column read, such as the DEBUG messages of the
+   * result set getters, so that logging a connection reading many rows doesn't flood the log.
+   * The number of messages skipped is logged once per second.
+   * 
+   * @return true if the message should be logged
+   */
+  public boolean isRowMessageLoggable() {
+  	int limit = rowMessageRateLimit;
+  	if (limit <= 0)
+  		return true;
+  	
+  	long suppressed = 0;
+  	boolean loggable;
+  	long now = System.currentTimeMillis();
+  	synchronized (this) {
+  		if (now - rowMessageWindowStart >= 1000) {
+  			suppressed = rowMessagesSuppressed;
+  			rowMessagesSuppressed = 0;
+  			rowMessageWindowStart = now;
+  			rowMessageCount = 0;
+  		}
+  		loggable = (++rowMessageCount <= limit);
+  		if (!loggable)
+  			rowMessagesSuppressed++;
+  	}
+  	
+  	if (suppressed > 0)
+  		log(LogLevel.DEBUG, "{0} per row messages skipped by logRowMessageRateLimit", suppressed);
+  	
+  	return loggable;
+  }
+  
   /**
    * Determines if logging should occur based on the LogLevel.
    *
@@ -143,12 +247,12 @@ public class RedshiftLogger {
   	return checkLogLevel(level, log);
   } */
   
-  private static StackTraceElement getStackElementAbove(String functionName)
+  private static StackTraceElement getStackElementAbove(String functionName, StackTraceElement[] stack)
   {
     boolean returnNextFunction = false;
 
     // Look for the function above the specified one.
-    for (StackTraceElement s : Thread.currentThread().getStackTrace())
+    for (StackTraceElement s : stack)
     {
         if (returnNextFunction)
         {
@@ -162,7 +266,7 @@ public class RedshiftLogger {
 
     // Default to just returning 3 above, which should be the caller of the caller of this
     // function.
-    return Thread.currentThread().getStackTrace()[3];
+    return stack[Math.min(3, stack.length - 1)];
   }
   
   public static String maskSecureInfoInUrl(String url)
@@ -297,7 +401,7 @@ public class RedshiftLogger {
     return null;
    }  
   
-  private static String[] getCallerMethodName(String logFunction)
+  static String[] getCallerMethodName(String logFunction, StackTraceElement[] stack)
   {
     /*
      * Stack Trace:
@@ -309,30 +413,38 @@ public class RedshiftLogger {
      */
 
     // Retrieve the information necessary to log the message.
-    StackTraceElement element = getStackElementAbove(logFunction);
+    StackTraceElement element = getStackElementAbove(logFunction, stack);
     String[] names = new String[3];
     names[2] = element.getMethodName();
 
-    try
+    String[] packageAndClass = classNames.get(element.getClassName());
+    if (packageAndClass == null)
     {
-        // Dynamically look up the name of the class.
-        Class<?> originatingClass = Class.forName(element.getClassName());
-        names[1] = originatingClass.getSimpleName();
-
-        // Get the package of the class.
-        names[0] = "";
-        Package originatingPackage = originatingClass.getPackage();
-        if (null != originatingPackage)
+        packageAndClass = new String[2];
+        try
         {
-            names[0] = originatingPackage.getName();
+            // Dynamically look up the name of the class.
+            Class<?> originatingClass = Class.forName(element.getClassName());
+            packageAndClass[1] = originatingClass.getSimpleName();
+
+            // Get the package of the class.
+            packageAndClass[0] = "";
+            Package originatingPackage = originatingClass.getPackage();
+            if (null != originatingPackage)
+            {
+                packageAndClass[0] = originatingPackage.getName();
+            }
         }
+        catch (ClassNotFoundException e)
+        {
+            // Failed to look up the class, just omit it.
+            packageAndClass[0] = "<error>";
+            packageAndClass[1] = element.getClassName();
+        }
+        classNames.putIfAbsent(element.getClassName(), packageAndClass);
     }
-    catch (ClassNotFoundException e)
-    {
-        // Failed to look up the class, just omit it.
-        names[0] = "<error>";
-        names[1] = element.getClassName();
-    }
+    names[0] = packageAndClass[0];
+    names[1] = packageAndClass[1];
 
     if (names[2].equals("<init>"))
     {
@@ -349,7 +461,7 @@ public class RedshiftLogger {
       return;
 
 	  // Get the package, class, and method names.
-	  String[] callerNames = getCallerMethodName("log");
+	  Object callerNames = getCaller("log");
   	
   	logMsg(logLevel, callerNames, msg, msgArgs);
   }
@@ -360,7 +472,7 @@ public class RedshiftLogger {
       return;
 
 	  // Get the package, class, and method names.
-	  String[] callerNames = getCallerMethodName("log");
+	  Object callerNames = getCaller("log");
   	
 	  StringWriter sw = new StringWriter();
 	  thrown.printStackTrace(new PrintWriter(sw));
@@ -376,7 +488,7 @@ public class RedshiftLogger {
       return;
 
 	  // Get the package, class, and method names.
-	  String[] callerNames = getCallerMethodName("logError");
+	  Object callerNames = getCaller("logError");
 	  
 	  StringWriter sw = new StringWriter();
 	  error.printStackTrace(new PrintWriter(sw));
@@ -391,7 +503,7 @@ public class RedshiftLogger {
       return;
 
 	  // Get the package, class, and method names.
-	  String[] callerNames = getCallerMethodName("logError");
+	  Object callerNames = getCaller("logError");
   	
   	logMsg(LogLevel.ERROR, callerNames, msg, msgArgs);
   }
@@ -402,7 +514,7 @@ public class RedshiftLogger {
       return;
 
 	  // Get the package, class, and method names.
-	  String[] callerNames = getCallerMethodName("logInfo");
+	  Object callerNames = getCaller("logInfo");
   	
   	logMsg(LogLevel.INFO, callerNames, msg, msgArgs);
   }
@@ -456,7 +568,7 @@ public class RedshiftLogger {
   	}
   	
 	  // Get the package, class, and method names.
-	  String[] callerNames = getCallerMethodName("logFunction");
+	  Object callerNames = getCaller("logFunction");
   	
   	logMsg(LogLevel.FUNCTION, callerNames, msg);
   }
@@ -467,7 +579,7 @@ public class RedshiftLogger {
       return;
 
 	  // Get the package, class, and method names.
-	  String[] callerNames = getCallerMethodName("logDebug");
+	  Object callerNames = getCaller("logDebug");
   	
   	logMsg(LogLevel.DEBUG, callerNames, msg, msgArgs);
   }
@@ -475,6 +587,11 @@ public class RedshiftLogger {
   public void close() {
   	if (handler != null
   			&& handler instanceof LogFileHandler) {
+  		if (asyncWriter != null) {
+  			// Closed once the queued messages are written
+  			asyncWriter.close(this);
+  			return;
+  		}
   		try {
 				handler.close();
 			} catch (Exception e) {
@@ -484,15 +601,43 @@ public class RedshiftLogger {
   }
   
   public void flush() {
-  	if (handler != null)
+  	// The asynchronous writer flushes after each batch
+  	if (handler != null && asyncWriter == null)
   			handler.flush();
   }
   
-  private void logMsg(LogLevel level, String[] callerNames,
+  LogHandler getHandler() {
+  	return handler;
+  }
+  
+  /**
+   * Returns the package, class and method names of the caller of a logging function, or its
+   * stack trace, resolved later by the writer thread, when logging asynchronously.
+   */
+  private Object getCaller(String logFunction) {
+  	if (asyncWriter != null)
+  		return new CallerTrace(logFunction);
+  	
+  	return getCallerMethodName(logFunction, Thread.currentThread().getStackTrace());
+  }
+  
+  private void logMsg(LogLevel level, Object caller,
   										String msg, Object... msgArgs) {
+  	if (caller instanceof CallerTrace) {
+  		if (handler != null)
+  			asyncWriter.write(this, level, (CallerTrace) caller, msg, msgArgs);
+  		return;
+  	}
+  	
+  	String[] callerNames = (String[]) caller;
+  	Thread thread = Thread.currentThread();
+  	
     // Log the message.
     String formattedMsg = formatLogMsg(
 											        level,
+											        System.currentTimeMillis(),
+											        thread.getId(),
+											        thread.getName(),
 											        callerNames[0],
 											        callerNames[1],
 											        callerNames[2],
@@ -510,8 +655,11 @@ public class RedshiftLogger {
     }
   }
   
-  private String formatLogMsg(
+  String formatLogMsg(
       LogLevel logLevel,
+      long timeMillis,
+      long threadId,
+      String threadName,
       String packageName,
       String className,
       String methodName,
@@ -522,16 +670,13 @@ public class RedshiftLogger {
         return null;
 
     StringBuffer msgBuf = new StringBuffer();
-    SimpleDateFormat dateFormat = null;
-	
-    dateFormat = new SimpleDateFormat("MMM dd HH:mm:ss.SSS");
 	
-    dateFormat.format(new Date(), msgBuf, new FieldPosition(0));
+    dateFormat.get().format(new Date(timeMillis), msgBuf, new FieldPosition(0));
     msgBuf.append(" ");
     msgBuf.append(logLevel.toString()).append(" ");
     msgBuf.append(" ");
 	
-    msgBuf.append("[").append(Thread.currentThread().getId()).append(" ").append(Thread.currentThread().getName()).append("] ");
+    msgBuf.append("[").append(threadId).append(" ").append(threadName).append("] ");
 
     msgBuf.append(packageName).append(".");
     msgBuf.append(className).append(".");
@@ -545,6 +690,21 @@ public class RedshiftLogger {
     return msgBuf.toString();
   }
   
+  /**
+   * Stack trace of a logging call, resolved to the caller names by the asynchronous writer.
+   */
+  static final class CallerTrace extends Throwable {
+    private static final long serialVersionUID = 1L;
+
+    final String logFunction;
+
+    CallerTrace(String logFunction) {
+      // Only the stack is needed, don't fill the suppressed exceptions
+      super(null, null, false, true);
+      this.logFunction = logFunction;
+    }
+  }
+  
   public static String getLogFileUsingPath(String logLevel, String logPath) {
   	if (logPath == null) {
   		// Check loglevel and get current directory
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations, in power of two buckets of microseconds.
+ *
+ * <p>Recording is lock free. Percentiles are approximated by the upper bound of the bucket they
+ * fall in, so they are at most twice the actual value.</p>
+ */
+public final class LatencyHistogram {
+
+  // Bucket i holds the durations below 2^i microseconds, the last one all the longer ones
+  private static final int BUCKETS = 40;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  LatencyHistogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * @param nanos the duration, in nanoseconds
+   */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    long micros = nanos / 1000;
+    int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    buckets[bucket].increment();
+    count.increment();
+    totalNanos.add(nanos);
+
+    long max;
+    while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+      // Retry
+    }
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * @return the mean duration, in nanoseconds, or 0 if none was recorded
+   */
+  public long getMeanNanos() {
+    long n = count.sum();
+    return n == 0 ? 0 : totalNanos.sum() / n;
+  }
+
+  /**
+   * @param quantile the quantile, between 0 and 1
+   * @return the upper bound of the bucket holding the quantile, in nanoseconds, or 0 if none was
+   *         recorded
+   */
+  public long getPercentileNanos(double quantile) {
+    long[] counts = new long[BUCKETS];
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+      n += counts[i];
+    }
+    if (n == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(quantile * n);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS - 1; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min((1L << i) * 1000, getMaxNanos());
+      }
+    }
+    return getMaxNanos();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.metrics;
+
+/**
+ * Metrics collected by the driver when {@code enableMetrics} is set.
+ */
+public enum Metric {
+  CONNECTIONS_OPENED("ConnectionsOpened", false, "Connections opened"),
+  CONNECTIONS_CLOSED("ConnectionsClosed", false, "Connections closed"),
+  BYTES_READ("BytesRead", false,
+      "Bytes read from the server, as sent on the wire, counted when the connection closes"),
+  ROWS_FETCHED("RowsFetched", false, "Rows received from the server"),
+  STATEMENT_CACHE_LOOKUPS("StatementCacheLookups", false,
+      "Statements looked up in the prepared statement cache"),
+  STATEMENT_CACHE_MISSES("StatementCacheMisses", false,
+      "Statements parsed because they were not in the prepared statement cache"),
+  RING_BUFFER_STALLS("RingBufferStalls", false,
+      "Times the fetch ring buffer thread waited for the application to read rows"),
+  IAM_CREDENTIALS_CACHE_HITS("IamCredentialsCacheHits", false,
+      "IAM credentials taken from the cache"),
+  IAM_CREDENTIALS_CACHE_MISSES("IamCredentialsCacheMisses", false,
+      "IAM credentials requested from AWS"),
+  QUERY_CANCELS("QueryCancels", false, "Cancel requests sent to the server"),
+  EXECUTE("Execute", true,
+      "Time to send a query and read its results, parse, bind and execute being one round trip"),
+  VALIDATION("Validation", true, "Time spent in Connection.isValid"),
+  CONNECT("Connect", true, "Time to open a connection"),
+  CONNECT_CREDENTIALS("ConnectCredentials", true, "Time to get IAM or IdP credentials"),
+  CONNECT_TCP("ConnectTcp", true, "Time to open the TCP connection"),
+  CONNECT_TLS("ConnectTls", true, "Time of the SSL request and TLS handshake"),
+  CONNECT_AUTHENTICATION("ConnectAuthentication", true, "Time to authenticate"),
+  CONNECT_SESSION_SETUP("ConnectSessionSetup", true, "Time to set up the session");
+
+  private final String name;
+  private final boolean latency;
+  private final String description;
+
+  Metric(String name, boolean latency, String description) {
+    this.name = name;
+    this.latency = latency;
+    this.description = description;
+  }
+
+  /**
+   * @return the name of the metric, as exposed by JMX
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return true for a latency histogram, false for a counter
+   */
+  public boolean isLatency() {
+    return latency;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.metrics;
+
+/**
+ * Publishes the driver metrics to a monitoring system, such as Micrometer or Prometheus.
+ *
+ * <p>Implementations are found with {@link java.util.ServiceLoader}, from the
+ * {@code META-INF/services/com.amazon.redshift.metrics.MetricsExporter} files on the class path,
+ * when the first connection with {@code enableMetrics} is opened. They usually register gauges or
+ * function counters reading the registries, so that the driver keeps no reference to the
+ * monitoring library.</p>
+ */
+public interface MetricsExporter {
+
+  /**
+   * Called once, with the registry of the metrics of all the connections.
+   *
+   * @param global the driver-wide registry
+   */
+  void start(MetricsRegistry global);
+
+  /**
+   * Called when a connection with metrics enabled is opened.
+   *
+   * @param connection the registry of the connection
+   */
+  default void connectionOpened(MetricsRegistry connection) {
+  }
+
+  /**
+   * Called when a connection with metrics enabled is closed. Its metrics are still counted in the
+   * driver-wide registry.
+   *
+   * @param connection the registry of the connection
+   */
+  default void connectionClosed(MetricsRegistry connection) {
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Read-only JMX view of a {@link MetricsRegistry}.
+ *
+ * <p>A counter is an attribute named after the metric. A latency has the attributes
+ * {@code <Name>Count}, {@code <Name>MeanMillis}, {@code <Name>P50Millis},
+ * {@code <Name>P99Millis} and {@code <Name>MaxMillis}.</p>
+ */
+final class MetricsMBean implements DynamicMBean {
+
+  private static final String[] LATENCY_SUFFIXES = {
+      "Count", "MeanMillis", "P50Millis", "P99Millis", "MaxMillis"};
+
+  private final MetricsRegistry registry;
+  private final MBeanInfo info;
+
+  MetricsMBean(MetricsRegistry registry) {
+    this.registry = registry;
+
+    List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+    for (Metric metric : Metric.values()) {
+      if (!metric.isLatency()) {
+        attributes.add(new MBeanAttributeInfo(metric.getName(), "long", metric.getDescription(),
+            true, false, false));
+        continue;
+      }
+      for (String suffix : LATENCY_SUFFIXES) {
+        attributes.add(new MBeanAttributeInfo(metric.getName() + suffix,
+            "Count".equals(suffix) ? "long" : "double", metric.getDescription(), true, false,
+            false));
+      }
+    }
+    this.info = new MBeanInfo(MetricsRegistry.class.getName(),
+        "Redshift JDBC driver metrics of " + registry.getName(),
+        attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    for (Metric metric : Metric.values()) {
+      String name = metric.getName();
+      if (!attribute.startsWith(name)) {
+        continue;
+      }
+      String suffix = attribute.substring(name.length());
+      if (!metric.isLatency()) {
+        if (suffix.isEmpty()) {
+          return registry.getCount(metric);
+        }
+        continue;
+      }
+
+      LatencyHistogram histogram = registry.getHistogram(metric);
+      if ("Count".equals(suffix)) {
+        return histogram.getCount();
+      } else if ("MeanMillis".equals(suffix)) {
+        return toMillis(histogram.getMeanNanos());
+      } else if ("P50Millis".equals(suffix)) {
+        return toMillis(histogram.getPercentileNanos(0.5));
+      } else if ("P99Millis".equals(suffix)) {
+        return toMillis(histogram.getPercentileNanos(0.99));
+      } else if ("MaxMillis".equals(suffix)) {
+        return toMillis(histogram.getMaxNanos());
+      }
+    }
+    throw new AttributeNotFoundException(attribute);
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1000000.0;
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    AttributeList list = new AttributeList();
+    for (String attribute : attributes) {
+      try {
+        list.add(new Attribute(attribute, getAttribute(attribute)));
+      } catch (AttributeNotFoundException e) {
+        // Left out, as the interface requires
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Read-only attribute " + attribute.getName());
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature)
+      throws ReflectionException {
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    return info;
+  }
+}
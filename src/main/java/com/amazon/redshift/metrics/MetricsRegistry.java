@@ -0,0 +1,260 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.metrics;
+
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the driver.
+ *
+ * <p>There is a driver-wide registry, and one per connection opened with {@code enableMetrics}.
+ * What is recorded in the registry of a connection is also recorded in the driver-wide one. Each
+ * registry is exposed as a JMX MBean named
+ * {@code com.amazon.redshift:type=Metrics,name=driver} or
+ * {@code com.amazon.redshift:type=Metrics,name=connection-N}, and passed to the
+ * {@link MetricsExporter}s found on the class path.</p>
+ *
+ * <p>Nothing is recorded, and the driver-wide registry doesn't exist, until a connection enables
+ * the metrics. The code paths check {@link #isEnabled()} or a null registry first, so that the
+ * metrics cost a field read when disabled.</p>
+ */
+public final class MetricsRegistry {
+
+  private static final String JMX_DOMAIN = "com.amazon.redshift";
+
+  private static final Metric[] METRICS = Metric.values();
+
+  private static final AtomicLong connectionCount = new AtomicLong();
+
+  private static volatile MetricsRegistry global;
+
+  private static List<MetricsExporter> exporters = Collections.emptyList();
+
+  private final String name;
+  private final MetricsRegistry parent;
+  private final LongAdder[] counters = new LongAdder[METRICS.length];
+  private final LatencyHistogram[] histograms = new LatencyHistogram[METRICS.length];
+  private ObjectName objectName;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private MetricsRegistry(String name, MetricsRegistry parent) {
+    this.name = name;
+    this.parent = parent;
+    for (Metric metric : METRICS) {
+      if (metric.isLatency()) {
+        histograms[metric.ordinal()] = new LatencyHistogram();
+      } else {
+        counters[metric.ordinal()] = new LongAdder();
+      }
+    }
+  }
+
+  /**
+   * @return true once a connection enabled the metrics
+   */
+  public static boolean isEnabled() {
+    return global != null;
+  }
+
+  /**
+   * @return the driver-wide registry, or null if no connection enabled the metrics
+   */
+  public static MetricsRegistry getGlobal() {
+    return global;
+  }
+
+  /**
+   * Creates the registry of a new connection, enabling the metrics if needed.
+   *
+   * @param logger the logger of the connection
+   * @return the registry of the connection
+   */
+  public static MetricsRegistry newConnectionRegistry(RedshiftLogger logger) {
+    MetricsRegistry parent = enable(logger);
+    MetricsRegistry registry = new MetricsRegistry("connection-" + connectionCount.incrementAndGet(),
+        parent);
+    registry.register(logger);
+    for (MetricsExporter exporter : exporters) {
+      try {
+        exporter.connectionOpened(registry);
+      } catch (RuntimeException e) {
+        logExporterError(logger, exporter, e);
+      }
+    }
+    return registry;
+  }
+
+  private static synchronized MetricsRegistry enable(RedshiftLogger logger) {
+    if (global == null) {
+      MetricsRegistry registry = new MetricsRegistry("driver", null);
+      registry.register(logger);
+      exporters = loadExporters(logger);
+      for (MetricsExporter exporter : exporters) {
+        try {
+          exporter.start(registry);
+        } catch (RuntimeException e) {
+          logExporterError(logger, exporter, e);
+        }
+      }
+      global = registry;
+    }
+    return global;
+  }
+
+  private static List<MetricsExporter> loadExporters(RedshiftLogger logger) {
+    List<MetricsExporter> loaded = new ArrayList<MetricsExporter>();
+    Iterator<MetricsExporter> it = ServiceLoader.load(MetricsExporter.class,
+        MetricsRegistry.class.getClassLoader()).iterator();
+    while (true) {
+      try {
+        if (!it.hasNext()) {
+          break;
+        }
+        loaded.add(it.next());
+      } catch (ServiceConfigurationError e) {
+        if (RedshiftLogger.isEnable()) {
+          logger.log(LogLevel.ERROR, "Cannot load metrics exporter: {0}", e.getMessage());
+        }
+      }
+    }
+    return Collections.unmodifiableList(loaded);
+  }
+
+  private static void logExporterError(RedshiftLogger logger, MetricsExporter exporter,
+      RuntimeException e) {
+    if (RedshiftLogger.isEnable()) {
+      logger.log(LogLevel.ERROR, "Metrics exporter {0} failed: {1}", exporter.getClass().getName(),
+          e.getMessage());
+    }
+  }
+
+  private void register(RedshiftLogger logger) {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName on = new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + name);
+      server.registerMBean(new MetricsMBean(this), on);
+      objectName = on;
+    } catch (Exception e) {
+      // JMX not available or denied, the exporters still get the metrics
+      if (RedshiftLogger.isEnable()) {
+        logger.log(LogLevel.DEBUG, "Cannot register metrics MBean {0}: {1}", name, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Unregisters the registry of a closed connection. Its metrics stay in the driver-wide registry.
+   * Does nothing if already closed.
+   */
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    for (MetricsExporter exporter : exporters) {
+      try {
+        exporter.connectionClosed(this);
+      } catch (RuntimeException e) {
+        // Don't fail the close
+      }
+    }
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (Exception e) {
+        // Already unregistered
+      }
+      objectName = null;
+    }
+  }
+
+  /**
+   * @return true once the registry was closed
+   */
+  public boolean isClosed() {
+    return closed.get();
+  }
+
+  /**
+   * @return "driver", or "connection-N" for the registry of a connection
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Increments a counter.
+   *
+   * @param metric a counter
+   */
+  public void increment(Metric metric) {
+    counters[metric.ordinal()].increment();
+    if (parent != null) {
+      parent.increment(metric);
+    }
+  }
+
+  /**
+   * Adds to a counter.
+   *
+   * @param metric a counter
+   * @param value the value to add
+   */
+  public void add(Metric metric, long value) {
+    counters[metric.ordinal()].add(value);
+    if (parent != null) {
+      parent.add(metric, value);
+    }
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param metric a latency
+   * @param nanos the duration, in nanoseconds
+   */
+  public void record(Metric metric, long nanos) {
+    histograms[metric.ordinal()].record(nanos);
+    if (parent != null) {
+      parent.record(metric, nanos);
+    }
+  }
+
+  /**
+   * @param metric a metric
+   * @return the value of a counter, or the number of durations recorded for a latency
+   */
+  public long getCount(Metric metric) {
+    return metric.isLatency()
+        ? histograms[metric.ordinal()].getCount()
+        : counters[metric.ordinal()].sum();
+  }
+
+  /**
+   * @param metric a latency
+   * @return its histogram
+   */
+  public LatencyHistogram getHistogram(Metric metric) {
+    LatencyHistogram histogram = histograms[metric.ordinal()];
+    if (histogram == null) {
+      throw new IllegalArgumentException(metric + " is a counter");
+    }
+    return histogram;
+  }
+}
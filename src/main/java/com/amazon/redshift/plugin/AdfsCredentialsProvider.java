@@ -143,6 +143,7 @@ public class AdfsCredentialsProvider extends SamlCredentialsProvider
             "/adfs/ls/IdpInitiatedSignOn.aspx?loginToRp=" + m_loginToRp;
 
         CloseableHttpClient client = null;
+        CloseableHttpResponse resp = null;
 
         try
         {
@@ -151,7 +152,7 @@ public class AdfsCredentialsProvider extends SamlCredentialsProvider
         	validateURL(uri);
             client = getHttpClient();
             HttpGet get = new HttpGet(uri);
-            CloseableHttpResponse resp = client.execute(get);
+            resp = client.execute(get);
             if (resp.getStatusLine().getStatusCode() != 200)
             {
             	if(RedshiftLogger.isEnable())
@@ -209,6 +210,8 @@ public class AdfsCredentialsProvider extends SamlCredentialsProvider
             validateURL(uri);
             HttpPost post = new HttpPost(uri);
             post.setEntity(new UrlEncodedFormEntity(parameters));
+            // Hand the connection of the first response back to the pool
+            resp.close();
             resp = client.execute(post);
             if (resp.getStatusLine().getStatusCode() != 200)
             {
@@ -231,6 +234,7 @@ public class AdfsCredentialsProvider extends SamlCredentialsProvider
         }
         finally
         {
+            IoUtils.closeQuietly(resp, null);
             IoUtils.closeQuietly(client, null);
         }
     }
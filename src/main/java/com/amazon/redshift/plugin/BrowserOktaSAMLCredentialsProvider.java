@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.List;
 import java.util.function.Function;
@@ -175,7 +176,7 @@ public class BrowserOktaSAMLCredentialsProvider extends IdpCredentialsProvider i
 
         try
         {
-            saml = getSamlAssertion();
+            saml = getCachedSamlAssertion();
 
             if (RedshiftLogger.isEnable())
                 m_log.logDebug("BrowserOktaSAMLCredentialsProvider: got SAML token");
@@ -256,13 +257,19 @@ public class BrowserOktaSAMLCredentialsProvider extends IdpCredentialsProvider i
 
         try
         {
-            String saml = getSamlAssertion();
+            String saml = getCachedSamlAssertion();
 
             if (RedshiftLogger.isEnable())
                 m_log.logDebug("BrowserOktaSAMLCredentialsProvider: refreshed SAML assertion token");
 
             // Default expiration until server sends actual expirations
             Date expiration = new Date(System.currentTimeMillis() + EXPIRY_TIME * 60 * 1000);
+            Instant samlExpiration = IdpTokenCache.getSamlExpiration(saml);
+            if (samlExpiration != null && samlExpiration.toEpochMilli() < expiration.getTime())
+            {
+                // Do not keep using the assertion after the IdP made it expire
+                expiration = Date.from(samlExpiration);
+            }
             NativeTokenHolder credentials = NativeTokenHolder.newInstance(saml, expiration);
             credentials.setRefresh(true);
 
@@ -284,6 +291,29 @@ public class BrowserOktaSAMLCredentialsProvider extends IdpCredentialsProvider i
         }
     }
 
+    /**
+     * Returns the SAML assertion cached for this plugin, or opens the browser to get a new one
+     * when none is cached or the cached one expires within a minute.
+     */
+    private String getCachedSamlAssertion() throws IOException
+    {
+        if (m_disableCache)
+            return getSamlAssertion();
+
+        String key = getClass().getName() + getCacheKey();
+        String saml = IdpTokenCache.get(key);
+        if (saml != null)
+        {
+            if (RedshiftLogger.isEnable())
+                m_log.logInfo("SAML assertion from cache");
+            return saml;
+        }
+
+        saml = getSamlAssertion();
+        IdpTokenCache.put(key, saml, IdpTokenCache.getSamlExpiration(saml));
+        return saml;
+    }
+
     protected String getSamlAssertion() throws IOException
     {
         try
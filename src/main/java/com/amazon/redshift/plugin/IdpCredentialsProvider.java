@@ -7,14 +7,8 @@ import java.security.GeneralSecurityException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
@@ -22,7 +16,6 @@ import org.apache.http.impl.client.LaxRedirectStrategy;
 
 import com.amazon.redshift.logger.LogLevel;
 import com.amazon.redshift.logger.RedshiftLogger;
-import com.amazon.redshift.ssl.NonValidatingFactory;
 
 abstract class IdpCredentialsProvider {
 
@@ -32,11 +25,17 @@ abstract class IdpCredentialsProvider {
   protected static final Pattern IAM_HTTP_URL_PATTERN = Pattern.compile("^(http)://[-a-zA-Z0-9+&@#/%?=~_!:,.']*[-a-zA-Z0-9+&@#/%=~_']");
   protected RedshiftLogger m_log;
   
+  /**
+   * Returns an HTTP client for one exchange with the IdP. The client has its own cookies, and its
+   * connections come from a keep-alive pool shared by all the plugins, so closing it does not
+   * close them.
+   */
   protected CloseableHttpClient getHttpClient() throws GeneralSecurityException
   {
       RequestConfig rc = RequestConfig.custom()
               .setSocketTimeout(60000)
               .setConnectTimeout(60000)
+              .setConnectionRequestTimeout(60000)
               .setExpectContinueEnabled(false)
               .setCookieSpec(CookieSpecs.STANDARD)
               .build();
@@ -44,21 +43,9 @@ abstract class IdpCredentialsProvider {
       HttpClientBuilder builder = HttpClients.custom()
               .setDefaultRequestConfig(rc)
               .setRedirectStrategy(new LaxRedirectStrategy())
-              .useSystemProperties(); // this is needed for proxy setting using system properties.
-
-      if (m_sslInsecure)
-      {
-          SSLContext ctx = SSLContext.getInstance("TLSv1.2");
-          TrustManager[] tma = new TrustManager[]{ new NonValidatingFactory.NonValidatingTM()};
-          ctx.init(null, tma, null);
-          SSLSocketFactory factory = ctx.getSocketFactory();
-
-          SSLConnectionSocketFactory sf = new SSLConnectionSocketFactory(
-                  factory,
-                  new NoopHostnameVerifier());
-
-          builder.setSSLSocketFactory(sf);
-      }
+              .useSystemProperties() // this is needed for proxy setting using system properties.
+              .setConnectionManager(IdpHttpConnectionPool.getConnectionManager(m_sslInsecure, m_log))
+              .setConnectionManagerShared(true);
 
       return builder.build();
   }
@@ -0,0 +1,163 @@
+package com.amazon.redshift.plugin;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.ssl.NonValidatingFactory;
+
+/**
+ * Keep-alive connection pools shared by the HTTP clients of the identity provider plugins.
+ *
+ * <p>Every credentials fetch used to build an HTTP client with its own connections, so each SAML
+ * or OAuth exchange opened new TCP and TLS connections to the IdP. The clients are still built per
+ * exchange, so that cookies are never shared between logins, but they borrow their connections
+ * from a pool shared by all the plugins. Pools are keyed by the SSL and proxy settings, and
+ * connections idle for more than {@link #IDLE_SECONDS} seconds are closed.</p>
+ */
+public final class IdpHttpConnectionPool
+{
+    private static final int MAX_TOTAL_CONNECTIONS = 50;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final int IDLE_SECONDS = 60;
+
+    private static final ConcurrentMap<String, PoolingHttpClientConnectionManager> pools =
+        new ConcurrentHashMap<String, PoolingHttpClientConnectionManager>();
+
+    private static final AtomicLong clientCount = new AtomicLong();
+
+    private IdpHttpConnectionPool()
+    {
+    }
+
+    /**
+     * Returns the shared connection manager for the given settings. The clients using it must be
+     * built with {@code setConnectionManagerShared(true)}, so that closing them does not close the
+     * pool.
+     *
+     * @param sslInsecure true if the IdP certificate is not validated
+     * @param log the connection logger
+     * @return the connection manager
+     * @throws GeneralSecurityException if the SSL context cannot be created
+     */
+    static HttpClientConnectionManager getConnectionManager(boolean sslInsecure, RedshiftLogger log)
+        throws GeneralSecurityException
+    {
+        String key = sslInsecure + "|" + System.getProperty("https.proxyHost")
+            + "|" + System.getProperty("https.proxyPort")
+            + "|" + System.getProperty("http.nonProxyHosts")
+            + "|" + System.getProperty("javax.net.ssl.trustStore")
+            + "|" + System.getProperty("javax.net.ssl.keyStore");
+
+        PoolingHttpClientConnectionManager pool = pools.get(key);
+        if (pool == null)
+        {
+            PoolingHttpClientConnectionManager newPool = createPool(sslInsecure);
+            pool = pools.putIfAbsent(key, newPool);
+            if (pool == null)
+            {
+                pool = newPool;
+            }
+            else
+            {
+                newPool.shutdown();
+            }
+        }
+
+        // Idle connections are evicted when the pool is used, no thread is needed for it
+        pool.closeExpiredConnections();
+        pool.closeIdleConnections(IDLE_SECONDS, TimeUnit.SECONDS);
+        clientCount.incrementAndGet();
+
+        if (RedshiftLogger.isEnable())
+        {
+            PoolStats stats = pool.getTotalStats();
+            log.log(LogLevel.DEBUG, "IdP connection pool: leased={0} available={1} pending={2}",
+                stats.getLeased(), stats.getAvailable(), stats.getPending());
+        }
+
+        return pool;
+    }
+
+    private static PoolingHttpClientConnectionManager createPool(boolean sslInsecure)
+        throws GeneralSecurityException
+    {
+        SSLConnectionSocketFactory sf;
+        if (sslInsecure)
+        {
+            SSLContext ctx = SSLContext.getInstance("TLSv1.2");
+            TrustManager[] tma = new TrustManager[]{ new NonValidatingFactory.NonValidatingTM()};
+            ctx.init(null, tma, null);
+
+            sf = new SSLConnectionSocketFactory(ctx.getSocketFactory(), new NoopHostnameVerifier());
+        }
+        else
+        {
+            // Same as HttpClientBuilder.useSystemProperties()
+            sf = SSLConnectionSocketFactory.getSystemSocketFactory();
+        }
+
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sf)
+            .build();
+
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(registry);
+        pool.setMaxTotal(MAX_TOTAL_CONNECTIONS);
+        pool.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        // Check a connection the IdP may have closed before reusing it
+        pool.setValidateAfterInactivity(2000);
+        return pool;
+    }
+
+    /**
+     * @return number of HTTP clients built on the shared pools
+     */
+    public static long getClientCount()
+    {
+        return clientCount.get();
+    }
+
+    /**
+     * @return number of connections currently in use, across all pools
+     */
+    public static int getLeasedConnections()
+    {
+        int leased = 0;
+        for (PoolingHttpClientConnectionManager pool : pools.values())
+        {
+            leased += pool.getTotalStats().getLeased();
+        }
+        return leased;
+    }
+
+    /**
+     * @return number of idle keep-alive connections, across all pools
+     */
+    public static int getAvailableConnections()
+    {
+        int available = 0;
+        for (PoolingHttpClientConnectionManager pool : pools.values())
+        {
+            available += pool.getTotalStats().getAvailable();
+        }
+        return available;
+    }
+}
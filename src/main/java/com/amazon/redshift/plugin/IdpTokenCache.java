@@ -0,0 +1,175 @@
+package com.amazon.redshift.plugin;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.binary.Base64;
+
+import com.amazon.redshift.plugin.utils.RequestUtils;
+
+/**
+ * JVM wide cache of the SAML assertions and JWTs returned by the identity providers.
+ *
+ * <p>The plugins cache the AWS credentials or native tokens they build from the IdP token, but once
+ * those expire the IdP login, often several HTTP round trips or a browser prompt, used to run
+ * again even though the IdP token itself was still valid. Tokens are kept here until the
+ * {@code NotOnOrAfter} of the SAML assertion or the {@code exp} claim of the JWT, so that renewing
+ * the credentials only calls STS. Tokens without a readable expiration, and SAML assertions marked
+ * {@code OneTimeUse}, are not cached.</p>
+ */
+final class IdpTokenCache
+{
+    private static final Pattern NOT_ON_OR_AFTER_PATTERN = Pattern.compile("NotOnOrAfter\\s*=\\s*\"([^\"]+)\"");
+    private static final Pattern ONE_TIME_USE_PATTERN = Pattern.compile("<(\\w+:)?OneTimeUse\\b");
+    private static final Pattern EXP_PATTERN = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+
+    private static final ConcurrentMap<String, Token> tokens = new ConcurrentHashMap<String, Token>();
+
+    private IdpTokenCache()
+    {
+    }
+
+    /**
+     * @param key the plugin cache key
+     * @return the cached token, or null if it is missing or expires within a minute
+     */
+    static String get(String key)
+    {
+        Token token = tokens.get(key);
+        if (token == null)
+        {
+            return null;
+        }
+        if (RequestUtils.isCredentialExpired(token.expiration))
+        {
+            tokens.remove(key, token);
+            return null;
+        }
+        return token.value;
+    }
+
+    /**
+     * @param key the plugin cache key
+     * @param value the token
+     * @param expiration when the token expires, the token is not cached if null
+     */
+    static void put(String key, String value, Instant expiration)
+    {
+        if (value != null && expiration != null)
+        {
+            tokens.put(key, new Token(value, expiration));
+        }
+    }
+
+    /**
+     * Drops a token, so that the next login goes to the IdP.
+     *
+     * @param key the plugin cache key
+     */
+    static void invalidate(String key)
+    {
+        tokens.remove(key);
+    }
+
+    /**
+     * @param key the plugin cache key
+     * @return true if a token is cached for the key and does not expire within a minute
+     */
+    static boolean contains(String key)
+    {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the expiration of a base64 encoded SAML response, which is the earliest
+     * {@code NotOnOrAfter} of its conditions and subject confirmations.
+     *
+     * @param samlAssertion the base64 encoded SAML response
+     * @return the expiration, or null if the assertion has none or must not be reused
+     */
+    static Instant getSamlExpiration(String samlAssertion)
+    {
+        if (samlAssertion == null)
+        {
+            return null;
+        }
+
+        String xml = new String(Base64.decodeBase64(samlAssertion), StandardCharsets.UTF_8);
+        if (ONE_TIME_USE_PATTERN.matcher(xml).find())
+        {
+            return null;
+        }
+
+        Instant expiration = null;
+        Matcher matcher = NOT_ON_OR_AFTER_PATTERN.matcher(xml);
+        try
+        {
+            while (matcher.find())
+            {
+                Instant notOnOrAfter = Instant.parse(matcher.group(1));
+                if (expiration == null || notOnOrAfter.isBefore(expiration))
+                {
+                    expiration = notOnOrAfter;
+                }
+            }
+        }
+        catch (DateTimeParseException e)
+        {
+            return null;
+        }
+        return expiration;
+    }
+
+    /**
+     * Returns the expiration of a JWT from its {@code exp} claim.
+     *
+     * @param jwt the JWT
+     * @return the expiration, or null if the token has none
+     */
+    static Instant getJwtExpiration(String jwt)
+    {
+        if (jwt == null)
+        {
+            return null;
+        }
+
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2)
+        {
+            return null;
+        }
+
+        String payload = new String(Base64.decodeBase64(parts[1]), StandardCharsets.UTF_8);
+        Matcher matcher = EXP_PATTERN.matcher(payload);
+        if (!matcher.find())
+        {
+            return null;
+        }
+
+        try
+        {
+            return Instant.ofEpochSecond(Long.parseLong(matcher.group(1)));
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    private static class Token
+    {
+        final String value;
+        final Instant expiration;
+
+        Token(String value, Instant expiration)
+        {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+}
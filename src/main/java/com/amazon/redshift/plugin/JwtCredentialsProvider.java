@@ -9,6 +9,7 @@ import com.amazon.redshift.util.RedshiftException;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
@@ -173,13 +174,19 @@ public abstract class JwtCredentialsProvider extends IdpCredentialsProvider impl
 
         try
         {
-            String jwt = getJwtAssertion();
+            String jwt = getCachedJwtAssertion();
 
             if (RedshiftLogger.isEnable())
           		m_log.logDebug("JwtCredentialsProvider: refreshed JWT assertion of length={0}", jwt != null ? jwt.length() : -1);
 
             // Default expiration until server sends actual expirations
             Date expiration = new Date(System.currentTimeMillis() + 15 * 60 * 1000);            
+            Instant jwtExpiration = IdpTokenCache.getJwtExpiration(jwt);
+            if (jwtExpiration != null && jwtExpiration.toEpochMilli() < expiration.getTime())
+            {
+              // Do not keep using the token after the IdP made it expire
+              expiration = Date.from(jwtExpiration);
+            }
             NativeTokenHolder credentials = NativeTokenHolder.newInstance(jwt, expiration);
             credentials.setRefresh(true);
             
@@ -201,6 +208,29 @@ public abstract class JwtCredentialsProvider extends IdpCredentialsProvider impl
         }
     }
 
+    /**
+     * Returns the JWT cached for this plugin, or gets a new one from the IdP when none is cached or
+     * the cached one expires within a minute.
+     */
+    private String getCachedJwtAssertion() throws IOException
+    {
+      if (m_disableCache)
+        return getJwtAssertion();
+
+      String key = getClass().getName() + getCacheKey();
+      String jwt = IdpTokenCache.get(key);
+      if (jwt != null)
+      {
+        if (RedshiftLogger.isEnable())
+          m_log.logInfo("JWT assertion from cache");
+        return jwt;
+      }
+
+      jwt = getJwtAssertion();
+      IdpTokenCache.put(key, jwt, IdpTokenCache.getJwtExpiration(jwt));
+      return jwt;
+    }
+
     @Override
     public String getPluginSpecificCacheKey() {
     	// Override this in each derived plugin.
@@ -219,7 +249,7 @@ public abstract class JwtCredentialsProvider extends IdpCredentialsProvider impl
 
       try
       {
-        jwt = getJwtAssertion();
+        jwt = getCachedJwtAssertion();
 
         if (RedshiftLogger.isEnable())
       		m_log.logDebug("JwtCredentialsProvider: got JWT asssertion of length={0}", jwt != null ? jwt.length() : -1);
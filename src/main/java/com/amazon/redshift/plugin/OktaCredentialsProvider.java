@@ -151,30 +151,31 @@ public class OktaCredentialsProvider extends SamlCredentialsProvider
         
         validateURL(oktaAWSAppUrlWithToken);
         HttpGet httpget = new HttpGet(oktaAWSAppUrlWithToken);
-        CloseableHttpResponse responseSAML = httpClient.execute(httpget);
-
-        int requestStatus = responseSAML.getStatusLine().getStatusCode();
-        if (requestStatus != 200)
+        try (CloseableHttpResponse responseSAML = httpClient.execute(httpget))
         {
-            throw new RuntimeException("Failed : HTTP error code : " + responseSAML.getStatusLine().getStatusCode()
-                + " : Reason : " + responseSAML.getStatusLine().getReasonPhrase());
-        }
+            int requestStatus = responseSAML.getStatusLine().getStatusCode();
+            if (requestStatus != 200)
+            {
+                throw new RuntimeException("Failed : HTTP error code : " + responseSAML.getStatusLine().getStatusCode()
+                    + " : Reason : " + responseSAML.getStatusLine().getReasonPhrase());
+            }
 
-        String body = EntityUtils.toString(responseSAML.getEntity());
+            String body = EntityUtils.toString(responseSAML.getEntity());
         
-        if (RedshiftLogger.isEnable())
-      		m_log.logDebug("body: {0}", sanitizeResponseBody(body));
+            if (RedshiftLogger.isEnable())
+          		m_log.logDebug("body: {0}", sanitizeResponseBody(body));
         
-        for (String inputTags : getInputTagsfromHTML(body)) {
-            String name = getValueByKey(inputTags, "name");
-            String value = getValueByKey(inputTags, "value");
+            for (String inputTags : getInputTagsfromHTML(body)) {
+                String name = getValueByKey(inputTags, "name");
+                String value = getValueByKey(inputTags, "value");
             
-            if (RedshiftLogger.isEnable())
-          		m_log.logDebug("name: {0}", name);
+                if (RedshiftLogger.isEnable())
+              		m_log.logDebug("name: {0}", name);
             
-            if ("SAMLResponse".equalsIgnoreCase(name))
-            {
-                return value.replace("&#x2b;", "+").replace("&#x3d;", "=");
+                if ("SAMLResponse".equalsIgnoreCase(name))
+                {
+                    return value.replace("&#x2b;", "+").replace("&#x3d;", "=");
+                }
             }
         }
         throw new IOException("Failed to retrieve SAMLAssertion.");
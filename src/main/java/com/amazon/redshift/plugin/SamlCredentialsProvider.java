@@ -76,6 +76,9 @@ public abstract class SamlCredentialsProvider extends IdpCredentialsProvider imp
     private static Map<String, CredentialsHolder> m_cache = new HashMap<String, CredentialsHolder>();
     private CredentialsHolder m_lastRefreshCredentials; // Used when cache is disable.
 
+    // Credentials are renewed ahead of expiration when a valid SAML assertion is cached
+    private static final long REFRESH_AHEAD_SECONDS = 5 * 60;
+
     /**
      * The custom log factory class.
      */
@@ -227,7 +230,7 @@ public abstract class SamlCredentialsProvider extends IdpCredentialsProvider imp
             credentials = m_cache.get(key);
         }
 
-        if (credentials == null || credentials.isExpired())
+        if (credentials == null || credentials.isExpired() || shouldRefreshAhead(credentials))
         {
             if (RedshiftLogger.isEnable()) {
                 m_log.logInfo("SAML getCredentials NOT from cache");
@@ -281,10 +284,11 @@ public abstract class SamlCredentialsProvider extends IdpCredentialsProvider imp
         ClassLoader cl = currentThread.getContextClassLoader();
 
         Thread.currentThread().setContextClassLoader(CONTEXT_CLASS_LOADER);
+        boolean refreshed = false;
 
         try
         {
-            String samlAssertion = getSamlAssertion();
+            String samlAssertion = getCachedSamlAssertion();
 
             if (RedshiftLogger.isEnable()) {
                 m_log.logDebug("SamlCredentialsProvider: Received SAML assertion of length={0}", samlAssertion != null ? samlAssertion.length() : -1);
@@ -385,6 +389,7 @@ public abstract class SamlCredentialsProvider extends IdpCredentialsProvider imp
             } else {
                 m_lastRefreshCredentials = credentials;
             }
+            refreshed = true;
         }
         catch (IOException e) {
             if (RedshiftLogger.isEnable()) {
@@ -422,10 +427,63 @@ public abstract class SamlCredentialsProvider extends IdpCredentialsProvider imp
             throw SdkClientException.create("SAML error: " + e.getMessage(), e);
         }
         finally {
+            if (!refreshed && !m_disableCache) {
+                // STS may have rejected the cached assertion, the next login goes to the IdP
+                IdpTokenCache.invalidate(getTokenCacheKey());
+            }
             currentThread.setContextClassLoader(cl);
         }
     }
 
+    /**
+     * Returns the SAML assertion cached for this plugin, or gets a new one from the IdP when none
+     * is cached or the cached one expires within a minute.
+     */
+    private String getCachedSamlAssertion() throws IOException
+    {
+        if (m_disableCache) {
+            return getSamlAssertion();
+        }
+
+        String key = getTokenCacheKey();
+        String samlAssertion = IdpTokenCache.get(key);
+        if (samlAssertion != null) {
+            if (RedshiftLogger.isEnable()) {
+                m_log.logInfo("SAML assertion from cache");
+            }
+            return samlAssertion;
+        }
+
+        samlAssertion = getSamlAssertion();
+        IdpTokenCache.put(key, samlAssertion, IdpTokenCache.getSamlExpiration(samlAssertion));
+        return samlAssertion;
+    }
+
+    /**
+     * Returns true if the credentials expire soon and can be renewed with the cached SAML
+     * assertion, which only needs a call to STS.
+     */
+    private boolean shouldRefreshAhead(CredentialsHolder credentials)
+    {
+        Instant expiration = credentials.getExpiration();
+        if (m_disableCache
+            || expiration == null
+            || !expiration.isBefore(Instant.now().plusSeconds(REFRESH_AHEAD_SECONDS))
+            || !IdpTokenCache.contains(getTokenCacheKey())) {
+            return false;
+        }
+
+        if (RedshiftLogger.isEnable()) {
+            m_log.logInfo("SAML credentials expire at " + expiration + ", renewing them with the cached SAML assertion");
+        }
+        return true;
+    }
+
+    private String getTokenCacheKey()
+    {
+        return getClass().getName() + getCacheKey();
+    }
+
     @Override
     public String getPluginSpecificCacheKey() {
         // Override this in each derived plugin such as Azure, Browser, Okta, Ping etc.
@@ -443,7 +501,7 @@ public abstract class SamlCredentialsProvider extends IdpCredentialsProvider imp
 
         try
         {
-            samlAssertion = getSamlAssertion();
+            samlAssertion = getCachedSamlAssertion();
 
             if (RedshiftLogger.isEnable()) {
                 m_log.logDebug("SamlCredentialsProvider: Got SAML assertion of " +
@@ -118,7 +118,7 @@ public class LazyKeyManager implements X509KeyManager {
   }
 
   @Override
-  public X509Certificate[] getCertificateChain(String alias) {
+  public synchronized X509Certificate[] getCertificateChain(String alias) {
     if (cert == null && certfile != null) {
       // If certfile is null, we do not load the certificate
       // The certificate must be loaded
@@ -171,7 +171,7 @@ public class LazyKeyManager implements X509KeyManager {
   }
 
   @Override
-  public PrivateKey getPrivateKey(String alias) {
+  public synchronized PrivateKey getPrivateKey(String alias) {
     try {
       if (key == null && keyfile != null) {
         // If keyfile is null, we do not load the key
@@ -107,15 +107,7 @@ public class LibPQFactory extends WrappedFactory {
     try {
       SSLContext ctx = SSLUtil.createSecureSSLContext();
 
-      // Determining the default file location
-      String pathsep = System.getProperty("file.separator");
-      String defaultdir;
-
-      if (System.getProperty("os.name").toLowerCase().contains("windows")) { // It is Windows
-        defaultdir = System.getenv("APPDATA") + pathsep + "redshift" + pathsep;
-      } else {
-        defaultdir = System.getProperty("user.home") + pathsep + ".redshift" + pathsep;
-      }
+      String defaultdir = getDefaultDir();
 
       String sslkeyfile = RedshiftProperty.SSL_KEY.get(info);
       if (sslkeyfile == null) { // Fall back to default
@@ -221,6 +213,20 @@ public class LibPQFactory extends WrappedFactory {
     }
   }
 
+  /**
+   * Determining the default file location.
+   *
+   * @return the directory holding the default key and certificate files
+   */
+  static String getDefaultDir() {
+    String pathsep = System.getProperty("file.separator");
+    if (System.getProperty("os.name").toLowerCase().contains("windows")) { // It is Windows
+      return System.getenv("APPDATA") + pathsep + "redshift" + pathsep;
+    } else {
+      return System.getProperty("user.home") + pathsep + ".redshift" + pathsep;
+    }
+  }
+
   /**
    * Propagates any exception from {@link LazyKeyManager}.
    *
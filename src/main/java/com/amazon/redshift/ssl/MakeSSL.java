@@ -9,6 +9,8 @@ import com.amazon.redshift.RedshiftProperty;
 import com.amazon.redshift.core.RedshiftStream;
 import com.amazon.redshift.core.SocketFactoryFactory;
 import com.amazon.redshift.jdbc.SslMode;
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
 import com.amazon.redshift.util.GT;
 import com.amazon.redshift.util.ObjectFactory;
 import com.amazon.redshift.util.RedshiftException;
@@ -16,6 +18,7 @@ import com.amazon.redshift.util.RedshiftState;
 
 import java.io.IOException;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocket;
@@ -23,12 +26,19 @@ import javax.net.ssl.SSLSocketFactory;
 
 public class MakeSSL extends ObjectFactory {
 
+  private static final AtomicLong handshakeCount = new AtomicLong();
+  private static final AtomicLong resumedHandshakeCount = new AtomicLong();
+  private static final AtomicLong handshakeNanos = new AtomicLong();
+
   public static void convert(RedshiftStream stream, Properties info)
       throws RedshiftException, IOException {
 
     SSLSocketFactory factory = SocketFactoryFactory.getSslSocketFactory(info);
     SSLSocket newConnection;
+    long handshakeStartMillis = System.currentTimeMillis();
+    long handshakeStart = System.nanoTime();
     try {
+      // The host and port let the factory resume a session previously negotiated with this host
       newConnection = (SSLSocket) factory.createSocket(stream.getSocket(),
           stream.getHostSpec().getHost(), stream.getHostSpec().getPort(), true);
       // We must invoke manually, otherwise the exceptions are hidden
@@ -39,7 +49,28 @@ public class MakeSSL extends ObjectFactory {
           RedshiftState.CONNECTION_FAILURE, ex);
     }
     if (factory instanceof LibPQFactory) { // throw any KeyManager exception
-      ((LibPQFactory) factory).throwKeyManagerException();
+      try {
+        ((LibPQFactory) factory).throwKeyManagerException();
+      } catch (RedshiftException ex) {
+        SSLSocketFactoryCache.invalidate(info, factory);
+        throw ex;
+      }
+    }
+
+    long elapsed = System.nanoTime() - handshakeStart;
+    // A resumed session keeps the creation time of the handshake that negotiated it
+    boolean resumed = newConnection.getSession().getCreationTime() < handshakeStartMillis;
+    handshakeCount.incrementAndGet();
+    handshakeNanos.addAndGet(elapsed);
+    if (resumed) {
+      resumedHandshakeCount.incrementAndGet();
+    }
+
+    RedshiftLogger logger = stream.getLogger();
+    if (RedshiftLogger.isEnable() && logger != null) {
+      logger.log(LogLevel.DEBUG, "TLS handshake with {0} took {1} ms, protocol {2}, session {3}",
+          stream.getHostSpec(), elapsed / 1000000, newConnection.getSession().getProtocol(),
+          resumed ? "resumed" : "new");
     }
 
     SslMode sslMode = SslMode.of(info);
@@ -50,6 +81,27 @@ public class MakeSSL extends ObjectFactory {
     stream.changeSocket(newConnection, false, info);
   }
 
+  /**
+   * @return number of TLS handshakes completed by the driver
+   */
+  public static long getHandshakeCount() {
+    return handshakeCount.get();
+  }
+
+  /**
+   * @return number of TLS handshakes that resumed a previous session
+   */
+  public static long getResumedHandshakeCount() {
+    return resumedHandshakeCount.get();
+  }
+
+  /**
+   * @return total time spent in TLS handshakes, in nanoseconds
+   */
+  public static long getHandshakeNanos() {
+    return handshakeNanos.get();
+  }
+
   private static void verifyPeerName(RedshiftStream stream, Properties info, SSLSocket newConnection)
       throws RedshiftException {
     HostnameVerifier hvn;
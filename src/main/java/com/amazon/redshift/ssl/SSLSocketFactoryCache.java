@@ -0,0 +1,175 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.ssl;
+
+import com.amazon.redshift.RedshiftProperty;
+import com.amazon.redshift.jdbc.SslMode;
+import com.amazon.redshift.util.CanEstimateSize;
+import com.amazon.redshift.util.GT;
+import com.amazon.redshift.util.LruCache;
+import com.amazon.redshift.util.RedshiftException;
+import com.amazon.redshift.util.RedshiftState;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Process wide cache of the SSL socket factories built by the driver.
+ *
+ * <p>A JSSE {@link javax.net.ssl.SSLContext} keeps the TLS sessions it negotiated, so sharing the
+ * context between connections to the same host lets later handshakes resume the session instead of
+ * doing a full handshake. It also avoids reading the key material and trust store again for every
+ * connection.</p>
+ *
+ * <p>Factories are keyed by the SSL properties that affect them, along with the modification time
+ * of the files they read, so that a rotated certificate or trust store is picked up. The passwords
+ * are only kept hashed in the keys. The least recently used factories are dropped past
+ * {@value #MAX_ENTRIES} configurations.</p>
+ */
+public final class SSLSocketFactoryCache {
+
+  // Upper bound on the number of distinct SSL configurations kept
+  private static final int MAX_ENTRIES = 64;
+
+  private static final LruCache<String, Entry> libPQFactories =
+      new LruCache<String, Entry>(MAX_ENTRIES, Long.MAX_VALUE, true);
+
+  private SSLSocketFactoryCache() {
+    // Utility class - prevent instantiation
+  }
+
+  /**
+   * Returns a {@link LibPQFactory} for the given connection properties, reusing a previously built
+   * one when the SSL configuration is the same.
+   *
+   * @param info the connection parameters
+   * @return SSL socket factory
+   * @throws RedshiftException if security error appears when initializing factory
+   */
+  public static LibPQFactory getLibPQFactory(Properties info) throws RedshiftException {
+    String key = getKey(info);
+    Entry entry = libPQFactories.get(key);
+    if (entry != null) {
+      return entry.factory;
+    }
+
+    // Built without the lock, as it reads the key material and trust store
+    LibPQFactory factory = new LibPQFactory(info);
+    synchronized (libPQFactories) {
+      entry = libPQFactories.get(key);
+      if (entry != null) {
+        return entry.factory;
+      }
+      libPQFactories.put(key, new Entry(factory));
+    }
+    return factory;
+  }
+
+  /**
+   * Drops a factory whose key material could not be loaded, so that the next connection builds a
+   * new one.
+   *
+   * @param info the connection parameters the factory was built for
+   * @param factory the factory to drop
+   * @throws RedshiftException if the SSL parameters are invalid
+   */
+  public static void invalidate(Properties info, SSLSocketFactory factory)
+      throws RedshiftException {
+    String key = getKey(info);
+    synchronized (libPQFactories) {
+      Entry entry = libPQFactories.get(key);
+      if (entry != null && entry.factory == factory) {
+        libPQFactories.borrow(key);
+      }
+    }
+  }
+
+  /**
+   * Drops all the cached factories.
+   */
+  public static void clear() {
+    libPQFactories.clear();
+  }
+
+  private static String getKey(Properties info) throws RedshiftException {
+    String defaultdir = LibPQFactory.getDefaultDir();
+    String sslkeyfile = RedshiftProperty.SSL_KEY.get(info);
+    String sslcertfile = RedshiftProperty.SSL_CERT.get(info);
+    String sslrootcertfile = RedshiftProperty.SSL_ROOT_CERT.get(info);
+    String sslTrustStorePath = RedshiftProperty.SSL_TRUSTSTORE_PATH_KEY.get(info);
+    String systemTrustStore = System.getProperty("javax.net.ssl.trustStore");
+
+    StringBuilder key = new StringBuilder();
+    append(key, SslMode.of(info).value);
+    append(key, sslkeyfile);
+    appendModified(key, sslkeyfile != null ? sslkeyfile : defaultdir + "redshift.pk8");
+    append(key, sslcertfile);
+    appendModified(key, sslcertfile != null ? sslcertfile : defaultdir + "redshift.crt");
+    append(key, sslrootcertfile);
+    appendModified(key, sslrootcertfile);
+    append(key, sslTrustStorePath);
+    appendModified(key, sslTrustStorePath);
+    append(key, RedshiftProperty.SSL_PASSWORD_CALLBACK.get(info));
+    append(key, systemTrustStore);
+    appendModified(key, systemTrustStore);
+    append(key, System.getProperty("javax.net.ssl.trustStoreType"));
+
+    // The keys live as long as the JVM, so the passwords are not kept in clear
+    StringBuilder secrets = new StringBuilder();
+    append(secrets, RedshiftProperty.SSL_TRUSTSTORE_PWD_KEY.get(info));
+    append(secrets, RedshiftProperty.SSL_PASSWORD.get(info));
+    append(secrets, System.getProperty("javax.net.ssl.trustStorePassword"));
+    key.append(hash(secrets.toString()));
+    return key.toString();
+  }
+
+  private static String hash(String value) throws RedshiftException {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      byte[] digest = md.digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RedshiftException(GT.tr("Could not hash the SSL configuration."),
+          RedshiftState.UNEXPECTED_ERROR, e);
+    }
+  }
+
+  private static void append(StringBuilder key, String value) {
+    // Length prefixed, so that values cannot run into each other
+    if (value == null) {
+      key.append("-1:");
+    } else {
+      key.append(value.length()).append(':').append(value);
+    }
+  }
+
+  private static void appendModified(StringBuilder key, String path) {
+    long modified = (path == null || path.isEmpty()) ? 0 : new File(path).lastModified();
+    key.append(modified).append(';');
+  }
+
+  private static class Entry implements CanEstimateSize {
+    final LibPQFactory factory;
+
+    Entry(LibPQFactory factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    public long getSize() {
+      // Bounded by the number of entries only
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+
+/**
+ * Calls a trace, logging and ignoring the exceptions it throws, so that a failing tracer or slow
+ * query listener neither fails the statement nor leaves the ring buffer thread half way.
+ */
+public final class GuardedQueryTrace implements QueryTrace {
+
+  private final QueryTrace trace;
+  private final RedshiftLogger logger;
+
+  private GuardedQueryTrace(QueryTrace trace, RedshiftLogger logger) {
+    this.trace = trace;
+    this.logger = logger;
+  }
+
+  /**
+   * @param trace the trace to call, or null
+   * @param logger the connection logger
+   * @return the guarded trace, or null if the trace is null
+   */
+  public static QueryTrace wrap(QueryTrace trace, RedshiftLogger logger) {
+    return (trace != null) ? new GuardedQueryTrace(trace, logger) : null;
+  }
+
+  @Override
+  public void phase(QueryPhase phase) {
+    try {
+      trace.phase(phase);
+    } catch (RuntimeException e) {
+      failed(e);
+    }
+  }
+
+  @Override
+  public void bufferFull(long nanos) {
+    try {
+      trace.bufferFull(nanos);
+    } catch (RuntimeException e) {
+      failed(e);
+    }
+  }
+
+  @Override
+  public void rowsAwaited(long nanos) {
+    try {
+      trace.rowsAwaited(nanos);
+    } catch (RuntimeException e) {
+      failed(e);
+    }
+  }
+
+  @Override
+  public void rowsReceived(long rows, long bytes) {
+    try {
+      trace.rowsReceived(rows, bytes);
+    } catch (RuntimeException e) {
+      failed(e);
+    }
+  }
+
+  @Override
+  public void end(Throwable error) {
+    try {
+      trace.end(error);
+    } catch (RuntimeException e) {
+      failed(e);
+    }
+  }
+
+  private void failed(RuntimeException e) {
+    if (RedshiftLogger.isEnable()) {
+      logger.log(LogLevel.DEBUG, e, "Query trace failed");
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+import com.amazon.redshift.RedshiftProperty;
+import com.amazon.redshift.util.DriverInfo;
+import com.amazon.redshift.util.QuerySanitizer;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Traces each statement as an OpenTelemetry client span, selected with
+ * {@code queryTracer=opentelemetry}.
+ *
+ * <p>The span is a child of the current span of the executing thread, from the
+ * {@code GlobalOpenTelemetry} tracer. It has an event at the start of each {@link QueryPhase}, and
+ * the time spent in each phase, in the ring buffer waiting for the application and in
+ * {@code ResultSet.next()} waiting for rows, as {@code redshift.*.nanos} attributes, and the
+ * number and size of the rows as {@code redshift.rows} and {@code redshift.bytes}. The statement
+ * is recorded with its credentials filtered out.</p>
+ *
+ * <p>The OpenTelemetry API is called by reflection, so the driver doesn't depend on it. It must be
+ * on the class path of the driver or the context class loader of the connecting thread.</p>
+ */
+public class OpenTelemetryQueryTracer implements QueryTracer {
+
+  private static final String[] PHASE_EVENTS;
+  private static final String[] PHASE_ATTRIBUTES;
+
+  static {
+    QueryPhase[] phases = QueryPhase.values();
+    PHASE_EVENTS = new String[phases.length];
+    PHASE_ATTRIBUTES = new String[phases.length];
+    for (QueryPhase phase : phases) {
+      String name = phase.name().toLowerCase(Locale.ROOT);
+      PHASE_EVENTS[phase.ordinal()] = "redshift." + name;
+      PHASE_ATTRIBUTES[phase.ordinal()] = "redshift." + name + ".nanos";
+    }
+  }
+
+  private final Object tracer;
+  private final String host;
+  private final String database;
+
+  private final Method spanBuilder;
+  private final Method setSpanKind;
+  private final Object clientKind;
+  private final Method setBuilderAttribute;
+  private final Method startSpan;
+  private final Method addEvent;
+  private final Method setLongAttribute;
+  private final Method recordException;
+  private final Method setStatus;
+  private final Object errorStatus;
+  private final Method endSpan;
+
+  /**
+   * @param info the connection properties
+   * @throws ReflectiveOperationException if the OpenTelemetry API is not on the class path
+   */
+  public OpenTelemetryQueryTracer(Properties info) throws ReflectiveOperationException {
+    this.host = RedshiftProperty.HOST.get(info);
+    this.database = RedshiftProperty.DBNAME.get(info);
+
+    Class<?> globalClass = loadClass("io.opentelemetry.api.GlobalOpenTelemetry");
+    ClassLoader loader = globalClass.getClassLoader();
+    Class<?> tracerClass = Class.forName("io.opentelemetry.api.trace.Tracer", true, loader);
+    Class<?> builderClass = Class.forName("io.opentelemetry.api.trace.SpanBuilder", true, loader);
+    Class<?> spanClass = Class.forName("io.opentelemetry.api.trace.Span", true, loader);
+    Class<?> kindClass = Class.forName("io.opentelemetry.api.trace.SpanKind", true, loader);
+    Class<?> statusClass = Class.forName("io.opentelemetry.api.trace.StatusCode", true, loader);
+
+    this.tracer = globalClass.getMethod("getTracer", String.class, String.class)
+        .invoke(null, "com.amazon.redshift", DriverInfo.DRIVER_VERSION);
+    this.spanBuilder = tracerClass.getMethod("spanBuilder", String.class);
+    this.setSpanKind = builderClass.getMethod("setSpanKind", kindClass);
+    this.clientKind = kindClass.getField("CLIENT").get(null);
+    this.setBuilderAttribute = builderClass.getMethod("setAttribute", String.class, String.class);
+    this.startSpan = builderClass.getMethod("startSpan");
+    this.addEvent = spanClass.getMethod("addEvent", String.class);
+    this.setLongAttribute = spanClass.getMethod("setAttribute", String.class, long.class);
+    this.recordException = spanClass.getMethod("recordException", Throwable.class);
+    this.setStatus = spanClass.getMethod("setStatus", statusClass);
+    this.errorStatus = statusClass.getField("ERROR").get(null);
+    this.endSpan = spanClass.getMethod("end");
+  }
+
+  private static Class<?> loadClass(String name) throws ClassNotFoundException {
+    try {
+      return Class.forName(name, true, OpenTelemetryQueryTracer.class.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+      if (contextLoader == null) {
+        throw e;
+      }
+      return Class.forName(name, true, contextLoader);
+    }
+  }
+
+  @Override
+  public QueryTrace start(String sql) {
+    try {
+      Object builder = spanBuilder.invoke(tracer, "redshift.query");
+      setSpanKind.invoke(builder, clientKind);
+      setBuilderAttribute.invoke(builder, "db.system", "redshift");
+      if (database != null) {
+        setBuilderAttribute.invoke(builder, "db.name", database);
+      }
+      if (host != null) {
+        setBuilderAttribute.invoke(builder, "server.address", host);
+      }
+      if (sql != null) {
+        setBuilderAttribute.invoke(builder, "db.statement", QuerySanitizer.filterCredentials(sql));
+      }
+      return new SpanTrace(startSpan.invoke(builder));
+    } catch (ReflectiveOperationException e) {
+      // Don't fail the statement
+      return null;
+    }
+  }
+
+  private class SpanTrace implements QueryTrace {
+    private final Object span;
+    private final long[] phaseNanos = new long[PHASE_EVENTS.length];
+    private final AtomicLong bufferFullNanos = new AtomicLong();
+    private final AtomicLong rowsAwaitedNanos = new AtomicLong();
+
+    // Written by the executing thread, then the ring buffer thread
+    private volatile QueryPhase phase;
+    private volatile long phaseStart;
+
+    SpanTrace(Object span) {
+      this.span = span;
+    }
+
+    @Override
+    public void phase(QueryPhase next) {
+      endPhase();
+      phase = next;
+      phaseStart = System.nanoTime();
+      invoke(addEvent, PHASE_EVENTS[next.ordinal()]);
+    }
+
+    private void endPhase() {
+      QueryPhase current = phase;
+      if (current != null) {
+        phaseNanos[current.ordinal()] += System.nanoTime() - phaseStart;
+      }
+    }
+
+    @Override
+    public void bufferFull(long nanos) {
+      bufferFullNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public void rowsAwaited(long nanos) {
+      rowsAwaitedNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public void rowsReceived(long rows, long bytes) {
+      invoke(setLongAttribute, "redshift.rows", rows);
+      invoke(setLongAttribute, "redshift.bytes", bytes);
+    }
+
+    @Override
+    public void end(Throwable error) {
+      endPhase();
+      phase = null;
+      for (int i = 0; i < phaseNanos.length; i++) {
+        if (phaseNanos[i] > 0) {
+          invoke(setLongAttribute, PHASE_ATTRIBUTES[i], phaseNanos[i]);
+        }
+      }
+      invoke(setLongAttribute, "redshift.buffer_full.nanos", bufferFullNanos.get());
+      invoke(setLongAttribute, "redshift.rows_awaited.nanos", rowsAwaitedNanos.get());
+      if (error != null) {
+        invoke(recordException, error);
+        invoke(setStatus, errorStatus);
+      }
+      invoke(endSpan);
+    }
+
+    private void invoke(Method method, Object... args) {
+      try {
+        method.invoke(span, args);
+      } catch (ReflectiveOperationException e) {
+        // Don't fail the statement
+      }
+    }
+  }
+}
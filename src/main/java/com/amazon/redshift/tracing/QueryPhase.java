@@ -0,0 +1,23 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+/**
+ * Phases of the execution of a statement, in order. A statement without rows skips
+ * {@link #STREAM}.
+ */
+public enum QueryPhase {
+  /**
+   * Waiting for the connection: the ring buffer thread of the previous statement to finish, and
+   * the statements executing on other threads.
+   */
+  WAIT_CONNECTION,
+  /** Sending the Parse, Bind, Describe, Execute and Sync messages. Client and network time. */
+  SEND,
+  /** Waiting for the first row, or the command completion. Mostly server time. */
+  WAIT_FIRST_ROW,
+  /** Receiving the rows, until the command completes. Server and network time. */
+  STREAM
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+/**
+ * Trace of the execution of one statement, created by a {@link QueryTracer}.
+ *
+ * <p>The methods are called on the thread executing the statement, then on the ring buffer thread
+ * once it receives the rows, and {@link #rowsAwaited(long)} on the thread reading the result set.
+ * They must return quickly. The exceptions they throw are logged and ignored. All of them do
+ * nothing by default.</p>
+ */
+public interface QueryTrace {
+
+  /**
+   * Called when a phase starts, which ends the previous one.
+   *
+   * @param phase the phase
+   */
+  default void phase(QueryPhase phase) {
+  }
+
+  /**
+   * Called when the ring buffer thread waited for the application to read rows: the client does
+   * not keep up with the server.
+   *
+   * @param nanos time waited, in nanoseconds
+   */
+  default void bufferFull(long nanos) {
+  }
+
+  /**
+   * Called when {@code ResultSet.next()} waited for the ring buffer thread to receive rows: the
+   * server or the network does not keep up with the client.
+   *
+   * @param nanos time waited, in nanoseconds
+   */
+  default void rowsAwaited(long nanos) {
+  }
+
+  /**
+   * Called once, just before {@link #end(Throwable)}, unless the statement failed before it was
+   * sent.
+   *
+   * @param rows number of rows received
+   * @param bytes size of the rows as received from the server
+   */
+  default void rowsReceived(long rows, long bytes) {
+  }
+
+  /**
+   * Called once, when all the results were received.
+   *
+   * @param error the error of the statement, or null
+   */
+  default void end(Throwable error) {
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+/**
+ * Traces the statements of a connection, set with the {@code queryTracer} connection property.
+ *
+ * <p>An implementation is instantiated once per connection, with its {@link java.util.Properties}
+ * if it has such a constructor, or its no argument constructor. When no tracer is set, the driver
+ * does not create the traces at all.</p>
+ *
+ * @see OpenTelemetryQueryTracer
+ */
+public interface QueryTracer {
+
+  /**
+   * Called when a statement starts executing, on the executing thread.
+   *
+   * @param sql the SQL as sent to the server. It may contain credentials, see
+   *        {@link com.amazon.redshift.util.QuerySanitizer#filterCredentials(String)}.
+   * @return the trace of the statement, or null not to trace it
+   */
+  QueryTrace start(String sql);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+import com.amazon.redshift.RedshiftProperty;
+import com.amazon.redshift.util.GT;
+import com.amazon.redshift.util.ObjectFactory;
+import com.amazon.redshift.util.RedshiftException;
+import com.amazon.redshift.util.RedshiftState;
+
+import java.util.Properties;
+
+/**
+ * Instantiates the {@link QueryTracer} of a connection.
+ */
+public class QueryTracerFactory {
+
+  /**
+   * Value of {@link RedshiftProperty#QUERY_TRACER} selecting the {@link OpenTelemetryQueryTracer}.
+   */
+  public static final String OPENTELEMETRY = "opentelemetry";
+
+  /**
+   * Instantiates the {@link QueryTracer} based on the {@link RedshiftProperty#QUERY_TRACER}.
+   *
+   * @param info connection properties
+   * @return the tracer, or null if none is set
+   * @throws RedshiftException if the tracer cannot be instantiated
+   */
+  public static QueryTracer getQueryTracer(Properties info) throws RedshiftException {
+    String tracerClassName = RedshiftProperty.QUERY_TRACER.get(info);
+    if (tracerClassName == null || tracerClassName.isEmpty()) {
+      return null;
+    }
+    if (OPENTELEMETRY.equalsIgnoreCase(tracerClassName)) {
+      tracerClassName = OpenTelemetryQueryTracer.class.getName();
+    }
+    try {
+      return ObjectFactory.instantiate(QueryTracer.class, tracerClassName, info, false, null);
+    } catch (Exception e) {
+      throw new RedshiftException(
+          GT.tr("The QueryTracer class provided {0} could not be instantiated.", tracerClassName),
+          RedshiftState.CONNECTION_FAILURE, e);
+    }
+  }
+}
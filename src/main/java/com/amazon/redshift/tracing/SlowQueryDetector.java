@@ -0,0 +1,221 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+import com.amazon.redshift.RedshiftProperty;
+import com.amazon.redshift.logger.LogLevel;
+import com.amazon.redshift.logger.RedshiftLogger;
+import com.amazon.redshift.util.QuerySanitizer;
+import com.amazon.redshift.util.RedshiftException;
+import com.amazon.redshift.util.RedshiftPropertyMaxResultBufferParser;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flags the statements of a connection that are slow to return their first row or all their
+ * results, or that return large results.
+ *
+ * <p>It traces the statements with the same hooks as a {@link QueryTracer}, and reports each
+ * statement crossing a threshold as one {@link SlowQueryEvent}: logged at INFO level, and handed
+ * to the registered {@link Listener}s. The event tells where the time went, and whether the ring
+ * buffer was full, that is whether the application was the bottleneck, without logging at DEBUG
+ * level.</p>
+ */
+public final class SlowQueryDetector {
+
+  /**
+   * Receives the slow statements of all the connections. Listeners are called on the thread that
+   * received the last results, so they should return quickly.
+   */
+  public interface Listener {
+    void slowQuery(SlowQueryEvent event);
+  }
+
+  private static final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+  private final long firstRowThresholdNanos;
+  private final long totalThresholdNanos;
+  private final long resultSizeThreshold;
+  private final RedshiftLogger logger;
+
+  private SlowQueryDetector(long firstRowThresholdNanos, long totalThresholdNanos,
+      long resultSizeThreshold, RedshiftLogger logger) {
+    this.firstRowThresholdNanos = firstRowThresholdNanos;
+    this.totalThresholdNanos = totalThresholdNanos;
+    this.resultSizeThreshold = resultSizeThreshold;
+    this.logger = logger;
+  }
+
+  /**
+   * Creates the detector of a connection.
+   *
+   * @param info the connection properties
+   * @param logger the connection logger
+   * @return the detector, or null if no threshold is set
+   * @throws RedshiftException if a threshold is invalid
+   */
+  public static SlowQueryDetector getInstance(Properties info, RedshiftLogger logger)
+      throws RedshiftException {
+    long firstRowThreshold = RedshiftProperty.SLOW_QUERY_THRESHOLD.getInt(info);
+    long totalThreshold = RedshiftProperty.SLOW_FETCH_THRESHOLD.getInt(info);
+    String resultSize = RedshiftProperty.LARGE_RESULT_THRESHOLD.get(info);
+    long resultSizeThreshold = (resultSize != null)
+        ? RedshiftPropertyMaxResultBufferParser.parseProperty(resultSize,
+            RedshiftProperty.LARGE_RESULT_THRESHOLD.getName())
+        : -1;
+    if (firstRowThreshold <= 0 && totalThreshold <= 0 && resultSizeThreshold <= 0) {
+      return null;
+    }
+    return new SlowQueryDetector(TimeUnit.MILLISECONDS.toNanos(firstRowThreshold),
+        TimeUnit.MILLISECONDS.toNanos(totalThreshold), resultSizeThreshold, logger);
+  }
+
+  /**
+   * @param listener the listener to add
+   */
+  public static void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * @param listener the listener to remove
+   */
+  public static void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Starts watching a statement.
+   *
+   * @param sql the SQL as sent to the server
+   * @param delegate the trace of the {@link QueryTracer} of the connection, or null
+   * @return the trace of the statement, also calling the delegate
+   */
+  public QueryTrace start(String sql, QueryTrace delegate) {
+    return new DetectorTrace(sql, delegate);
+  }
+
+  private void report(SlowQueryEvent event) {
+    if (RedshiftLogger.isEnable()) {
+      logger.log(LogLevel.INFO, event.toString());
+    }
+
+    for (Listener listener : listeners) {
+      try {
+        listener.slowQuery(event);
+      } catch (RuntimeException e) {
+        if (RedshiftLogger.isEnable()) {
+          logger.log(LogLevel.DEBUG, e, "Slow query listener failed");
+        }
+      }
+    }
+  }
+
+  private final class DetectorTrace implements QueryTrace {
+    private final String sql;
+    private final QueryTrace delegate;
+    private final long startNanos = System.nanoTime();
+    private final long[] phaseNanos = new long[QueryPhase.values().length];
+    private final AtomicLong bufferFullNanos = new AtomicLong();
+    private final AtomicLong rowsAwaitedNanos = new AtomicLong();
+
+    // Written by the executing thread, then the ring buffer thread
+    private volatile QueryPhase phase;
+    private volatile long phaseStart;
+    private volatile long firstRowNanos = -1;
+    private volatile long rows;
+    private volatile long bytes;
+
+    DetectorTrace(String sql, QueryTrace delegate) {
+      this.sql = sql;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void phase(QueryPhase next) {
+      long now = System.nanoTime();
+      endPhase(now);
+      phase = next;
+      phaseStart = now;
+      if (next == QueryPhase.STREAM) {
+        firstRowNanos = now - startNanos;
+      }
+      if (delegate != null) {
+        delegate.phase(next);
+      }
+    }
+
+    private void endPhase(long now) {
+      QueryPhase current = phase;
+      if (current != null) {
+        phaseNanos[current.ordinal()] += now - phaseStart;
+      }
+    }
+
+    @Override
+    public void bufferFull(long nanos) {
+      bufferFullNanos.addAndGet(nanos);
+      if (delegate != null) {
+        delegate.bufferFull(nanos);
+      }
+    }
+
+    @Override
+    public void rowsAwaited(long nanos) {
+      rowsAwaitedNanos.addAndGet(nanos);
+      if (delegate != null) {
+        delegate.rowsAwaited(nanos);
+      }
+    }
+
+    @Override
+    public void rowsReceived(long rows, long bytes) {
+      this.rows = rows;
+      this.bytes = bytes;
+      if (delegate != null) {
+        delegate.rowsReceived(rows, bytes);
+      }
+    }
+
+    @Override
+    public void end(Throwable error) {
+      try {
+        long now = System.nanoTime();
+        endPhase(now);
+        phase = null;
+        long totalNanos = now - startNanos;
+        // Without rows, the first row is the completion
+        long firstRow = (firstRowNanos >= 0) ? firstRowNanos : totalNanos;
+
+        Set<SlowQueryEvent.Reason> reasons = EnumSet.noneOf(SlowQueryEvent.Reason.class);
+        if (firstRowThresholdNanos > 0 && firstRow >= firstRowThresholdNanos) {
+          reasons.add(SlowQueryEvent.Reason.FIRST_ROW);
+        }
+        if (totalThresholdNanos > 0 && totalNanos >= totalThresholdNanos) {
+          reasons.add(SlowQueryEvent.Reason.TOTAL);
+        }
+        if (resultSizeThreshold > 0 && bytes >= resultSizeThreshold) {
+          reasons.add(SlowQueryEvent.Reason.RESULT_SIZE);
+        }
+        if (!reasons.isEmpty()) {
+          report(new SlowQueryEvent(
+              (sql != null) ? QuerySanitizer.filterCredentials(sql) : null, reasons, firstRow,
+              totalNanos, phaseNanos, rows, bytes, bufferFullNanos.get(), rowsAwaitedNanos.get(),
+              error));
+        }
+      } finally {
+        if (delegate != null) {
+          delegate.end(error);
+        }
+      }
+    }
+  }
+}
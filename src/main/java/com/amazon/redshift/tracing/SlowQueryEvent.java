@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.tracing;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A statement that crossed a threshold of the {@link SlowQueryDetector}.
+ */
+public final class SlowQueryEvent {
+
+  /**
+   * Thresholds a statement can cross.
+   */
+  public enum Reason {
+    /** Time to the first row, or to the completion of a statement without rows. */
+    FIRST_ROW,
+    /** Time to receive all the results. */
+    TOTAL,
+    /** Size of the rows received. */
+    RESULT_SIZE
+  }
+
+  private final String sql;
+  private final Set<Reason> reasons;
+  private final long firstRowNanos;
+  private final long totalNanos;
+  private final long[] phaseNanos;
+  private final long rows;
+  private final long bytes;
+  private final long bufferFullNanos;
+  private final long rowsAwaitedNanos;
+  private final Throwable error;
+
+  SlowQueryEvent(String sql, Set<Reason> reasons, long firstRowNanos, long totalNanos,
+      long[] phaseNanos, long rows, long bytes, long bufferFullNanos, long rowsAwaitedNanos,
+      Throwable error) {
+    this.sql = sql;
+    this.reasons = Collections.unmodifiableSet(EnumSet.copyOf(reasons));
+    this.firstRowNanos = firstRowNanos;
+    this.totalNanos = totalNanos;
+    this.phaseNanos = phaseNanos.clone();
+    this.rows = rows;
+    this.bytes = bytes;
+    this.bufferFullNanos = bufferFullNanos;
+    this.rowsAwaitedNanos = rowsAwaitedNanos;
+    this.error = error;
+  }
+
+  /**
+   * @return the SQL, with the credentials filtered out
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * @return the thresholds crossed, at least one
+   */
+  public Set<Reason> getReasons() {
+    return reasons;
+  }
+
+  /**
+   * @return time from the start of the execution to the first row, or to the completion of a
+   *         statement without rows, in nanoseconds
+   */
+  public long getFirstRowNanos() {
+    return firstRowNanos;
+  }
+
+  /**
+   * @return time from the start of the execution until all the results were received, in
+   *         nanoseconds
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * @param phase a phase
+   * @return time spent in the phase, in nanoseconds
+   */
+  public long getPhaseNanos(QueryPhase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * @return size of the rows as received from the server, in bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return true if the ring buffer was full: the application did not keep up with the server
+   */
+  public boolean isBufferFull() {
+    return bufferFullNanos > 0;
+  }
+
+  /**
+   * @return time the ring buffer thread waited for the application to read rows, in nanoseconds
+   */
+  public long getBufferFullNanos() {
+    return bufferFullNanos;
+  }
+
+  /**
+   * @return time the application waited in {@code ResultSet.next()} for rows, in nanoseconds
+   */
+  public long getRowsAwaitedNanos() {
+    return rowsAwaitedNanos;
+  }
+
+  /**
+   * @return the error of the statement, or null
+   */
+  public Throwable getError() {
+    return error;
+  }
+
+  /**
+   * @return the event as a single line of key=value pairs, durations in milliseconds
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("Slow query:");
+    sb.append(" reasons=").append(reasons);
+    sb.append(" firstRowMs=").append(toMillis(firstRowNanos));
+    sb.append(" totalMs=").append(toMillis(totalNanos));
+    for (QueryPhase phase : QueryPhase.values()) {
+      sb.append(' ').append(phase.name().toLowerCase(Locale.ROOT)).append("Ms=")
+          .append(toMillis(getPhaseNanos(phase)));
+    }
+    sb.append(" rows=").append(rows);
+    sb.append(" bytes=").append(bytes);
+    sb.append(" bufferFull=").append(isBufferFull());
+    sb.append(" bufferFullMs=").append(toMillis(bufferFullNanos));
+    sb.append(" rowsAwaitedMs=").append(toMillis(rowsAwaitedNanos));
+    if (error != null) {
+      sb.append(" error=\"").append(error.getMessage()).append('"');
+    }
+    sb.append(" sql=\"").append(sql).append('"');
+    return sb.toString();
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
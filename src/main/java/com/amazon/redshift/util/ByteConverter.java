@@ -60,12 +60,14 @@ public class ByteConverter {
    */
   private static void digitToString(int idx, short[] digits, CharBuffer buffer, boolean alwaysPutIt) {
     short dig = (idx >= 0 && idx < digits.length) ? digits[idx] : 0;
+    boolean putit = alwaysPutIt;
     for (int p = 1; p < round_powers.length; p++) {
       int pow = round_powers[p];
       short d1 = (short)(dig / pow);
       dig -= d1 * pow;
-      boolean putit = (d1 > 0);
-      if (putit || alwaysPutIt) {
+      // once a leading digit is written, inner zeroes are significant
+      putit |= (d1 > 0);
+      if (putit) {
         buffer.put((char)(d1 + '0'));
       }
     }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2010-2024 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ */
+
+package com.amazon.redshift.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer for the statement timeouts, scheduling and cancelling tasks in constant time.
+ *
+ * <p>{@link java.util.Timer} keeps its tasks in a binary heap: each schedule is O(log n), and a
+ * cancelled task stays in the heap until it expires or the timer is purged. With a query timeout
+ * set, every statement execution schedules a task and almost always cancels it. This timer hashes
+ * the tasks into a wheel of buckets, one per tick: scheduling appends to a queue, cancelling marks
+ * the task and queues its removal, and the timer thread moves the tasks to and from the buckets at
+ * each tick. Tasks run on the timer thread up to one tick late, and must return quickly.</p>
+ */
+public final class HashedWheelTimer {
+
+  private static final AtomicInteger timerCount = new AtomicInteger(0);
+
+  private static final int TICK_MILLIS = 10;
+
+  private static final int WHEEL_SIZE = 512;
+
+  // Tasks moved to the wheel per tick, so that a burst doesn't delay the expirations
+  private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+  private final long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+  private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+  private final Queue<Task> scheduled = new ConcurrentLinkedQueue<Task>();
+  private final Queue<Task> cancelled = new ConcurrentLinkedQueue<Task>();
+
+  // Guarded by this
+  private Thread worker;
+  private volatile boolean stopped;
+  private volatile long startNanos;
+
+  public HashedWheelTimer() {
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new Bucket();
+    }
+  }
+
+  /**
+   * A task run once its delay has elapsed, unless cancelled before.
+   */
+  public abstract static class Task implements Runnable {
+    private static final int SCHEDULED = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+    private volatile HashedWheelTimer timer;
+
+    // Accessed by the timer thread only
+    private long deadline;
+    private long remainingRounds;
+    private Task next;
+    private Task prev;
+    private Bucket bucket;
+
+    /**
+     * Cancels the task.
+     *
+     * @return true if the task will not run, false if it already ran or is running
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(SCHEDULED, CANCELLED)) {
+        return state.get() == CANCELLED;
+      }
+      HashedWheelTimer t = timer;
+      if (t != null) {
+        // Removed from its bucket by the timer thread
+        t.cancelled.add(this);
+      }
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+  }
+
+  /**
+   * Schedules a task.
+   *
+   * @param task the task, not scheduled before
+   * @param delayMillis delay in milliseconds
+   */
+  public void schedule(Task task, long delayMillis) {
+    if (task.timer != null) {
+      throw new IllegalStateException("Task already scheduled");
+    }
+    start();
+    task.timer = this;
+    task.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis))
+        - startNanos;
+    scheduled.add(task);
+  }
+
+  /**
+   * Stops the timer thread. The tasks not run yet never run.
+   */
+  public synchronized void stop() {
+    stopped = true;
+    if (worker != null) {
+      worker.interrupt();
+      worker = null;
+    }
+  }
+
+  private synchronized void start() {
+    if (stopped) {
+      throw new IllegalStateException("Timer stopped");
+    }
+    if (worker != null) {
+      return;
+    }
+    startNanos = System.nanoTime();
+
+    /*
+     Don't keep the contextClassLoader of the thread scheduling the first task, which may be the
+     ClassLoader of a web application, from being GC:ed.
+     */
+    final ClassLoader prevContextCL = Thread.currentThread().getContextClassLoader();
+    try {
+      Thread.currentThread().setContextClassLoader(null);
+      worker = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          runWorker();
+        }
+      }, "Redshift JDBC driver timeout thread " + timerCount.incrementAndGet());
+      worker.setDaemon(true); // Don't prevent the VM from shutting down
+      worker.start();
+    } finally {
+      Thread.currentThread().setContextClassLoader(prevContextCL);
+    }
+  }
+
+  private void runWorker() {
+    long tick = 0;
+    while (!stopped) {
+      long deadline = tickNanos * (tick + 1);
+      long sleepNanos = deadline - (System.nanoTime() - startNanos);
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          // Stopped, or check again
+          continue;
+        }
+      }
+
+      removeCancelled();
+      transferScheduled(tick);
+      wheel[(int) (tick & (WHEEL_SIZE - 1))].expire(deadline);
+      tick++;
+    }
+  }
+
+  private void removeCancelled() {
+    Task task;
+    while ((task = cancelled.poll()) != null) {
+      if (task.bucket != null) {
+        task.bucket.remove(task);
+      }
+    }
+  }
+
+  private void transferScheduled(long tick) {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      Task task = scheduled.poll();
+      if (task == null) {
+        return;
+      }
+      if (task.state.get() != Task.SCHEDULED) {
+        continue;
+      }
+
+      long expirationTick = task.deadline / tickNanos;
+      task.remainingRounds = (expirationTick - tick) / WHEEL_SIZE;
+      // Expire the tasks already past due at this tick
+      long bucketTick = Math.max(expirationTick, tick);
+      wheel[(int) (bucketTick & (WHEEL_SIZE - 1))].add(task);
+    }
+  }
+
+  /**
+   * Doubly linked list of the tasks hashed to a tick.
+   */
+  private static final class Bucket {
+    private Task head;
+    private Task tail;
+
+    void add(Task task) {
+      task.bucket = this;
+      if (head == null) {
+        head = tail = task;
+      } else {
+        tail.next = task;
+        task.prev = tail;
+        tail = task;
+      }
+    }
+
+    void expire(long deadline) {
+      Task task = head;
+      while (task != null) {
+        Task next = task.next;
+        if (task.isCancelled()) {
+          remove(task);
+        } else if (task.remainingRounds <= 0 && task.deadline <= deadline) {
+          remove(task);
+          if (task.state.compareAndSet(Task.SCHEDULED, Task.EXPIRED)) {
+            try {
+              task.run();
+            } catch (Throwable t) {
+              // Don't let a task stop the timer
+            }
+          }
+        } else if (task.remainingRounds > 0) {
+          task.remainingRounds--;
+        }
+        task = next;
+      }
+    }
+
+    void remove(Task task) {
+      if (task.bucket != this) {
+        return;
+      }
+      if (task.prev != null) {
+        task.prev.next = task.next;
+      } else {
+        head = task.next;
+      }
+      if (task.next != null) {
+        task.next.prev = task.prev;
+      } else {
+        tail = task.prev;
+      }
+      task.prev = null;
+      task.next = null;
+      task.bucket = null;
+    }
+  }
+}
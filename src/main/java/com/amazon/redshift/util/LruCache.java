@@ -155,6 +155,17 @@ public class LruCache<Key, Value extends CanEstimateSize> implements Gettable<Ke
     }
   }
 
+  /**
+   * Removes all the entries from the cache.
+   */
+  public synchronized void clear() {
+    for (Value value : cache.values()) {
+      evictValue(value);
+    }
+    cache.clear();
+    currentSize = 0;
+  }
+
   public static final CreateAction NOOP_CREATE_ACTION = new CreateAction() {
     @Override
     public Object create(Object o) throws SQLException {
@@ -18,6 +18,8 @@ public class SharedTimer {
   private static final RedshiftLogger logger = RedshiftLogger.getDriverLogger();
   private volatile Timer timer = null;
   private final AtomicInteger refCount = new AtomicInteger(0);
+  private HashedWheelTimer wheelTimer = null;
+  private int wheelTimerRefCount = 0;
 
   public SharedTimer() {
   }
@@ -50,6 +52,31 @@ public class SharedTimer {
     return timer;
   }
 
+  /**
+   * Returns the timer of the statement timeouts, shared by the connections like {@link #getTimer()}.
+   *
+   * @return the timer
+   */
+  public synchronized HashedWheelTimer getWheelTimer() {
+    if (wheelTimer == null) {
+      wheelTimer = new HashedWheelTimer();
+    }
+    wheelTimerRefCount++;
+    return wheelTimer;
+  }
+
+  /**
+   * Releases a reference returned by {@link #getWheelTimer()}, stopping the timer after the last.
+   */
+  public synchronized void releaseWheelTimer() {
+    if (wheelTimerRefCount > 0 && --wheelTimerRefCount == 0 && wheelTimer != null) {
+    	if(RedshiftLogger.isEnable() && logger != null)
+    		logger.log(LogLevel.DEBUG, "No outstanding references to shared timeout timer, will stop it");
+      wheelTimer.stop();
+      wheelTimer = null;
+    }
+  }
+
   public synchronized void releaseTimer() {
     int count = refCount.decrementAndGet();
     if (count > 0) {